@@ -0,0 +1,31 @@
+package com.jtool.db.benchmark;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.jtool.db.annotation.DataSource;
+import com.jtool.db.annotation.EntityClass;
+import com.jtool.db.annotation.QueryMonitor;
+import com.jtool.db.annotation.TableName;
+import com.jtool.db.dao.AbstractDAO;
+
+/**
+ * 用@EntityClass映射的DAO，与BenchmarkUserDAO对比两种映射方式
+ */
+@Repository
+@TableName("user")
+@DataSource("dataSource")
+@EntityClass(BenchmarkUser.class)
+@QueryMonitor(jmx = false)
+public class BenchmarkEntityUserDAO extends AbstractDAO {
+
+	public List<BenchmarkUser> findByAgeAsList(int from, int to) {
+		return selectFilterByAsList("where age between ? and ?", from, to);
+	}
+
+	public RowMapper<?> newRowMapper() {
+		return makeRowMapperInstance();
+	}
+}
@@ -0,0 +1,20 @@
+package com.jtool.db.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 与org.openjdk.jmh.Main的参数相同，默认加上gc profiler，同时输出吞吐量和每次操作分配的内存（gc.alloc.rate.norm）。
+ * 例：java -jar target/benchmarks.jar QueryBenchmark -rf json
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		new Runner(new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,58 @@
+package com.jtool.db.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+/**
+ * 启动Spring上下文并生成ROWS条数据，age取0到99，每个年龄ROWS/100条
+ */
+@State(Scope.Benchmark)
+public class BenchmarkState {
+
+	public static final int ROWS = 10000;
+
+	ClassPathXmlApplicationContext context;
+
+	BenchmarkUserDAO userDAO;
+
+	BenchmarkEntityUserDAO entityUserDAO;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new ClassPathXmlApplicationContext("/benchmark-config.xml");
+		userDAO = context.getBean(BenchmarkUserDAO.class);
+		entityUserDAO = context.getBean(BenchmarkEntityUserDAO.class);
+		userDAO.insertAll(newUsers(ROWS));
+	}
+
+	/**
+	 * 插入类的测试每轮结束后删掉新增的数据，保持表大小不变
+	 */
+	@TearDown(Level.Iteration)
+	public void removeInserted() {
+		userDAO.deleteAbove(ROWS);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	static List<BenchmarkUser> newUsers(int count) {
+		List<BenchmarkUser> users = new ArrayList<>(count);
+		for(int i = 0; i < count; i++) {
+			BenchmarkUser user = new BenchmarkUser();
+			user.setName("user" + i);
+			user.setAge(i % 100);
+			users.add(user);
+		}
+		return users;
+	}
+}
@@ -0,0 +1,89 @@
+package com.jtool.db.benchmark;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.jtool.db.annotation.DataSource;
+import com.jtool.db.annotation.Mapper;
+import com.jtool.db.annotation.QueryMonitor;
+import com.jtool.db.annotation.TableName;
+import com.jtool.db.dao.AbstractDAO;
+import com.jtool.db.keyset.Keyset;
+import com.jtool.db.keyset.KeysetPage;
+import com.jtool.db.row.CompactRows;
+
+/**
+ * 用内部@Mapper类映射的DAO，把受保护的方法公开给压测使用
+ */
+@Repository
+@TableName("user")
+@DataSource("dataSource")
+@QueryMonitor(jmx = false)
+public class BenchmarkUserDAO extends AbstractDAO {
+
+	@Mapper
+	public static final class ObjectRowMapper implements RowMapper<BenchmarkUser> {
+		public BenchmarkUser mapRow(ResultSet rs, int rowNum) throws SQLException {
+			BenchmarkUser o = new BenchmarkUser();
+			o.setId(rs.getInt("id"));
+			o.setName(rs.getString("name"));
+			o.setAge(rs.getInt("age"));
+			return o;
+		}
+	}
+
+	public Optional<BenchmarkUser> findById(int id) {
+		return selectById(id);
+	}
+
+	public List<BenchmarkUser> findByAgeAsList(int from, int to) {
+		return selectFilterByAsList("where age between ? and ?", from, to);
+	}
+
+	public List<Map<String, Object>> findByAgeAsRows(int from, int to) {
+		return selectFilterByAsRows("where age between ? and ?", from, to);
+	}
+
+	public CompactRows findByAgeAsCompactRows(int from, int to) {
+		return selectFilterByAsCompactRows("where age between ? and ?", from, to);
+	}
+
+	public List<BenchmarkUser> findPage(int start, int limit) {
+		return selectFilterByStartAndLimitOrderByAsList("", start, limit, "order by id");
+	}
+
+	public List<Map<String, Object>> findPageAsRows(int start, int limit) {
+		return selectFilterByStartAndLimitOrderBy("", start, limit, "order by id");
+	}
+
+	public KeysetPage<BenchmarkUser> findKeysetPage(String continuationToken, int limit) {
+		return selectFilterByKeysetAsList("", Keyset.asc("id"), continuationToken, limit);
+	}
+
+	public int insert(BenchmarkUser user) {
+		return add(user);
+	}
+
+	public int[] insertAll(Collection<BenchmarkUser> users) {
+		return addAll(users);
+	}
+
+	public int[] insertAllMultiRow(Collection<BenchmarkUser> users) {
+		return addAll(users, users.size(), true);
+	}
+
+	public int deleteAbove(int id) {
+		return deleteBy("where id > ?", id);
+	}
+
+	public RowMapper<?> newRowMapper() {
+		return makeRowMapperInstance();
+	}
+}
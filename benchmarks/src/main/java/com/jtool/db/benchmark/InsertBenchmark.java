@@ -0,0 +1,62 @@
+package com.jtool.db.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 逐条add与批量addAll的对比，结果按每行计算
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+
+	private static final int BATCH = 100;
+
+	@State(Scope.Thread)
+	public static class Batch {
+		List<BenchmarkUser> users;
+
+		@Setup(Level.Invocation)
+		public void setUp() {
+			users = BenchmarkState.newUsers(BATCH);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int add(BenchmarkState state, Batch batch) {
+		int id = 0;
+		for(BenchmarkUser user : batch.users) {
+			id = state.userDAO.insert(user);
+		}
+		return id;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int[] addAll(BenchmarkState state, Batch batch) {
+		return state.userDAO.insertAll(batch.users);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public int[] addAllWithMultiRowValues(BenchmarkState state, Batch batch) {
+		return state.userDAO.insertAllMultiRow(batch.users);
+	}
+}
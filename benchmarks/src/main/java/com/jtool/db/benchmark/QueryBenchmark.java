@@ -0,0 +1,76 @@
+package com.jtool.db.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jtool.db.keyset.KeysetPage;
+import com.jtool.db.row.CompactRows;
+
+/**
+ * 查询类方法的吞吐量。按年龄查询每次返回ROWS/100条
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+	private static final int PAGE_SIZE = 20;
+
+	@Benchmark
+	public Optional<BenchmarkUser> selectById(BenchmarkState state) {
+		return state.userDAO.findById(ThreadLocalRandom.current().nextInt(BenchmarkState.ROWS) + 1);
+	}
+
+	@Benchmark
+	public List<BenchmarkUser> selectFilterByAsList(BenchmarkState state) {
+		int age = ThreadLocalRandom.current().nextInt(100);
+		return state.userDAO.findByAgeAsList(age, age);
+	}
+
+	@Benchmark
+	public List<BenchmarkUser> selectFilterByAsListWithEntityMapping(BenchmarkState state) {
+		int age = ThreadLocalRandom.current().nextInt(100);
+		return state.entityUserDAO.findByAgeAsList(age, age);
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> selectFilterByAsRows(BenchmarkState state) {
+		int age = ThreadLocalRandom.current().nextInt(100);
+		return state.userDAO.findByAgeAsRows(age, age);
+	}
+
+	@Benchmark
+	public CompactRows selectFilterByAsCompactRows(BenchmarkState state) {
+		int age = ThreadLocalRandom.current().nextInt(100);
+		return state.userDAO.findByAgeAsCompactRows(age, age);
+	}
+
+	@Benchmark
+	public List<BenchmarkUser> selectFilterByStartAndLimitOrderByAsList(BenchmarkState state) {
+		return state.userDAO.findPage(ThreadLocalRandom.current().nextInt(BenchmarkState.ROWS - PAGE_SIZE), PAGE_SIZE);
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> selectFilterByStartAndLimitOrderBy(BenchmarkState state) {
+		return state.userDAO.findPageAsRows(ThreadLocalRandom.current().nextInt(BenchmarkState.ROWS - PAGE_SIZE), PAGE_SIZE);
+	}
+
+	@Benchmark
+	public KeysetPage<BenchmarkUser> selectFilterByKeysetAsList(BenchmarkState state) {
+		KeysetPage<BenchmarkUser> first = state.userDAO.findKeysetPage(null, PAGE_SIZE);
+		return state.userDAO.findKeysetPage(first.getNextToken(), PAGE_SIZE);
+	}
+}
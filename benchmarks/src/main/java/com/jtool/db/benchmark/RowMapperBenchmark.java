@@ -0,0 +1,33 @@
+package com.jtool.db.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * 每次查询都要新建RowMapper，对比@Mapper内部类和@EntityClass两种方式的开销
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMapperBenchmark {
+
+	@Benchmark
+	public RowMapper<?> mapperClass(BenchmarkState state) {
+		return state.userDAO.newRowMapper();
+	}
+
+	@Benchmark
+	public RowMapper<?> entityClass(BenchmarkState state) {
+		return state.entityUserDAO.newRowMapper();
+	}
+}
@@ -0,0 +1,45 @@
+package com.jtool.db.dao;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 对比每次拼接SQL和日志字符串与使用SqlTemplates缓存语句的开销，每次操作分配的内存看gc.alloc.rate.norm。
+ * SqlTemplates是包内可见的，所以放在com.jtool.db.dao包下
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlTemplatesBenchmark {
+
+	private final String tableName = "user";
+	private final String filter = "where age < ?";
+	private final String orderBy = "order by id desc";
+	private final Object[] args = new Object[] { 20 };
+	private final SqlTemplates sqlTemplates = new SqlTemplates(tableName);
+
+	@Benchmark
+	public int concatenation() {
+		String sql = "select * from " + tableName + " " + filter + " " + orderBy + " limit ?, ?";
+		String message = "准备查找数据：" + sql + "\t" + Arrays.toString(args);
+		return sql.length() + message.length();
+	}
+
+	@Benchmark
+	public String template() {
+		return sqlTemplates.paged(filter, orderBy);
+	}
+}
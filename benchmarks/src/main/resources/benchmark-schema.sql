@@ -0,0 +1,7 @@
+CREATE TABLE user (
+  id INTEGER IDENTITY,
+  name VARCHAR(45) NOT NULL,
+  age INTEGER NOT NULL
+) ;
+
+     CREATE INDEX user_age ON user (age);
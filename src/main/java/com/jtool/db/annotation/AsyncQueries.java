@@ -0,0 +1,21 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * xxxAsync方法所用执行器的配置。同一个数据源的DAO共用一个执行器，以第一个初始化的DAO的配置为准，
+ * 使用它的DAO全部销毁后关闭。
+ * maxConcurrency为0时取连接池的最大连接数，virtualThreads为true且运行在JDK21以上时使用虚拟线程
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface AsyncQueries {
+	int maxConcurrency() default 0;
+
+	boolean virtualThreads() default false;
+}
@@ -0,0 +1,19 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * selectByIds每条in (...)语句的ID个数，parallelism大于1时多批并发查询
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface BatchLookup {
+	int chunkSize() default 500;
+
+	int parallelism() default 1;
+}
@@ -0,0 +1,22 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * addAll的分批大小，multiRowValues为true时每批改写成一条insert ... values (...),(...)。
+ * 多行VALUES只返回第一行的自增主键，驱动按步长推算其余行，要求一条语句分到的主键连续：
+ * MySQL需要innodb_autoinc_lock_mode不大于1，为2（交错模式）时并发插入下addAll返回的主键可能对不上行，
+ * 不能满足时不要开启multiRowValues
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface BulkInsert {
+	int chunkSize() default 1000;
+
+	boolean multiRowValues() default false;
+}
@@ -0,0 +1,29 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 限制DAO同时占用的连接数，超出的调用最多排队maxWait毫秒，仍拿不到时抛出AdmissionRejectedException。
+ * maxConcurrency为同一数据源（含从库，各自独立计数）上所有标注了@Bulkhead的DAO共享的上限，以第一个初始化的DAO为准，
+ * 0表示取连接池大小；daoMaxConcurrency大于0时该DAO另有自己的上限。
+ * adaptive为true时按观察到的延迟在[minConcurrency, 上限]之间自动调整。
+ * 事务中的语句使用事务管理器取得的连接，不受限制
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface Bulkhead {
+	int maxConcurrency() default 0;
+
+	int daoMaxConcurrency() default 0;
+
+	long maxWait() default 100;
+
+	boolean adaptive() default false;
+
+	int minConcurrency() default 1;
+}
@@ -0,0 +1,24 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 按条件和参数缓存countTotal/countTotalFilterBy的结果，ttl单位为毫秒，通过DAO的写操作会清空缓存。
+ * approximate为true时countTotal先读表统计信息的估算行数，估算值小于approximateThreshold时再精确计算
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface CountCache {
+	int maxSize() default 1000;
+
+	long ttl() default 5000;
+
+	boolean approximate() default false;
+
+	long approximateThreshold() default 100000;
+}
@@ -6,9 +6,21 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import com.jtool.db.routing.LoadBalance;
+
+/**
+ * value为主库的bean名称，replicas为从库的bean名称。事务外的只读方法会分发到从库，
+ * 从库连接出错后摘除replicaRecoveryInterval毫秒再重新加入
+ */
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 @Inherited
 public @interface DataSource {
 	String value() default "";
+
+	String[] replicas() default {};
+
+	LoadBalance loadBalance() default LoadBalance.ROUND_ROBIN;
+
+	long replicaRecoveryInterval() default 30000;
 }
@@ -0,0 +1,25 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.jtool.db.cache.EvictionPolicy;
+
+/**
+ * 开启selectById的实体缓存，ttl单位为毫秒。
+ * 命中时返回缓存里的同一个对象，所有调用方共享，必须当作只读；需要修改时先复制一份，
+ * 否则在过期或被淘汰之前其他调用方都会读到改过的值
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface EntityCache {
+	int maxSize() default 1000;
+
+	long ttl() default 60000;
+
+	EvictionPolicy eviction() default EvictionPolicy.LRU;
+}
@@ -0,0 +1,18 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 流式查询使用的fetchSize，默认Integer.MIN_VALUE即MySQL逐行流式读取；
+ * 连接串开启useCursorFetch=true时可以配置为正数使用服务端游标
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface FetchSize {
+	int value() default Integer.MIN_VALUE;
+}
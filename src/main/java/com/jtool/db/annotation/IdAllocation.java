@@ -0,0 +1,23 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 由应用分配主键：从序列表一次预留blockSize个id，在内存里分配，插入时不再取回自增主键。
+ * 序列表结构：create table id_sequence (name varchar(64) primary key, next_id bigint not null)，
+ * sequenceName默认为表名
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface IdAllocation {
+	String sequenceTable() default "id_sequence";
+
+	String sequenceName() default "";
+
+	int blockSize() default 1000;
+}
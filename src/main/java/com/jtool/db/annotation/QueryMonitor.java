@@ -0,0 +1,19 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 查询统计配置，slowQueryThreshold单位为毫秒，0表示不记录慢查询；没有标注时使用默认值
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface QueryMonitor {
+	long slowQueryThreshold() default 1000;
+
+	boolean jmx() default true;
+}
@@ -0,0 +1,23 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 缓存selectFilterByAsList、selectFilterByAsRows和execSelectSql的结果，maxBytes为估算的内存上限，ttl单位为毫秒。
+ * 通过DAO写表会使该表的缓存失效；execSelectSql关联了其他表时把这些表写在dependsOn里。
+ * 命中时返回的列表是副本，但列表里的行对象（Map或实体）与缓存共享，必须当作只读
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface ResultCache {
+	long maxBytes() default 16 * 1024 * 1024;
+
+	long ttl() default 60000;
+
+	String[] dependsOn() default {};
+}
@@ -0,0 +1,32 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.jtool.db.shard.ModuloShardingStrategy;
+import com.jtool.db.shard.ShardingStrategy;
+
+/**
+ * 分片DAO的配置。dataSources为各分片数据源的bean名称，tablesPerDataSource大于1时每个数据源内再分表，
+ * 物理表名为 表名_全局分片序号。shardKey为分片键的列名
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface Sharding {
+	String[] dataSources();
+
+	int tablesPerDataSource() default 1;
+
+	String shardKey() default "id";
+
+	Class<? extends ShardingStrategy> strategy() default ModuloShardingStrategy.class;
+
+	/**
+	 * 扇出查询的并发线程数，0表示与分片数相同
+	 */
+	int parallelism() default 0;
+}
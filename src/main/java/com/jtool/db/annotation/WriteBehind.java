@@ -0,0 +1,32 @@
+package com.jtool.db.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 开启addWriteBehind异步批量插入，flushInterval和offerTimeout单位为毫秒，
+ * 队列满时调用方最多阻塞offerTimeout，超时抛出WriteBehindQueueFullException。
+ * 每批在独立的事务里写入，整批写入失败时回滚并最多重试maxRetries次，每次等待retryBackoff（毫秒）并逐次翻倍；
+ * 重试用尽后交给名为failureHandler的WriteBehindFailureHandler bean，未配置时只记录错误日志
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+public @interface WriteBehind {
+	int queueCapacity() default 10000;
+
+	int batchSize() default 500;
+
+	long flushInterval() default 1000;
+
+	long offerTimeout() default 1000;
+
+	int maxRetries() default 3;
+
+	long retryBackoff() default 100;
+
+	String failureHandler() default "";
+}
@@ -0,0 +1,49 @@
+package com.jtool.db.cache;
+
+public final class CacheStats {
+
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	private final long expiredCount;
+	private final int size;
+
+	public CacheStats(long hitCount, long missCount, long evictionCount, long expiredCount, int size) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.expiredCount = expiredCount;
+		this.size = size;
+	}
+
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	public long getMissCount() {
+		return missCount;
+	}
+
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	public long getExpiredCount() {
+		return expiredCount;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public double getHitRate() {
+		long requestCount = hitCount + missCount;
+		return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+	}
+
+	@Override
+	public String toString() {
+		return "CacheStats [hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount
+				+ ", expiredCount=" + expiredCount + ", size=" + size + "]";
+	}
+}
@@ -0,0 +1,5 @@
+package com.jtool.db.cache;
+
+public enum EvictionPolicy {
+	LRU, LFU
+}
@@ -0,0 +1,177 @@
+package com.jtool.db.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 有容量上限和过期时间的本地缓存，容量满时按LRU或LFU淘汰。
+ * stamp()/put(key, value, stamp)用于防止查询期间发生的失效被旧数据覆盖。
+ */
+public class LocalCache<K, V> {
+
+	private final int maxSize;
+	private final long ttlNanos;
+	private final EvictionPolicy policy;
+
+	private final LinkedHashMap<K, Node<V>> nodes;
+	private final Map<Integer, LinkedHashSet<K>> frequencies = new HashMap<>();
+	private int minFrequency;
+
+	private long generation;
+
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+	private long expiredCount;
+
+	public LocalCache(int maxSize, long ttlMillis, EvictionPolicy policy) {
+		if(maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be positive");
+		}
+		this.maxSize = maxSize;
+		this.ttlNanos = ttlMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(ttlMillis) : 0;
+		this.policy = policy;
+		this.nodes = new LinkedHashMap<>(16, 0.75f, policy == EvictionPolicy.LRU);
+	}
+
+	public synchronized V get(K key) {
+		Node<V> node = nodes.get(key);
+		if(node == null) {
+			missCount++;
+			return null;
+		}
+		if(isExpired(node)) {
+			remove(key, node);
+			expiredCount++;
+			missCount++;
+			return null;
+		}
+		if(policy == EvictionPolicy.LFU) {
+			touch(key, node);
+		}
+		hitCount++;
+		return node.value;
+	}
+
+	public synchronized long stamp() {
+		return generation;
+	}
+
+	public synchronized void put(K key, V value) {
+		doPut(key, value);
+	}
+
+	public synchronized boolean put(K key, V value, long stamp) {
+		if(stamp != generation) {
+			return false;
+		}
+		doPut(key, value);
+		return true;
+	}
+
+	public synchronized void invalidate(K key) {
+		generation++;
+		Node<V> node = nodes.get(key);
+		if(node != null) {
+			remove(key, node);
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		generation++;
+		nodes.clear();
+		frequencies.clear();
+		minFrequency = 0;
+	}
+
+	public synchronized int size() {
+		return nodes.size();
+	}
+
+	public synchronized CacheStats stats() {
+		return new CacheStats(hitCount, missCount, evictionCount, expiredCount, nodes.size());
+	}
+
+	private void doPut(K key, V value) {
+		Node<V> node = nodes.get(key);
+		if(node != null) {
+			node.value = value;
+			node.writeTime = System.nanoTime();
+			if(policy == EvictionPolicy.LFU) {
+				touch(key, node);
+			}
+			return;
+		}
+		if(nodes.size() >= maxSize) {
+			evictOne();
+		}
+		node = new Node<>(value, System.nanoTime());
+		nodes.put(key, node);
+		if(policy == EvictionPolicy.LFU) {
+			bucket(1).add(key);
+			minFrequency = 1;
+		}
+	}
+
+	private void evictOne() {
+		K victim;
+		if(policy == EvictionPolicy.LFU) {
+			Iterator<K> it = frequencies.get(minFrequency).iterator();
+			victim = it.next();
+		} else {
+			victim = nodes.keySet().iterator().next();
+		}
+		remove(victim, nodes.get(victim));
+		evictionCount++;
+	}
+
+	private void touch(K key, Node<V> node) {
+		LinkedHashSet<K> keys = frequencies.get(node.frequency);
+		keys.remove(key);
+		if(keys.isEmpty()) {
+			frequencies.remove(node.frequency);
+			if(minFrequency == node.frequency) {
+				minFrequency++;
+			}
+		}
+		node.frequency++;
+		bucket(node.frequency).add(key);
+	}
+
+	private void remove(K key, Node<V> node) {
+		nodes.remove(key);
+		if(policy == EvictionPolicy.LFU) {
+			LinkedHashSet<K> keys = frequencies.get(node.frequency);
+			keys.remove(key);
+			if(keys.isEmpty()) {
+				frequencies.remove(node.frequency);
+				if(minFrequency == node.frequency) {
+					minFrequency = frequencies.isEmpty() ? 0 : frequencies.keySet().stream().min(Integer::compare).get();
+				}
+			}
+		}
+	}
+
+	private LinkedHashSet<K> bucket(int frequency) {
+		return frequencies.computeIfAbsent(frequency, f -> new LinkedHashSet<>());
+	}
+
+	private boolean isExpired(Node<V> node) {
+		return ttlNanos > 0 && System.nanoTime() - node.writeTime > ttlNanos;
+	}
+
+	private static final class Node<V> {
+		V value;
+		long writeTime;
+		int frequency = 1;
+
+		Node(V value, long writeTime) {
+			this.value = value;
+			this.writeTime = writeTime;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.jtool.db.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 按占用内存估算值限制大小的查询结果缓存，超出预算时按LRU淘汰。
+ * 每条记录带有写入时的表版本号，读取时版本号不一致即视为过期
+ */
+public class QueryResultCache {
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private final long maxBytes;
+	private final long ttlNanos;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long weightedSize;
+
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+	private long expiredCount;
+
+	public QueryResultCache(long maxBytes, long ttlMillis) {
+		if(maxBytes <= 0) {
+			throw new IllegalArgumentException("maxBytes must be positive");
+		}
+		this.maxBytes = maxBytes;
+		this.ttlNanos = ttlMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(ttlMillis) : 0;
+	}
+
+	/**
+	 * 缓存键：方法名、压缩空白后的SQL和参数。方法名区分同一SQL映射成实体还是Map的结果
+	 */
+	public static String key(String method, String sql, Object[] args) {
+		return method + '\n' + WHITESPACE.matcher(sql).replaceAll(" ").trim() + '\n' + Arrays.deepToString(args);
+	}
+
+	public synchronized Object get(String key, long version) {
+		Entry entry = entries.get(key);
+		if(entry == null) {
+			missCount++;
+			return null;
+		}
+		if(entry.version != version || (ttlNanos > 0 && System.nanoTime() - entry.writeTime > ttlNanos)) {
+			remove(key, entry);
+			expiredCount++;
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return entry.value;
+	}
+
+	/**
+	 * 单条超过整个预算的结果不缓存
+	 */
+	public synchronized boolean put(String key, Object value, long version) {
+		long weight = estimateSize(value) + key.length() * 2 + 64;
+		if(weight > maxBytes) {
+			return false;
+		}
+		Entry old = entries.get(key);
+		if(old != null) {
+			remove(key, old);
+		}
+		entries.put(key, new Entry(value, version, weight, System.nanoTime()));
+		weightedSize += weight;
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while(weightedSize > maxBytes && it.hasNext()) {
+			Map.Entry<String, Entry> eldest = it.next();
+			weightedSize -= eldest.getValue().weight;
+			it.remove();
+			evictionCount++;
+		}
+		return true;
+	}
+
+	public synchronized void invalidateAll() {
+		entries.clear();
+		weightedSize = 0;
+	}
+
+	public synchronized long weightedSize() {
+		return weightedSize;
+	}
+
+	public synchronized CacheStats stats() {
+		return new CacheStats(hitCount, missCount, evictionCount, expiredCount, entries.size());
+	}
+
+	private void remove(String key, Entry entry) {
+		entries.remove(key);
+		weightedSize -= entry.weight;
+	}
+
+	/**
+	 * 粗略估算结果占用的字节数：字符串按长度计算，集合和Map逐个元素累加，其他对象按固定大小计算
+	 */
+	public static long estimateSize(Object value) {
+		if(value == null) {
+			return 8;
+		}
+		if(value instanceof CharSequence) {
+			return 40 + 2L * ((CharSequence) value).length();
+		}
+		if(value instanceof Number || value instanceof Boolean || value instanceof Date) {
+			return 24;
+		}
+		if(value instanceof byte[]) {
+			return 16 + ((byte[]) value).length;
+		}
+		if(value instanceof Map) {
+			long size = 48;
+			for(Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+				size += 32 + estimateSize(e.getKey()) + estimateSize(e.getValue());
+			}
+			return size;
+		}
+		if(value instanceof Collection) {
+			long size = 24;
+			for(Object element : (Collection<?>) value) {
+				size += 8 + estimateSize(element);
+			}
+			return size;
+		}
+		return 128;
+	}
+
+	private static final class Entry {
+		final Object value;
+		final long version;
+		final long weight;
+		final long writeTime;
+
+		Entry(Object value, long version, long weight, long writeTime) {
+			this.value = value;
+			this.version = version;
+			this.weight = weight;
+			this.writeTime = writeTime;
+		}
+	}
+}
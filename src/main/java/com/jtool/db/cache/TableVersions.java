@@ -0,0 +1,42 @@
+package com.jtool.db.cache;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 每张表一个只增不减的版本号，通过DAO写表时加一，查询结果缓存据此判断缓存是否过期
+ */
+public final class TableVersions {
+
+	private static final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+	private TableVersions() {
+	}
+
+	public static long current(String tableName) {
+		return counter(tableName).get();
+	}
+
+	/**
+	 * 多张表的版本号之和，任何一张表版本变化都会使和变化
+	 */
+	public static long current(String[] tableNames) {
+		long sum = 0;
+		for(String tableName : tableNames) {
+			sum += current(tableName);
+		}
+		return sum;
+	}
+
+	public static void bump(String tableName) {
+		counter(tableName).incrementAndGet();
+	}
+
+	private static AtomicLong counter(String tableName) {
+		String key = tableName.toLowerCase(Locale.ROOT);
+		AtomicLong counter = versions.get(key);
+		return counter != null ? counter : versions.computeIfAbsent(key, k -> new AtomicLong());
+	}
+}
@@ -1,44 +1,174 @@
 package com.jtool.db.dao;
 
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import com.jtool.db.annotation.Mapper;
+import com.jtool.db.annotation.AsyncQueries;
+import com.jtool.db.annotation.BatchLookup;
+import com.jtool.db.annotation.BulkInsert;
+import com.jtool.db.annotation.Bulkhead;
+import com.jtool.db.annotation.CountCache;
+import com.jtool.db.annotation.EntityCache;
+import com.jtool.db.annotation.FetchSize;
+import com.jtool.db.annotation.IdAllocation;
+import com.jtool.db.annotation.QueryMonitor;
+import com.jtool.db.annotation.ResultCache;
 import com.jtool.db.annotation.TableName;
-import com.jtool.db.exception.NewRowMapperInstanceException;
-import com.jtool.db.exception.NotFindRowMapperClassException;
+import com.jtool.db.annotation.WriteBehind;
+import com.jtool.db.cache.CacheStats;
+import com.jtool.db.cache.EvictionPolicy;
+import com.jtool.db.cache.LocalCache;
+import com.jtool.db.cache.QueryResultCache;
+import com.jtool.db.cache.TableVersions;
+import com.jtool.db.delete.ChunkedDeleteOptions;
+import com.jtool.db.export.ExportOptions;
+import com.jtool.db.export.ExportResult;
+import com.jtool.db.id.IdAllocator;
+import com.jtool.db.id.SegmentIdAllocator;
+import com.jtool.db.keyset.Keyset;
+import com.jtool.db.keyset.KeysetPage;
+import com.jtool.db.keyset.KeysetToken;
+import com.jtool.db.mapping.EntityMapping;
+import com.jtool.db.mapping.Projection;
+import com.jtool.db.metrics.QueryMetrics;
+import com.jtool.db.routing.Replica;
+import com.jtool.db.routing.ReplicaSet;
+import com.jtool.db.row.CompactRows;
+import com.jtool.db.row.CompactRowsExtractor;
+import com.jtool.db.scan.BatchHandler;
+import com.jtool.db.scan.ScanOptions;
+import com.jtool.db.scan.ScanResult;
 
 public abstract class AbstractDAO implements ApplicationContextAware {
 
+	public static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+	private static final String TABLE_ROWS_SQL = "select table_rows from information_schema.tables where table_schema = database() and table_name = ?";
+
 	protected final Logger logger = LoggerFactory.getLogger(this.getClass());
 
 	protected JdbcTemplate jdbcTemplate;
-	protected SimpleJdbcInsert simpleJdbcInsert;
+	protected volatile SimpleJdbcInsert simpleJdbcInsert;
+
+	private SqlTemplates sqlTemplates;
+
+	private volatile BulkJdbcWriter bulkJdbcWriter;
+
+	private IdAllocator idAllocator;
+
+	private BulkJdbcInsert idInsert;
 
 	protected DataSource dataSource;
 
+	/**
+	 * 取连接用的数据源，标注了@Bulkhead时是带限流的包装，否则就是dataSource
+	 */
+	private DataSource connectionDataSource;
+
+	private final List<ConcurrencyLimiter> bulkheadLimiters = new ArrayList<>();
+
+	private ConcurrencyLimiter daoLimiter;
+
+	protected ReplicaSet replicaSet;
+
 	protected String tableName;
 
 	protected Class<RowMapper<?>> rowMapper;
 
+	protected EntityMapping<?> entityMapping;
+
+	private RowMapperFactory rowMapperFactory;
+
+	protected LocalCache<String, Object> entityCache;
+
+	protected LocalCache<String, Integer> countCache;
+
+	protected QueryResultCache resultCache;
+
+	private String[] resultCacheTables;
+
+	private final Map<Class<?>, String> derivedSelectLists = new ConcurrentHashMap<>();
+
+	/**
+	 * 插入语句和表结构来自预热时的元数据快照，尚未与实际表结构核对
+	 */
+	private volatile boolean columnsFromSnapshot;
+
+	private boolean approximateCount;
+	private long approximateCountThreshold;
+	private volatile boolean tableStatisticsUnavailable;
+
+	protected int fetchSize = STREAMING_FETCH_SIZE;
+
+	protected int bulkInsertChunkSize = 1000;
+	protected boolean bulkInsertMultiRowValues = false;
+
+	protected int batchLookupChunkSize = 500;
+
+	private ExecutorService batchLookupExecutor;
+
+	private WriteBehindBuffer writeBehindBuffer;
+
+	private QueryMetrics queryMetrics;
+
+	private Executor asyncExecutor;
+
 	private ApplicationContext context;
 
 	@Override
@@ -51,115 +181,870 @@ public abstract class AbstractDAO implements ApplicationContextAware {
 		initTableName();
 		initRowMapper();
 		initDataSource();
+		initEntityCache();
+		initCountCache();
+		initResultCache();
+		initFetchSize();
+		initBulkInsert();
+		initBatchLookup();
+
+		initQueryMetrics();
+
+		this.sqlTemplates = new SqlTemplates(tableName);
+		this.jdbcTemplate = new JdbcTemplate(connectionDataSource);
+		if(connectionDataSource != dataSource) {
+			// 异常转换器初始化时要取连接读数据库类型，不占用限流名额
+			this.jdbcTemplate.setExceptionTranslator(new SQLErrorCodeSQLExceptionTranslator(dataSource));
+		}
+		this.simpleJdbcInsert = new BulkJdbcInsert(connectionDataSource).withTableName(tableName).usingGeneratedKeyColumns("id");
+		this.bulkJdbcWriter = new BulkJdbcWriter(jdbcTemplate, tableName);
+
+		initIdAllocation();
+		initWriteBehind();
+		initAsyncExecutor();
+	}
+
+	/**
+	 * 启动预热：编译SimpleJdbcInsert并读取表结构。snapshot不为null时直接使用快照里的列，不再查询表结构元数据
+	 */
+	TableColumns warmUp(TableColumns snapshot) {
+		if(snapshot != null) {
+			bulkJdbcWriter.useColumns(snapshot);
+			columnsFromSnapshot = true;
+		}
+		compileInsert(simpleJdbcInsert, snapshot == null ? null : snapshot.insertColumns());
+		if(idInsert != null) {
+			compileInsert(idInsert, snapshot == null ? null : snapshot.types.keySet().toArray(new String[0]));
+		}
+		return bulkJdbcWriter.tableColumns();
+	}
+
+	private static void compileInsert(SimpleJdbcInsert insert, String[] columns) {
+		synchronized(insert) {
+			if(!insert.isCompiled()) {
+				if(columns != null) {
+					insert.usingColumns(columns).withoutTableColumnMetaDataAccess();
+				}
+				insert.compile();
+			}
+		}
+	}
+
+	/**
+	 * 从数据库重新读取表结构，不影响当前使用的插入语句
+	 */
+	TableColumns readTableColumns() {
+		return new BulkJdbcWriter(jdbcTemplate, tableName).tableColumns();
+	}
+
+	/**
+	 * 元数据快照与实际表结构不一致时丢弃已编译的插入语句和按表结构推导的查询列，下次使用时按实际表结构重新编译
+	 */
+	void resetInsertMetadata() {
+		this.columnsFromSnapshot = false;
+		this.simpleJdbcInsert = new BulkJdbcInsert(connectionDataSource).withTableName(tableName).usingGeneratedKeyColumns("id");
+		this.bulkJdbcWriter = new BulkJdbcWriter(jdbcTemplate, tableName);
+		if(idInsert != null) {
+			this.idInsert = (BulkJdbcInsert) new BulkJdbcInsert(connectionDataSource).withTableName(tableName);
+		}
+		derivedSelectLists.clear();
+	}
+
+	/**
+	 * 使用元数据快照编译的语句执行失败时，后台核对可能还没完成：按实际表结构核对一次，
+	 * 表结构已变化时重新编译并重试一次，否则原样抛出
+	 */
+	private <R> R withSnapshotRecovery(Supplier<R> write) {
+		try {
+			return write.get();
+		} catch (DataAccessException e) {
+			if(!columnsFromSnapshot || !recompileIfSnapshotStale()) {
+				throw e;
+			}
+			return write.get();
+		}
+	}
+
+	/**
+	 * 按实际表结构核对元数据快照，不一致时丢弃按快照编译的语句
+	 * @return 快照是否已过期
+	 */
+	private boolean recompileIfSnapshotStale() {
+		TableColumns actual = readTableColumns();
+		if(actual.equals(bulkJdbcWriter.tableColumns())) {
+			columnsFromSnapshot = false;
+			return false;
+		}
+		logger.warn("元数据快照与表结构不一致，重新编译：{}", tableName);
+		resetInsertMetadata();
+		return true;
+	}
+
+	String getDataSourceName() {
+		return this.getClass().getAnnotation(com.jtool.db.annotation.DataSource.class).value();
+	}
 
-		this.jdbcTemplate = new JdbcTemplate(dataSource);
-		this.simpleJdbcInsert = new SimpleJdbcInsert(dataSource).withTableName(tableName).usingGeneratedKeyColumns("id");
+	@PreDestroy
+	protected void destroy() {
+		if(writeBehindBuffer != null) {
+			logger.debug("关闭延迟写队列：{}", writeBehindBuffer.stats());
+			writeBehindBuffer.shutdown(30000);
+		}
+		if(queryMetrics != null) {
+			queryMetrics.unregister();
+		}
+		if(batchLookupExecutor != null) {
+			batchLookupExecutor.shutdown();
+		}
+		if(asyncExecutor != null) {
+			AsyncExecutors.release(dataSource);
+			asyncExecutor = null;
+		}
 	}
 
 	private void initDataSource() {
 		Class<?> clazz = this.getClass();
-		String dataSourceString = clazz.getAnnotation(com.jtool.db.annotation.DataSource.class).value();
+		com.jtool.db.annotation.DataSource config = clazz.getAnnotation(com.jtool.db.annotation.DataSource.class);
+		String dataSourceString = config.value();
 		dataSource = context.getBean(dataSourceString, DataSource.class);
+		connectionDataSource = admissionControlled(dataSource, dataSourceString);
+		if(config.replicas().length > 0) {
+			List<Replica> replicas = new ArrayList<>();
+			for(String replicaName : config.replicas()) {
+				replicas.add(new Replica(replicaName, admissionControlled(context.getBean(replicaName, DataSource.class), replicaName)));
+			}
+			replicaSet = new ReplicaSet(replicas, config.loadBalance(), config.replicaRecoveryInterval());
+		}
 	}
 
-	private void initRowMapper() {
-		Class<?> clazz = this.getClass();
-		Class<?>[] clazzes = clazz.getDeclaredClasses();
-		rowMapper = findRowMapperClass(clazzes);
+	private DataSource admissionControlled(DataSource target, String name) {
+		Bulkhead config = this.getClass().getAnnotation(Bulkhead.class);
+		if(config == null) {
+			return target;
+		}
+		ConcurrencyLimiter shared = ConcurrencyLimiter.forDataSource(target, name, config.maxConcurrency(), config.maxWait(), config.adaptive(),
+				config.minConcurrency());
+		bulkheadLimiters.add(shared);
+		if(config.daoMaxConcurrency() <= 0) {
+			return new AdmissionControlledDataSource(target, shared);
+		}
+		if(daoLimiter == null) {
+			daoLimiter = new ConcurrencyLimiter(this.getClass().getSimpleName(), config.daoMaxConcurrency(), config.maxWait(), config.adaptive(),
+					config.minConcurrency());
+			bulkheadLimiters.add(0, daoLimiter);
+		}
+		return new AdmissionControlledDataSource(target, daoLimiter, shared);
 	}
 
-	@SuppressWarnings("unchecked")
-	private Class<RowMapper<?>> findRowMapperClass(Class<?>[] clazzes) {
-		
-		Optional<Class<?>> c = Arrays.asList(clazzes).stream().filter(e -> e.getAnnotation(Mapper.class) != null).findFirst();
-		
-		if(c.isPresent()) {
-			return (Class<RowMapper<?>>) c.get();
-		} else {
-			throw new NotFindRowMapperClassException();
+	private void initEntityCache() {
+		EntityCache config = this.getClass().getAnnotation(EntityCache.class);
+		if(config != null) {
+			entityCache = new LocalCache<>(config.maxSize(), config.ttl(), config.eviction());
 		}
-		
 	}
 
-	protected RowMapper<?> makeRowMapperInstance() {
-		try {
-			return rowMapper.newInstance();
-		} catch (InstantiationException | IllegalAccessException e) {
-			throw new NewRowMapperInstanceException();
+	private void initCountCache() {
+		CountCache config = this.getClass().getAnnotation(CountCache.class);
+		if(config != null) {
+			countCache = new LocalCache<>(config.maxSize(), config.ttl(), EvictionPolicy.LRU);
+			approximateCount = config.approximate();
+			approximateCountThreshold = config.approximateThreshold();
+		}
+	}
+
+	private void initResultCache() {
+		ResultCache config = this.getClass().getAnnotation(ResultCache.class);
+		if(config != null) {
+			resultCache = new QueryResultCache(config.maxBytes(), config.ttl());
+			resultCacheTables = new String[config.dependsOn().length + 1];
+			resultCacheTables[0] = tableName;
+			System.arraycopy(config.dependsOn(), 0, resultCacheTables, 1, config.dependsOn().length);
+		}
+	}
+
+	private void initFetchSize() {
+		FetchSize config = this.getClass().getAnnotation(FetchSize.class);
+		if(config != null) {
+			fetchSize = config.value();
+		}
+	}
+
+	private void initBulkInsert() {
+		BulkInsert config = this.getClass().getAnnotation(BulkInsert.class);
+		if(config != null) {
+			bulkInsertChunkSize = config.chunkSize();
+			bulkInsertMultiRowValues = config.multiRowValues();
+		}
+	}
+
+	private void initBatchLookup() {
+		BatchLookup config = this.getClass().getAnnotation(BatchLookup.class);
+		if(config != null) {
+			batchLookupChunkSize = config.chunkSize();
+			if(config.parallelism() > 1) {
+				batchLookupExecutor = ParallelExecution.newDaemonPool(config.parallelism(), "batch-lookup-" + tableName);
+			}
 		}
 	}
 
+	private void initQueryMetrics() {
+		QueryMonitor config = this.getClass().getAnnotation(QueryMonitor.class);
+		queryMetrics = new QueryMetrics(this.getClass().getSimpleName(), tableName, config == null ? 1000 : config.slowQueryThreshold());
+		if(config == null || config.jmx()) {
+			queryMetrics.register();
+		}
+	}
+
+	private void initWriteBehind() {
+		WriteBehind config = this.getClass().getAnnotation(WriteBehind.class);
+		if(config != null) {
+			WriteBehindFailureHandler failureHandler = config.failureHandler().isEmpty() ? null
+					: context.getBean(config.failureHandler(), WriteBehindFailureHandler.class);
+			// 每次写入（包括重试）在单独的事务里执行，失败时整批回滚，重试不会重复写入已成功的行
+			TransactionTemplate flushTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+			writeBehindBuffer = new WriteBehindBuffer(tableName, config.queueCapacity(), config.batchSize(), config.flushInterval(),
+					config.offerTimeout(), batch -> flushTransaction.execute(status -> addAll(batch, config.batchSize(), bulkInsertMultiRowValues)),
+					config.maxRetries(), config.retryBackoff(), failureHandler);
+		}
+	}
+
+	private void initIdAllocation() {
+		IdAllocation config = this.getClass().getAnnotation(IdAllocation.class);
+		if(config != null) {
+			idAllocator = createIdAllocator(config);
+			idInsert = (BulkJdbcInsert) new BulkJdbcInsert(connectionDataSource).withTableName(tableName);
+		}
+	}
+
+	/**
+	 * 默认使用序列表号段分配，序列行不存在时从表里现有的max(id) + 1开始。可以覆盖成其他分配方式
+	 */
+	protected IdAllocator createIdAllocator(IdAllocation config) {
+		String sequenceName = config.sequenceName().isEmpty() ? tableName : config.sequenceName();
+		return new SegmentIdAllocator(dataSource, config.sequenceTable(), sequenceName, config.blockSize(), () -> {
+			long[] bounds = selectIdBounds();
+			return bounds == null ? 1 : bounds[1] + 1;
+		});
+	}
+
+	private void initAsyncExecutor() {
+		AsyncQueries config = this.getClass().getAnnotation(AsyncQueries.class);
+		String dataSourceName = this.getClass().getAnnotation(com.jtool.db.annotation.DataSource.class).value();
+		asyncExecutor = config == null ? AsyncExecutors.forDataSource(dataSource, dataSourceName, 0, false)
+				: AsyncExecutors.forDataSource(dataSource, dataSourceName, config.maxConcurrency(), config.virtualThreads());
+	}
+
+	private void initRowMapper() {
+		rowMapperFactory = RowMapperFactory.forDAO(this.getClass());
+		rowMapper = rowMapperFactory.getRowMapperClass();
+		entityMapping = rowMapperFactory.getEntityMapping();
+	}
+
+	protected RowMapper<?> makeRowMapperInstance() {
+		return rowMapperFactory.newRowMapper();
+	}
+
+	protected SqlParameterSource makeParameterSource(Object object) {
+		return rowMapperFactory.newParameterSource(object);
+	}
+
 	private void initTableName() {
 		Class<?> clazz = this.getClass();
 		tableName = clazz.getAnnotation(TableName.class).value();
 	}
 
 	protected <T> List<T> selectAll() {
-		String selectSQL = "select * from " + tableName;
-		logger.debug("准备查找全部数据：" + selectSQL);
+		String selectSQL = sqlTemplates.selectAll;
+		logger.debug("准备查找全部数据：{}", selectSQL);
 		@SuppressWarnings("unchecked")
-		List<T> result = (List<T>) jdbcTemplate.query(selectSQL, makeRowMapperInstance());
-		logger.debug("查找全部数据的条数：" + result.size());
+		List<T> result = (List<T>) doQuery("selectAll", selectSQL, makeRowMapperInstance());
+		logger.debug("查找全部数据的条数：{}", result.size());
 		return result;
 	};
 
+	/**
+	 * 只查询projection中的列
+	 */
+	protected <T> List<T> selectAll(Projection<T> projection) {
+		String sql = sqlTemplates.project(sqlTemplates.selectAll, selectList(projection));
+		logger.debug("准备查找全部数据：{}", sql);
+		List<T> result = doQuery("selectAll", sql, projection.newRowMapper());
+		logger.debug("查找全部数据的条数：{}", result.size());
+		return result;
+	}
+
+	private String selectList(Projection<?> projection) {
+		if(projection.hasExplicitColumns()) {
+			return projection.selectList(null);
+		}
+		String derived = derivedSelectLists.get(projection.getType());
+		if(derived != null) {
+			return derived;
+		}
+		// 快照中多出或缺少的列会让投影静默地少查列，推导前先核对一次实际表结构
+		if(columnsFromSnapshot) {
+			recompileIfSnapshotStale();
+		}
+		Set<String> columns = bulkJdbcWriter.tableColumns().types.keySet();
+		return derivedSelectLists.computeIfAbsent(projection.getType(), type -> projection.selectList(columns));
+	}
+
 	protected int add(Object object) {
-		SqlParameterSource sps = new BeanPropertySqlParameterSource(object);
-		logger.debug("准备插入对象：" + object);
-		int id = simpleJdbcInsert.executeAndReturnKey(sps).intValue();
-		logger.debug("插入成功:" + object);
+		if(idAllocator != null) {
+			return addWithAllocatedId(object);
+		}
+		SqlParameterSource sps = makeParameterSource(object);
+		logger.debug("准备插入对象：{}", object);
+		long begin = System.nanoTime();
+		int id;
+		try {
+			id = withSnapshotRecovery(() -> simpleJdbcInsert.executeAndReturnKey(sps)).intValue();
+			recordQuery("add", simpleJdbcInsert.getInsertString(), begin, 1, false);
+		} catch (RuntimeException e) {
+			recordQuery("add", insertSql(simpleJdbcInsert), begin, 0, true);
+			throw e;
+		}
+		logger.debug("插入成功:{}", object);
+		evictEntity(id);
 		return id;
 	}
 
+	private int addWithAllocatedId(Object object) {
+		long[] id = new long[1];
+		SqlParameterSource sps = makeParameterSourceWithId(object, id);
+		logger.debug("准备插入对象：{}\tid={}", object, id[0]);
+		long begin = System.nanoTime();
+		try {
+			withSnapshotRecovery(() -> idInsert.execute(sps));
+			recordQuery("add", idInsert.getInsertString(), begin, 1, false);
+		} catch (RuntimeException e) {
+			recordQuery("add", insertSql(idInsert), begin, 0, true);
+			throw e;
+		}
+		logger.debug("插入成功:{}", object);
+		evictEntity(id[0]);
+		return Math.toIntExact(id[0]);
+	}
+
+	/**
+	 * 配置了@IdAllocation时，对象的id已有值（大于0）则沿用，否则分配一个新id，
+	 * 对象有可写的id属性时同时写回对象
+	 */
+	private SqlParameterSource makeParameterSourceWithId(Object object, long[] id) {
+		SqlParameterSource sps = makeParameterSource(object);
+		Object existing = sps.hasValue("id") ? sps.getValue("id") : null;
+		if(existing instanceof Number && ((Number) existing).longValue() > 0) {
+			id[0] = ((Number) existing).longValue();
+			return sps;
+		}
+		id[0] = idAllocator.nextId();
+		BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(object);
+		if(wrapper.isWritableProperty("id")) {
+			wrapper.setPropertyValue("id", id[0]);
+			return makeParameterSource(object);
+		}
+		return new IdParameterSource(sps, id[0]);
+	}
+
+	/**
+	 * 延迟写入前先分配好id并写回对象，调用方不必等到真正插入就能拿到id
+	 */
+	private void assignIdEarly(Object object) {
+		if(idAllocator != null && PropertyAccessorFactory.forBeanPropertyAccess(object).isWritableProperty("id")) {
+			makeParameterSourceWithId(object, new long[1]);
+		}
+	}
+
+	/**
+	 * 从@IdAllocation配置的分配器取一个新id，可用于在插入前就确定主键
+	 */
+	protected long nextId() {
+		if(idAllocator == null) {
+			throw new IllegalStateException(this.getClass().getName() + " is not annotated with @IdAllocation");
+		}
+		return idAllocator.nextId();
+	}
+
+	protected int[] addAll(Collection<?> objects) {
+		return addAll(objects, bulkInsertChunkSize, bulkInsertMultiRowValues);
+	}
+
+	/**
+	 * 按chunkSize分批插入，返回与objects迭代顺序一致的自增ID。
+	 * MySQL下非multiRowValues方式需要在连接串加rewriteBatchedStatements=true才会合并成多行insert。
+	 */
+	protected int[] addAll(Collection<?> objects, int chunkSize, boolean multiRowValues) {
+		if(chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive");
+		}
+		if(logger.isDebugEnabled()) {
+			logger.debug("准备批量插入对象条数：{}\tchunkSize={}\tmultiRowValues={}", objects.size(), chunkSize, multiRowValues);
+		}
+		if(idAllocator != null) {
+			return addAllWithAllocatedIds(objects, chunkSize, multiRowValues);
+		}
+		int[] ids = new int[objects.size()];
+		int inserted = 0;
+		List<SqlParameterSource> chunk = new ArrayList<>(Math.min(chunkSize, objects.size()));
+		for(Object object : objects) {
+			chunk.add(makeParameterSource(object));
+			if(chunk.size() == chunkSize) {
+				inserted = addChunk(chunk, multiRowValues, ids, inserted);
+			}
+		}
+		if(!chunk.isEmpty()) {
+			addChunk(chunk, multiRowValues, ids, inserted);
+		}
+		logger.debug("批量插入成功条数：{}", ids.length);
+		evictEntities(ids);
+		return ids;
+	}
+
+	private int[] addAllWithAllocatedIds(Collection<?> objects, int chunkSize, boolean multiRowValues) {
+		int[] ids = new int[objects.size()];
+		long[] id = new long[1];
+		int index = 0;
+		List<SqlParameterSource> chunk = new ArrayList<>(Math.min(chunkSize, objects.size()));
+		for(Object object : objects) {
+			chunk.add(makeParameterSourceWithId(object, id));
+			ids[index++] = Math.toIntExact(id[0]);
+			if(chunk.size() == chunkSize || index == ids.length) {
+				long begin = System.nanoTime();
+				try {
+					withSnapshotRecovery(() -> {
+						idInsert.executeBatch(chunk, multiRowValues);
+						return null;
+					});
+					recordQuery("addAll", idInsert.getInsertString(), begin, chunk.size(), false);
+				} catch (RuntimeException e) {
+					recordQuery("addAll", insertSql(idInsert), begin, 0, true);
+					throw e;
+				}
+				chunk.clear();
+			}
+		}
+		logger.debug("批量插入成功条数：{}", ids.length);
+		evictEntities(ids);
+		return ids;
+	}
+
+	private int addChunk(List<SqlParameterSource> chunk, boolean multiRowValues, int[] ids, int offset) {
+		long begin = System.nanoTime();
+		int[] chunkIds;
+		try {
+			chunkIds = withSnapshotRecovery(() -> ((BulkJdbcInsert) simpleJdbcInsert).executeBatchAndReturnKeys(chunk, multiRowValues));
+			recordQuery("addAll", simpleJdbcInsert.getInsertString(), begin, chunkIds.length, false);
+		} catch (RuntimeException e) {
+			recordQuery("addAll", insertSql(simpleJdbcInsert), begin, 0, true);
+			throw e;
+		}
+		System.arraycopy(chunkIds, 0, ids, offset, chunkIds.length);
+		chunk.clear();
+		return offset + chunkIds.length;
+	}
+
+	/**
+	 * 按bulkInsertChunkSize分批执行 insert ... on duplicate key update（非MySQL数据库用merge按id匹配），
+	 * 对象必须带有id。只写对象里值不为null的列（为null的列保留库里原值或默认值），返回与objects迭代顺序一致的每行结果
+	 */
+	protected List<UpsertOutcome> upsertAll(Collection<?> objects) {
+		logger.debug("准备批量upsert对象条数：{}", objects.size());
+		List<UpsertOutcome> outcomes = new ArrayList<>(objects.size());
+		for(List<SqlParameterSource> chunk : chunks(objects, bulkInsertChunkSize)) {
+			try {
+				outcomes.addAll(Arrays.asList(withSnapshotRecovery(() -> bulkJdbcWriter.upsert(chunk, (sql, begin, rows, error) -> recordQuery("upsertAll", sql, begin, rows, error)))));
+			} finally {
+				evictAllEntities();
+			}
+		}
+		logger.debug("批量upsert结果：{}", outcomes);
+		return outcomes;
+	}
+
+	/**
+	 * 按id批量更新对象里值不为null的列，为null的列保持不变，返回每行的影响行数，0表示该id不存在
+	 */
+	protected int[] updateAllById(Collection<?> objects) {
+		logger.debug("准备按ID批量更新对象条数：{}", objects.size());
+		int[] counts = new int[objects.size()];
+		int offset = 0;
+		for(List<SqlParameterSource> chunk : chunks(objects, bulkInsertChunkSize)) {
+			try {
+				int[] chunkCounts = withSnapshotRecovery(() -> bulkJdbcWriter.updateById(chunk, (sql, begin, rows, error) -> recordQuery("updateAllById", sql, begin, rows, error)));
+				System.arraycopy(chunkCounts, 0, counts, offset, chunkCounts.length);
+				offset += chunkCounts.length;
+			} finally {
+				evictAllEntities();
+			}
+		}
+		logger.debug("按ID批量更新成功条数：{}", offset);
+		return counts;
+	}
+
+	private List<List<SqlParameterSource>> chunks(Collection<?> objects, int chunkSize) {
+		List<List<SqlParameterSource>> chunks = new ArrayList<>();
+		List<SqlParameterSource> chunk = null;
+		for(Object object : objects) {
+			if(chunk == null || chunk.size() == chunkSize) {
+				chunk = new ArrayList<>(Math.min(chunkSize, objects.size()));
+				chunks.add(chunk);
+			}
+			chunk.add(makeParameterSource(object));
+		}
+		return chunks;
+	}
+
+	/**
+	 * 放入延迟写队列后立即返回，不返回自增ID，需要DAO标注@WriteBehind。
+	 * 同时标注了@IdAllocation时id在放入队列前分配并写回对象。写入失败按@WriteBehind的配置重试，重试用尽后交给failureHandler
+	 */
+	protected void addWriteBehind(Object object) {
+		if(writeBehindBuffer == null) {
+			throw new IllegalStateException(this.getClass().getName() + " is not annotated with @WriteBehind");
+		}
+		assignIdEarly(object);
+		writeBehindBuffer.add(object);
+	}
+
+	public void flushWriteBehind() {
+		if(writeBehindBuffer != null) {
+			writeBehindBuffer.flush();
+		}
+	}
+
+	public Optional<WriteBehindStats> getWriteBehindStats() {
+		return writeBehindBuffer == null ? Optional.empty() : Optional.of(writeBehindBuffer.stats());
+	}
+
+	/**
+	 * 没有标注@Bulkhead时为空，否则依次为DAO自己的上限（如有）、主库和各从库的上限
+	 */
+	public List<BulkheadStats> getBulkheadStats() {
+		List<BulkheadStats> stats = new ArrayList<>(bulkheadLimiters.size());
+		for(ConcurrencyLimiter limiter : bulkheadLimiters) {
+			stats.add(limiter.stats());
+		}
+		return stats;
+	}
+
+	/**
+	 * 当前线程有UnitOfWork时只做记录，在UnitOfWork.commit时按批插入，不返回自增ID
+	 * （标注了@IdAllocation时id在记录时分配并写回对象）；否则立即插入
+	 */
+	protected void addDeferred(Object object) {
+		UnitOfWork unitOfWork = UnitOfWork.current();
+		if(unitOfWork == null) {
+			add(object);
+			return;
+		}
+		assignIdEarly(object);
+		unitOfWork.record(this, "add", null, object);
+	}
+
+	/**
+	 * 当前线程有UnitOfWork时只做记录，在UnitOfWork.commit时按批执行，否则立即执行
+	 */
+	protected void execUpdateDeferred(String sql, Object... args) {
+		UnitOfWork unitOfWork = UnitOfWork.current();
+		if(unitOfWork == null) {
+			execUpdate(sql, args);
+			return;
+		}
+		unitOfWork.record(this, "execUpdate", sql, args);
+	}
+
+	/**
+	 * 当前线程有UnitOfWork时只做记录，在UnitOfWork.commit时按批删除，否则立即删除
+	 */
+	protected void deleteByIdDeferred(Object id) {
+		UnitOfWork unitOfWork = UnitOfWork.current();
+		if(unitOfWork == null) {
+			deleteById(id);
+			return;
+		}
+		unitOfWork.record(this, "deleteById", sqlTemplates.deleteById, new Object[] { id });
+	}
+
+	void flushDeferredInserts(List<Object> objects) {
+		addAll(objects);
+	}
+
+	void flushDeferredUpdates(String method, String sql, List<Object[]> args) {
+		logger.debug("准备批量执行：{}\t条数：{}", sql, args.size());
+		long begin = System.nanoTime();
+		try {
+			jdbcTemplate.batchUpdate(sql, args);
+			recordQuery(method, sql, begin, args.size(), false);
+		} catch (RuntimeException e) {
+			recordQuery(method, sql, begin, 0, true);
+			throw e;
+		} finally {
+			evictAllEntities();
+		}
+	}
+
+	/**
+	 * 开启@EntityCache时命中返回的是缓存里共享的对象，调用方不能修改
+	 */
+	@SuppressWarnings("unchecked")
 	protected <T> Optional<T> selectById(Object id) {
+		String key = id.toString();
+		boolean cacheable = isEntityCacheReadable();
+		long stamp = 0;
+		if(cacheable) {
+			Object cached = entityCache.get(key);
+			if(cached != null) {
+				logger.debug("根据ID从缓存中找到：{}", cached);
+				return Optional.of((T) cached);
+			}
+			stamp = entityCache.stamp();
+		}
 		try {
-			String selectByIdSQL = "select * from " + tableName + " where id = ?";
-			logger.debug("准备根据ID查找：" + selectByIdSQL + "\t" + id.toString());
-			@SuppressWarnings("unchecked")
-			T t = (T) jdbcTemplate.queryForObject(selectByIdSQL, makeRowMapperInstance(), id.toString());
-			logger.debug("根据ID查找到：" + t);
+			String selectByIdSQL = sqlTemplates.selectById;
+			logger.debug("准备根据ID查找：{}\t{}", selectByIdSQL, key);
+			T t = (T) doQueryForObject("selectById", selectByIdSQL, makeRowMapperInstance(), key);
+			logger.debug("根据ID查找到：{}", t);
+			if(cacheable) {
+				entityCache.put(key, t, stamp);
+			}
 			return Optional.of(t);
 		} catch (EmptyResultDataAccessException e) {
-			logger.debug("根据ID(" + id + ")查找不到对象");
+			logger.debug("根据ID({})查找不到对象", id);
 			return Optional.empty();
 		}
 	};
 
+	protected <T> Map<Object, T> selectByIds(Collection<?> ids) {
+		return selectByIds(ids, false, null);
+	}
+
+	protected <T> Map<Object, T> selectByIds(Collection<?> ids, boolean keepOrder) {
+		return selectByIds(ids, keepOrder, null);
+	}
+
+	/**
+	 * 按batchLookupChunkSize拆成多条where id in (...)查询。返回的Map以调用方传入的ID为键，keepOrder为true时按ids的顺序排列。
+	 * 查不到的ID不会出现在Map中，missingIds不为null时加到missingIds里
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T> Map<Object, T> selectByIds(Collection<?> ids, boolean keepOrder, Collection<Object> missingIds) {
+		// 与实体缓存一样用toString做键，去重的同时避免Integer和Long的ID匹配不上
+		Map<String, Object> requested = new LinkedHashMap<>();
+		for(Object id : ids) {
+			requested.putIfAbsent(id.toString(), id);
+		}
+		Map<String, T> found = new HashMap<>();
+		List<Object> toLoad = new ArrayList<>(requested.size());
+		boolean cacheable = isEntityCacheReadable();
+		long stamp = 0;
+		if(cacheable) {
+			for(Map.Entry<String, Object> entry : requested.entrySet()) {
+				Object cached = entityCache.get(entry.getKey());
+				if(cached != null) {
+					found.put(entry.getKey(), (T) cached);
+				} else {
+					toLoad.add(entry.getValue());
+				}
+			}
+			stamp = entityCache.stamp();
+		} else {
+			toLoad.addAll(requested.values());
+		}
+		logger.debug("准备根据ID批量查找，共{}个ID，需查询{}个", requested.size(), toLoad.size());
+
+		List<Object[]> chunks = new ArrayList<>();
+		for(int from = 0; from < toLoad.size(); from += batchLookupChunkSize) {
+			chunks.add(toLoad.subList(from, Math.min(from + batchLookupChunkSize, toLoad.size())).toArray());
+		}
+		List<List<Map.Entry<String, T>>> loaded = new ArrayList<>(chunks.size());
+		if(batchLookupExecutor == null || chunks.size() < 2 || TransactionSynchronizationManager.isActualTransactionActive()) {
+			for(Object[] chunk : chunks) {
+				loaded.add(selectByIdsChunk(chunk));
+			}
+		} else {
+			List<Callable<List<Map.Entry<String, T>>>> tasks = new ArrayList<>(chunks.size());
+			for(Object[] chunk : chunks) {
+				tasks.add(() -> selectByIdsChunk(chunk));
+			}
+			loaded = ParallelExecution.invokeAll(batchLookupExecutor, tasks);
+		}
+		for(List<Map.Entry<String, T>> rows : loaded) {
+			for(Map.Entry<String, T> row : rows) {
+				found.put(row.getKey(), row.getValue());
+				if(cacheable) {
+					entityCache.put(row.getKey(), row.getValue(), stamp);
+				}
+			}
+		}
+
+		Map<Object, T> result = keepOrder ? new LinkedHashMap<>() : new HashMap<>();
+		int missing = 0;
+		for(Map.Entry<String, Object> entry : requested.entrySet()) {
+			T t = found.get(entry.getKey());
+			if(t != null) {
+				result.put(entry.getValue(), t);
+			} else {
+				missing++;
+				if(missingIds != null) {
+					missingIds.add(entry.getValue());
+				}
+			}
+		}
+		logger.debug("根据ID批量查找到{}条，找不到{}个", result.size(), missing);
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> List<Map.Entry<String, T>> selectByIdsChunk(Object[] ids) {
+		RowMapper<T> mapper = (RowMapper<T>) makeRowMapperInstance();
+		return doQuery("selectByIds", sqlTemplates.selectByIds(ids.length),
+				(rs, rowNum) -> new AbstractMap.SimpleImmutableEntry<>(rs.getString("id"), mapper.mapRow(rs, rowNum)), ids);
+	}
+
 	protected int countTotal() {
+		if(approximateCount) {
+			Long estimate = estimateTotal();
+			if(estimate != null && estimate >= approximateCountThreshold) {
+				logger.debug("使用表统计信息的估算记录条数：{}", estimate);
+				return (int) Math.min(estimate, Integer.MAX_VALUE);
+			}
+		}
 		return countTotalFilterBy("");
 	}
 
 	protected int countTotalFilterBy(String filter, Object... args) {
-		String sql = "select count(1) from " + tableName + " " + filter;
-		logger.debug("准备计算记录条数：" + sql + "\t" + Arrays.toString(args));
-		int result = jdbcTemplate.queryForObject(sql, args, Integer.class);
-		logger.debug("计算记录条数为：" + result);
+		String key = null;
+		long stamp = 0;
+		if(isCountCacheReadable()) {
+			key = filter + '\u0000' + Arrays.deepToString(args);
+			Integer cached = countCache.get(key);
+			if(cached != null) {
+				logger.debug("从缓存中找到记录条数：{}\t{}", filter, cached);
+				return cached;
+			}
+			stamp = countCache.stamp();
+		}
+		String sql = sqlTemplates.count(filter);
+		logger.debug("准备计算记录条数：{}\t{}", sql, args);
+		int result = doQueryForObject("countTotalFilterBy", sql, Integer.class, args);
+		logger.debug("计算记录条数为：{}", result);
+		if(key != null) {
+			countCache.put(key, result, stamp);
+		}
 		return result;
 	}
 
+	private Long estimateTotal() {
+		if(tableStatisticsUnavailable) {
+			return null;
+		}
+		try {
+			return readTableRowEstimate();
+		} catch (DataAccessException e) {
+			// 数据库不支持时不再尝试，之后都精确计算
+			logger.debug("读取表统计信息失败，改为精确计算记录条数：{}", e.getMessage());
+			tableStatisticsUnavailable = true;
+			return null;
+		}
+	}
+
+	/**
+	 * 读取表统计信息里的估算行数，默认读MySQL的information_schema.tables.table_rows，
+	 * InnoDB的这个值误差可能有几十个百分点。其他数据库可以覆盖这个方法
+	 */
+	protected Long readTableRowEstimate() {
+		return doQueryForObject("readTableRowEstimate", TABLE_ROWS_SQL, Long.class, tableName);
+	}
+
 	protected int deleteById(Object id) {
-		String sql = "delete from " + tableName + " where id = ?";
-		logger.debug("准备根据ID删除记录：" + sql + "\t" + id);
-		int i = jdbcTemplate.update(sql, id);
-		logger.debug("删除记录条数：" + i);
+		String sql = sqlTemplates.deleteById;
+		logger.debug("准备根据ID删除记录：{}\t{}", sql, id);
+		int i = doUpdate("deleteById", sql, id);
+		logger.debug("删除记录条数：{}", i);
+		evictEntity(id);
 		return i;
 	}
 
 	protected int deleteBy(String filterStr, Object... args) {
-		String sql = "delete from " + tableName + " " + filterStr;
-		logger.debug("准备删除数据：" + sql + "\t" + Arrays.toString(args));
-		int i = jdbcTemplate.update(sql, args);
-		logger.debug("删除记录条数：" + i);
+		String sql = sqlTemplates.delete(filterStr);
+		logger.debug("准备删除数据：{}\t{}", sql, args);
+		int i = doUpdate("deleteBy", sql, args);
+		logger.debug("删除记录条数：{}", i);
+		evictAllEntities();
 		return i;
 	}
 
+	/**
+	 * 分批删除：每批先按id顺序找到第chunkSize条记录的id，再删除条件内id不大于它的记录，
+	 * 每批一个独立的短事务（不加入调用方的事务），按options在批次之间暂停或限速，返回删除总行数。
+	 * 中途失败时已删除的批次不会回滚。用于在线上清理大表，避免一条delete长时间持有行锁、撑大undo log、拖慢主从复制
+	 */
+	protected long deleteByInChunks(String filterStr, ChunkedDeleteOptions options, Object... args) {
+		String boundarySql = sqlTemplates.chunkBoundary(filterStr);
+		String deleteSql = sqlTemplates.delete(SqlTemplates.combineFilter(filterStr, "id <= ?"));
+		Object[] boundaryArgs = Arrays.copyOf(args, args.length + 1);
+		boundaryArgs[args.length] = options.getChunkSize() - 1;
+		logger.debug("准备分批删除数据：{}\t{}\tchunkSize={}", deleteSql, args, options.getChunkSize());
+
+		TransactionTemplate chunkTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		long begin = System.nanoTime();
+		long total = 0;
+		boolean lastChunk;
+		do {
+			long[] chunk;
+			try {
+				chunk = chunkTransaction.execute(status -> {
+					List<Long> boundary = jdbcTemplate.queryForList(boundarySql, Long.class, boundaryArgs);
+					if(boundary.isEmpty()) {
+						// 剩余不足chunkSize条，直接按条件删除
+						return new long[] { doUpdate("deleteByInChunks", sqlTemplates.delete(filterStr), args), 1 };
+					}
+					Object[] deleteArgs = Arrays.copyOf(args, args.length + 1);
+					deleteArgs[args.length] = boundary.get(0);
+					return new long[] { doUpdate("deleteByInChunks", deleteSql, deleteArgs), 0 };
+				});
+			} finally {
+				evictAllEntities();
+			}
+			int chunkRows = (int) chunk[0];
+			lastChunk = chunk[1] == 1 || chunkRows == 0;
+			total += chunkRows;
+			if(options.getListener() != null) {
+				options.getListener().onChunk(chunkRows, total);
+			}
+			if(!lastChunk) {
+				throttle(options, total, begin);
+			}
+		} while(!lastChunk);
+		logger.debug("分批删除记录条数：{}，耗时{}ms", total, (System.nanoTime() - begin) / 1000000);
+		return total;
+	}
+
+	private void throttle(ChunkedDeleteOptions options, long deleted, long begin) {
+		long sleepMillis = options.getPauseMillis();
+		if(options.getMaxRowsPerSecond() > 0) {
+			long expectedMillis = deleted * 1000 / options.getMaxRowsPerSecond();
+			sleepMillis = Math.max(sleepMillis, expectedMillis - (System.nanoTime() - begin) / 1000000);
+		}
+		if(sleepMillis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(sleepMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while throttling chunked delete on " + tableName, e);
+		}
+	}
+
 	protected <T> Optional<T> selectFilterByAsSingle(String filterStr, Object... args) {
-		String sql = "select * from " + tableName + " " + filterStr;
-		logger.debug("准备查找数据：" + sql + "\t" + Arrays.toString(args));
+		String sql = sqlTemplates.select(filterStr);
+		logger.debug("准备查找数据：{}\t{}", sql, args);
 		try {
 			@SuppressWarnings("unchecked")
-			T t = (T) jdbcTemplate.queryForObject(sql, makeRowMapperInstance(), args);
-			logger.debug("查找到记录：" + t);
+			T t = (T) doQueryForObject("selectFilterByAsSingle", sql, makeRowMapperInstance(), args);
+			logger.debug("查找到记录：{}", t);
 			return Optional.of(t);
 		} catch (EmptyResultDataAccessException e) {
 			logger.debug("没有查找到数据");
@@ -168,19 +1053,51 @@ public abstract class AbstractDAO implements ApplicationContextAware {
 	}
 
 	protected <T> List<T> selectFilterByAsList(String filterStr, Object... args) {
-		String sql = "select * from " + tableName + " " + filterStr;
-		logger.debug("准备查找数据：" + sql + "\t" + Arrays.toString(args));
+		String sql = sqlTemplates.select(filterStr);
+		logger.debug("准备查找数据：{}\t{}", sql, args);
 		@SuppressWarnings("unchecked")
-		List<T> result = (List<T>) jdbcTemplate.query(sql, makeRowMapperInstance(), args);
-		logger.debug("查找到符合条件记录条数：" + result.size());
+		List<T> result = cachedQuery("selectFilterByAsList", sql, args, () -> (List<T>) doQuery("selectFilterByAsList", sql, makeRowMapperInstance(), args));
+		logger.debug("查找到符合条件记录条数：{}", result.size());
+		return result;
+	}
+
+	protected <T> Optional<T> selectFilterByAsSingle(Projection<T> projection, String filterStr, Object... args) {
+		String sql = sqlTemplates.project(sqlTemplates.select(filterStr), selectList(projection));
+		logger.debug("准备查找数据：{}\t{}", sql, args);
+		try {
+			T t = doQueryForObject("selectFilterByAsSingle", sql, projection.newRowMapper(), args);
+			logger.debug("查找到记录：{}", t);
+			return Optional.of(t);
+		} catch (EmptyResultDataAccessException e) {
+			logger.debug("没有查找到数据");
+			return Optional.empty();
+		}
+	}
+
+	protected <T> List<T> selectFilterByAsList(Projection<T> projection, String filterStr, Object... args) {
+		String sql = sqlTemplates.project(sqlTemplates.select(filterStr), selectList(projection));
+		logger.debug("准备查找数据：{}\t{}", sql, args);
+		List<T> result = cachedQuery("selectFilterByAsList", sql, args, () -> doQuery("selectFilterByAsList", sql, projection.newRowMapper(), args));
+		logger.debug("查找到符合条件记录条数：{}", result.size());
 		return result;
 	}
 
 	protected List<Map<String, Object>> selectFilterByAsRows(String filterStr, Object... args) {
-		String sql = "select * from " + tableName + " " + filterStr;
-		logger.debug("准备查找数据：" + sql + "\t" + Arrays.toString(args));
-		List<Map<String, Object>> result = jdbcTemplate.queryForList(sql, args);
-		logger.debug("查找到符合条件记录条数：" + result.size());
+		String sql = sqlTemplates.select(filterStr);
+		logger.debug("准备查找数据：{}\t{}", sql, args);
+		List<Map<String, Object>> result = cachedQuery("selectFilterByAsRows", sql, args, () -> doQueryForList("selectFilterByAsRows", sql, args));
+		logger.debug("查找到符合条件记录条数：{}", result.size());
+		return result;
+	}
+
+	/**
+	 * 与selectFilterByAsRows相同，结果按列紧凑存放，大量行常驻内存时使用
+	 */
+	protected CompactRows selectFilterByAsCompactRows(String filterStr, Object... args) {
+		String sql = sqlTemplates.select(filterStr);
+		logger.debug("准备查找数据：{}\t{}", sql, args);
+		CompactRows result = doQueryForCompactRows("selectFilterByAsCompactRows", sql, args);
+		logger.debug("查找到符合条件记录条数：{}", result.size());
 		return result;
 	}
 
@@ -193,79 +1110,680 @@ public abstract class AbstractDAO implements ApplicationContextAware {
 	}
 
 	protected List<Map<String, Object>> selectFilterByStartAndLimitOrderBy(String filterBy, Integer start, Integer limit, String orderBy, Object... args) {
-		String sql = "select * from " + tableName + " " + filterBy + " " + orderBy + " limit ?, ?";
+		String sql = sqlTemplates.paged(filterBy, orderBy);
+
+		Object[] argsWithEndStart = makeArgsWithStartAndLimit(start, limit, args);
+
+		logger.debug("准备查找数据：{}\t{}", sql, argsWithEndStart);
+		List<Map<String, Object>> result = doQueryForList("selectFilterByStartAndLimitOrderBy", sql, argsWithEndStart);
+		logger.debug("查找到符合条件记录条数：{}", result.size());
+		return result;
+	}
+
+	protected CompactRows selectFilterByStartAndLimitOrderByAsCompactRows(String filterBy, Integer start, Integer limit, String orderBy, Object... args) {
+		String sql = sqlTemplates.paged(filterBy, orderBy);
 
 		Object[] argsWithEndStart = makeArgsWithStartAndLimit(start, limit, args);
 
-		logger.debug("准备查找数据：" + sql + "\t" + Arrays.toString(argsWithEndStart));
-		List<Map<String, Object>> result = jdbcTemplate.queryForList(sql, argsWithEndStart);
-		logger.debug("查找到符合条件记录条数：" + result.size());
+		logger.debug("准备查找数据：{}\t{}", sql, argsWithEndStart);
+		CompactRows result = doQueryForCompactRows("selectFilterByStartAndLimitOrderByAsCompactRows", sql, argsWithEndStart);
+		logger.debug("查找到符合条件记录条数：{}", result.size());
 		return result;
 	}
 
 	private Object[] makeArgsWithStartAndLimit(Integer start, Integer limit, Object... args) {
-		List<Object> params = new ArrayList<Object>();
-		for(Object arg : args) {
-			params.add(arg);
-		}
-		params.add(start);
-		params.add(limit);
-		return params.toArray();
+		Object[] params = Arrays.copyOf(args, args.length + 2);
+		params[args.length] = start;
+		params[args.length + 1] = limit;
+		return params;
 	}
 
 	protected <T> List<T> selectFilterByStartAndLimitOrderByAsList(String filterBy, Integer start, Integer limit, String orderBy, Object... args) {
-		String sql = "select * from " + tableName + " " + filterBy + " " + orderBy + " limit ?, ?";
+		String sql = sqlTemplates.paged(filterBy, orderBy);
 
 		Object[] argsWithEndStart = makeArgsWithStartAndLimit(start, limit, args);
-		logger.debug("准备查找数据：" + sql + "\t" + Arrays.toString(argsWithEndStart));
+		logger.debug("准备查找数据：{}\t{}", sql, argsWithEndStart);
 		@SuppressWarnings("unchecked")
-		List<T> result = (List<T>) jdbcTemplate.query(sql, makeRowMapperInstance(), argsWithEndStart);
-		logger.debug("查找到符合条件记录条数：" + result.size());
+		List<T> result = (List<T>) doQuery("selectFilterByStartAndLimitOrderByAsList", sql, makeRowMapperInstance(), argsWithEndStart);
+		logger.debug("查找到符合条件记录条数：{}", result.size());
 		return result;
 	}
 
+	protected <T> List<T> selectFilterByStartAndLimitOrderByAsList(Projection<T> projection, String filterBy, Integer start, Integer limit, String orderBy, Object... args) {
+		String sql = sqlTemplates.project(sqlTemplates.paged(filterBy, orderBy), selectList(projection));
+
+		Object[] argsWithEndStart = makeArgsWithStartAndLimit(start, limit, args);
+		logger.debug("准备查找数据：{}\t{}", sql, argsWithEndStart);
+		List<T> result = doQuery("selectFilterByStartAndLimitOrderByAsList", sql, projection.newRowMapper(), argsWithEndStart);
+		logger.debug("查找到符合条件记录条数：{}", result.size());
+		return result;
+	}
+
+	protected KeysetPage<Map<String, Object>> selectFilterByKeyset(String filterBy, Keyset keyset, String continuationToken, int limit, Object... args) {
+		return selectKeysetPage(filterBy, keyset, continuationToken, limit, new ColumnMapRowMapper(), args);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> KeysetPage<T> selectFilterByKeysetAsList(String filterBy, Keyset keyset, String continuationToken, int limit, Object... args) {
+		return selectKeysetPage(filterBy, keyset, continuationToken, limit, (RowMapper<T>) makeRowMapperInstance(), args);
+	}
+
+	private <T> KeysetPage<T> selectKeysetPage(String filterBy, Keyset keyset, String continuationToken, int limit, RowMapper<T> rowMapper, Object... args) {
+		Keyset sortKeys = keyset.withTieBreaker("id");
+		KeysetToken position = continuationToken == null ? null : KeysetToken.decode(continuationToken, sortKeys.size());
+		boolean backward = position != null && position.isBackward();
+
+		List<Object> params = new ArrayList<>(Arrays.asList(args));
+		if(position != null) {
+			params.addAll(sortKeys.predicateArgs(position.getValues()));
+		}
+		params.add(limit + 1);
+		String sql = sqlTemplates.keysetPage(filterBy, sortKeys, position != null, backward);
+
+		logger.debug("准备按keyset查找数据：{}\t{}", sql, params);
+		List<Object[]> keys = new ArrayList<>();
+		List<T> items = doQuery("selectFilterByKeyset", sql, (rs, rowNum) -> {
+			Object[] key = new Object[sortKeys.size()];
+			for(int i = 0; i < key.length; i++) {
+				key[i] = rs.getObject(sortKeys.getColumnLabel(i));
+			}
+			keys.add(key);
+			return rowMapper.mapRow(rs, rowNum);
+		}, params.toArray());
+		logger.debug("查找到符合条件记录条数：{}", items.size());
+
+		boolean hasMore = items.size() > limit;
+		if(hasMore) {
+			items = items.subList(0, limit);
+			keys.remove(limit);
+		}
+		if(backward) {
+			Collections.reverse(items);
+			Collections.reverse(keys);
+		}
+		if(items.isEmpty()) {
+			return new KeysetPage<>(items, null, null);
+		}
+		boolean hasNext = backward || hasMore;
+		boolean hasPrevious = backward ? hasMore : position != null;
+		String nextToken = hasNext ? new KeysetToken(false, keys.get(keys.size() - 1)).encode() : null;
+		String previousToken = hasPrevious ? new KeysetToken(true, keys.get(0)).encode() : null;
+		return new KeysetPage<>(items, nextToken, previousToken);
+	}
+
 	protected List<Map<String, Object>> execSelectSql(String sql, Object... args) {
-		logger.debug("准备查找数据：" + sql + "\t" + Arrays.toString(args));
-		List<Map<String, Object>> result = jdbcTemplate.queryForList(sql, args);
-		logger.debug("查找到符合条件记录条数：" + result.size());
+		logger.debug("准备查找数据：{}\t{}", sql, args);
+		List<Map<String, Object>> result = cachedQuery("execSelectSql", sql, args, () -> doQueryForList("execSelectSql", sql, args));
+		logger.debug("查找到符合条件记录条数：{}", result.size());
+		return result;
+	}
+
+	protected CompactRows execSelectSqlAsCompactRows(String sql, Object... args) {
+		logger.debug("准备查找数据：{}\t{}", sql, args);
+		CompactRows result = doQueryForCompactRows("execSelectSqlAsCompactRows", sql, args);
+		logger.debug("查找到符合条件记录条数：{}", result.size());
 		return result;
 	}
 
 	protected <T> T execSelectSqlAsObject(String sql, Object... args) {
-		logger.debug("准备查找数据：" + sql + "\t" + Arrays.toString(args));
+		logger.debug("准备查找数据：{}\t{}", sql, args);
 		@SuppressWarnings("unchecked")
-		T t = (T) jdbcTemplate.queryForObject(sql, makeRowMapperInstance(), args);
-		logger.debug("查找到符合条件记录：" + t);
+		T t = (T) doQueryForObject("execSelectSqlAsObject", sql, makeRowMapperInstance(), args);
+		logger.debug("查找到符合条件记录：{}", t);
 		return t;
 	}
 
 	@SuppressWarnings("unchecked")
 	protected <T> List<T> execSqlAsObjectList(String sql, Object... args) {
-		logger.debug("准备查找数据：" + sql + "\t" + Arrays.toString(args));
-		List<T> result = (List<T>) jdbcTemplate.query(sql, makeRowMapperInstance(), args);
-		logger.debug("查找到符合条件记录条数：" + result.size());
+		logger.debug("准备查找数据：{}\t{}", sql, args);
+		List<T> result = (List<T>) doQuery("execSqlAsObjectList", sql, makeRowMapperInstance(), args);
+		logger.debug("查找到符合条件记录条数：{}", result.size());
 		return result;
 	}
 
 	protected int execUpdate(String sql, Object... args) {
-		logger.debug("执行修改操作：" + sql + "\t" + Arrays.toString(args));
-		int result = jdbcTemplate.update(sql, args);
-		logger.debug("执行修改操作条数：" + result);
+		logger.debug("执行修改操作：{}\t{}", sql, args);
+		int result = doUpdate("execUpdate", sql, args);
+		logger.debug("执行修改操作条数：{}", result);
+		evictAllEntities();
+		return result;
+	}
+
+	/**
+	 * 在数据源的异步执行器上执行，不参与调用方的事务
+	 */
+	protected <R> CompletableFuture<R> async(Supplier<R> operation) {
+		return CompletableFuture.supplyAsync(operation, asyncExecutor);
+	}
+
+	protected <T> CompletableFuture<List<T>> selectAllAsync() {
+		return async(this::selectAll);
+	}
+
+	protected CompletableFuture<Integer> addAsync(Object object) {
+		return async(() -> add(object));
+	}
+
+	protected CompletableFuture<int[]> addAllAsync(Collection<?> objects) {
+		return async(() -> addAll(objects));
+	}
+
+	protected <T> CompletableFuture<Optional<T>> selectByIdAsync(Object id) {
+		return async(() -> selectById(id));
+	}
+
+	protected <T> CompletableFuture<Map<Object, T>> selectByIdsAsync(Collection<?> ids, boolean keepOrder) {
+		return async(() -> selectByIds(ids, keepOrder));
+	}
+
+	protected CompletableFuture<Integer> countTotalAsync() {
+		return async(this::countTotal);
+	}
+
+	protected CompletableFuture<Integer> countTotalFilterByAsync(String filter, Object... args) {
+		return async(() -> countTotalFilterBy(filter, args));
+	}
+
+	protected CompletableFuture<Integer> deleteByIdAsync(Object id) {
+		return async(() -> deleteById(id));
+	}
+
+	protected <T> CompletableFuture<Optional<T>> selectFilterByAsSingleAsync(String filterStr, Object... args) {
+		return async(() -> selectFilterByAsSingle(filterStr, args));
+	}
+
+	protected <T> CompletableFuture<List<T>> selectFilterByAsListAsync(String filterStr, Object... args) {
+		return async(() -> selectFilterByAsList(filterStr, args));
+	}
+
+	protected <T> CompletableFuture<List<T>> selectFilterByStartAndLimitOrderByAsListAsync(String filterBy, Integer start, Integer limit, String orderBy, Object... args) {
+		return async(() -> selectFilterByStartAndLimitOrderByAsList(filterBy, start, limit, orderBy, args));
+	}
+
+	protected <T> CompletableFuture<List<T>> execSqlAsObjectListAsync(String sql, Object... args) {
+		return async(() -> execSqlAsObjectList(sql, args));
+	}
+
+	protected CompletableFuture<Integer> execUpdateAsync(String sql, Object... args) {
+		return async(() -> execUpdate(sql, args));
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> Stream<T> selectAllAsStream() {
+		return queryAsStream(sqlTemplates.selectAll, (RowMapper<T>) makeRowMapperInstance(), fetchSize);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> Stream<T> selectFilterByAsStream(String filterStr, Object... args) {
+		return queryAsStream(sqlTemplates.select(filterStr), (RowMapper<T>) makeRowMapperInstance(), fetchSize, args);
+	}
+
+	protected <T> Stream<T> selectFilterByAsStream(Projection<T> projection, String filterStr, Object... args) {
+		return queryAsStream(sqlTemplates.project(sqlTemplates.select(filterStr), selectList(projection)), projection.newRowMapper(), fetchSize, args);
+	}
+
+	protected Stream<Map<String, Object>> selectFilterByAsRowStream(String filterStr, Object... args) {
+		return queryAsStream(sqlTemplates.select(filterStr), new ColumnMapRowMapper(), fetchSize, args);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> Stream<T> execSqlAsObjectStream(String sql, Object... args) {
+		return queryAsStream(sql, (RowMapper<T>) makeRowMapperInstance(), fetchSize, args);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> int selectAllForEach(Consumer<? super T> consumer) {
+		return queryForEach(sqlTemplates.selectAll, (RowMapper<T>) makeRowMapperInstance(), fetchSize, consumer);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> int selectFilterByForEach(String filterStr, Consumer<? super T> consumer, Object... args) {
+		return queryForEach(sqlTemplates.select(filterStr), (RowMapper<T>) makeRowMapperInstance(), fetchSize, consumer, args);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> int execSqlForEach(String sql, Consumer<? super T> consumer, Object... args) {
+		return queryForEach(sql, (RowMapper<T>) makeRowMapperInstance(), fetchSize, consumer, args);
+	}
+
+	/**
+	 * 按id区间切分后多个连接并发流式读取，写成CSV或JSON Lines文件。
+	 * 各区间在各自的连接上读取，不在调用方的事务里，看不到未提交的数据
+	 */
+	protected ExportResult exportTable(Path target, ExportOptions options) {
+		long begin = System.nanoTime();
+		String[] columnLabels = read(template -> template.query(sqlTemplates.select("where 1 = 0"), (ResultSet rs) -> {
+			ResultSetMetaData metaData = rs.getMetaData();
+			String[] labels = new String[metaData.getColumnCount()];
+			for(int i = 0; i < labels.length; i++) {
+				labels[i] = JdbcUtils.lookupColumnName(metaData, i + 1);
+			}
+			return labels;
+		}));
+		long[] bounds = selectIdBounds();
+
+		String rangeSql = sqlTemplates.select("where id >= ? and id < ? order by id");
+		TableExporter exporter = new TableExporter(tableName, columnLabels, (from, to, handler) -> readRange(rangeSql, from, to, handler));
+		ExportResult result = bounds == null ? exporter.export(0, 0, target, options.withRanges(1)) : exporter.export(bounds[0], bounds[1], target, options);
+		logger.debug("导出{}完成：{}，耗时{}ms", tableName, result, (System.nanoTime() - begin) / 1000000);
+		return result;
+	}
+
+	/**
+	 * 按id区间切分后在多个连接上并行扫描全表，每个区间按id升序分批读取，每批交给handler处理。
+	 * 区间出错时从最后处理成功的批次之后重试，重试用尽则取消其余区间并抛出异常。
+	 * 各区间不在调用方的事务里，看不到未提交的数据
+	 */
+	protected <T> ScanResult scanInParallel(ScanOptions options, BatchHandler<T> handler) {
+		long[] bounds = selectIdBounds();
+		if(bounds == null) {
+			return new ScanResult(0, 0, 0, 0);
+		}
+		String batchSql = sqlTemplates.paged("where id >= ? and id < ?", "order by id");
+		TableScanner<T> scanner = new TableScanner<>(tableName, (from, to, limit) -> readScanBatch(batchSql, from, to, limit));
+		ScanResult result = scanner.scan(bounds[0], bounds[1], options, handler);
+		logger.debug("扫描{}完成：{}", tableName, result);
 		return result;
 	}
 
+	private <T> TableScanner.Batch<T> readScanBatch(String sql, long from, long to, int limit) {
+		@SuppressWarnings("unchecked")
+		RowMapper<T> batchRowMapper = (RowMapper<T>) makeRowMapperInstance();
+		long begin = System.nanoTime();
+		try {
+			TableScanner.Batch<T> batch = read(template -> template.query(sql, (ResultSet rs) -> {
+				List<T> rows = new ArrayList<>(limit);
+				long lastId = from;
+				while(rs.next()) {
+					rows.add(batchRowMapper.mapRow(rs, rows.size()));
+					lastId = rs.getLong("id");
+				}
+				return new TableScanner.Batch<>(rows, lastId);
+			}, from, to, 0, limit));
+			recordQuery("scanInParallel", sql, begin, batch.rows.size(), false);
+			return batch;
+		} catch (RuntimeException e) {
+			recordQuery("scanInParallel", sql, begin, 0, true);
+			throw e;
+		}
+	}
+
+	/**
+	 * 返回{min(id), max(id)}，表为空时返回null
+	 */
+	private long[] selectIdBounds() {
+		Map<String, Object> bounds = read(template -> template.queryForMap(sqlTemplates.idBounds));
+		if(bounds.get("min_id") == null) {
+			logger.debug("表{}没有数据", tableName);
+			return null;
+		}
+		return new long[] { ((Number) bounds.get("min_id")).longValue(), ((Number) bounds.get("max_id")).longValue() };
+	}
+
+	private void readRange(String sql, long from, long to, RowCallbackHandler handler) {
+		long begin = System.nanoTime();
+		int[] rows = new int[1];
+		Replica replica = replicaSet == null ? null : replicaSet.acquire();
+		try {
+			(replica == null ? jdbcTemplate : replica.getJdbcTemplate()).query(con -> {
+				PreparedStatement ps = prepareStreamingStatement(con, sql, fetchSize);
+				ps.setLong(1, from);
+				ps.setLong(2, to);
+				return ps;
+			}, (ResultSet rs) -> {
+				handler.processRow(rs);
+				rows[0]++;
+			});
+			recordQuery("exportTable", sql, begin, rows[0], false);
+		} catch (RuntimeException e) {
+			recordQuery("exportTable", sql, begin, rows[0], true);
+			throw e;
+		} finally {
+			if(replica != null) {
+				replicaSet.release(replica);
+			}
+		}
+	}
+
+	/**
+	 * 返回的Stream持有数据库连接，读完后自动释放，提前结束时必须调用close（建议使用try-with-resources）。
+	 * MySQL在流式读取未结束前同一连接不能执行其他语句，事务内使用时要先关闭Stream再做其他查询。
+	 */
+	protected <T> Stream<T> queryAsStream(String sql, RowMapper<T> rowMapper, int fetchSize, Object... args) {
+		if(logger.isDebugEnabled()) {
+			logger.debug("准备流式查找数据：{}\t{}\tfetchSize={}", sql, Arrays.toString(args), fetchSize);
+		}
+		long begin = System.nanoTime();
+		Replica replica = replicaSet == null ? null : replicaSet.acquire();
+		DataSource streamDataSource = replica == null ? connectionDataSource : replica.getDataSource();
+		Connection con;
+		try {
+			try {
+				con = DataSourceUtils.getConnection(streamDataSource);
+			} catch (DataAccessResourceFailureException e) {
+				if(replica == null) {
+					throw e;
+				}
+				replicaSet.markDown(replica, e);
+				replicaSet.release(replica);
+				replica = null;
+				streamDataSource = connectionDataSource;
+				con = DataSourceUtils.getConnection(streamDataSource);
+			}
+		} catch (RuntimeException e) {
+			// 包括限流拒绝（AdmissionRejectedException），没拿到连接时归还从库名额
+			if(replica != null) {
+				replicaSet.release(replica);
+			}
+			recordQuery("queryAsStream", sql, begin, 0, true);
+			throw e;
+		}
+		Replica streamReplica = replica;
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			ps = prepareStreamingStatement(con, sql, fetchSize);
+			new ArgumentPreparedStatementSetter(args).setValues(ps);
+			rs = ps.executeQuery();
+		} catch (SQLException e) {
+			JdbcUtils.closeResultSet(rs);
+			JdbcUtils.closeStatement(ps);
+			DataSourceUtils.releaseConnection(con, streamDataSource);
+			if(streamReplica != null) {
+				replicaSet.release(streamReplica);
+			}
+			recordQuery("queryAsStream", sql, begin, 0, true);
+			throw jdbcTemplate.getExceptionTranslator().translate("queryAsStream", sql, e);
+		}
+		ResultSetSpliterator<T> spliterator = new ResultSetSpliterator<>(sql, con, streamDataSource, ps, rs, rowMapper, jdbcTemplate.getExceptionTranslator(),
+				(rows, error) -> {
+					if(streamReplica != null) {
+						replicaSet.release(streamReplica);
+					}
+					recordQuery("queryAsStream", sql, begin, rows, error);
+				});
+		return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+	}
+
+	protected <T> int queryForEach(String sql, RowMapper<T> rowMapper, int fetchSize, Consumer<? super T> consumer, Object... args) {
+		if(logger.isDebugEnabled()) {
+			logger.debug("准备逐行查找数据：{}\t{}\tfetchSize={}", sql, Arrays.toString(args), fetchSize);
+		}
+		int[] rowNum = new int[1];
+		long begin = System.nanoTime();
+		Replica replica = replicaSet == null ? null : replicaSet.acquire();
+		try {
+			queryForEach(replica == null ? jdbcTemplate : replica.getJdbcTemplate(), sql, rowMapper, fetchSize, consumer, rowNum, args);
+			recordQuery("queryForEach", sql, begin, rowNum[0], false);
+		} catch (DataAccessResourceFailureException | TransientDataAccessResourceException | RecoverableDataAccessException e) {
+			// 已经交给consumer的行不能重放，只有还没读到数据时才改到主库重试
+			if(replica == null || rowNum[0] > 0) {
+				recordQuery("queryForEach", sql, begin, rowNum[0], true);
+				throw e;
+			}
+			replicaSet.markDown(replica, e);
+			try {
+				queryForEach(jdbcTemplate, sql, rowMapper, fetchSize, consumer, rowNum, args);
+				recordQuery("queryForEach", sql, begin, rowNum[0], false);
+			} catch (RuntimeException retryException) {
+				recordQuery("queryForEach", sql, begin, rowNum[0], true);
+				throw retryException;
+			}
+		} catch (RuntimeException e) {
+			recordQuery("queryForEach", sql, begin, rowNum[0], true);
+			throw e;
+		} finally {
+			if(replica != null) {
+				replicaSet.release(replica);
+			}
+		}
+		logger.debug("逐行处理记录条数：{}", rowNum[0]);
+		return rowNum[0];
+	}
+
+	private <T> void queryForEach(JdbcTemplate template, String sql, RowMapper<T> rowMapper, int fetchSize, Consumer<? super T> consumer, int[] rowNum, Object... args) {
+		template.query(con -> {
+			PreparedStatement ps = prepareStreamingStatement(con, sql, fetchSize);
+			new ArgumentPreparedStatementSetter(args).setValues(ps);
+			return ps;
+		}, (ResultSet rs) -> consumer.accept(rowMapper.mapRow(rs, rowNum[0]++)));
+	}
+
+	private PreparedStatement prepareStreamingStatement(Connection con, String sql, int fetchSize) throws SQLException {
+		PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		try {
+			ps.setFetchSize(fetchSize);
+		} catch (SQLException e) {
+			// Integer.MIN_VALUE是MySQL驱动特有的流式读取标记，其他驱动会拒绝，退回驱动默认值
+			logger.debug("驱动不支持fetchSize={}，使用默认值", fetchSize);
+		}
+		return ps;
+	}
+
+	private <T> List<T> doQuery(String method, String sql, RowMapper<T> rowMapper, Object... args) {
+		long begin = System.nanoTime();
+		try {
+			List<T> result = read(template -> template.query(sql, rowMapper, args));
+			recordQuery(method, sql, begin, result.size(), false);
+			return result;
+		} catch (RuntimeException e) {
+			recordQuery(method, sql, begin, 0, true);
+			throw e;
+		}
+	}
+
+	private List<Map<String, Object>> doQueryForList(String method, String sql, Object... args) {
+		long begin = System.nanoTime();
+		try {
+			List<Map<String, Object>> result = read(template -> template.queryForList(sql, args));
+			recordQuery(method, sql, begin, result.size(), false);
+			return result;
+		} catch (RuntimeException e) {
+			recordQuery(method, sql, begin, 0, true);
+			throw e;
+		}
+	}
+
+	private CompactRows doQueryForCompactRows(String method, String sql, Object... args) {
+		long begin = System.nanoTime();
+		try {
+			CompactRows result = read(template -> template.query(sql, args, new CompactRowsExtractor()));
+			recordQuery(method, sql, begin, result.size(), false);
+			return result;
+		} catch (RuntimeException e) {
+			recordQuery(method, sql, begin, 0, true);
+			throw e;
+		}
+	}
+
+	private <T> T doQueryForObject(String method, String sql, RowMapper<T> rowMapper, Object... args) {
+		long begin = System.nanoTime();
+		try {
+			T result = read(template -> template.queryForObject(sql, rowMapper, args));
+			recordQuery(method, sql, begin, 1, false);
+			return result;
+		} catch (EmptyResultDataAccessException e) {
+			recordQuery(method, sql, begin, 0, false);
+			throw e;
+		} catch (RuntimeException e) {
+			recordQuery(method, sql, begin, 0, true);
+			throw e;
+		}
+	}
+
+	private <T> T doQueryForObject(String method, String sql, Class<T> requiredType, Object... args) {
+		long begin = System.nanoTime();
+		try {
+			T result = read(template -> template.queryForObject(sql, args, requiredType));
+			recordQuery(method, sql, begin, 1, false);
+			return result;
+		} catch (RuntimeException e) {
+			recordQuery(method, sql, begin, 0, true);
+			throw e;
+		}
+	}
+
+	private int doUpdate(String method, String sql, Object... args) {
+		long begin = System.nanoTime();
+		try {
+			int result = jdbcTemplate.update(sql, args);
+			recordQuery(method, sql, begin, result, false);
+			return result;
+		} catch (RuntimeException e) {
+			recordQuery(method, sql, begin, 0, true);
+			throw e;
+		}
+	}
+
+	/**
+	 * 事务外的读操作分发到从库，从库连接类错误时摘除该从库并改到主库重试一次
+	 */
+	private <R> R read(ReadOperation<R> operation) {
+		Replica replica = replicaSet == null ? null : replicaSet.acquire();
+		if(replica == null) {
+			return operation.run(jdbcTemplate);
+		}
+		try {
+			return operation.run(replica.getJdbcTemplate());
+		} catch (DataAccessResourceFailureException | TransientDataAccessResourceException | RecoverableDataAccessException e) {
+			replicaSet.markDown(replica, e);
+			return operation.run(jdbcTemplate);
+		} finally {
+			replicaSet.release(replica);
+		}
+	}
+
+	@FunctionalInterface
+	private interface ReadOperation<R> {
+		R run(JdbcTemplate template);
+	}
+
+	/**
+	 * 插入语句编译失败时还没有SQL，用表名前缀代替
+	 */
+	private String insertSql(SimpleJdbcInsert insert) {
+		String sql = insert.getInsertString();
+		return sql != null ? sql : "insert into " + tableName;
+	}
+
+	private void recordQuery(String method, String sql, long begin, int rows, boolean error) {
+		if(queryMetrics != null) {
+			queryMetrics.record(method, sql, begin, rows, error);
+		}
+	}
+
+	public QueryMetrics getQueryMetrics() {
+		return queryMetrics;
+	}
+
 	public String getTableName() {
 		return tableName;
 	}
+
+	public Optional<CacheStats> getEntityCacheStats() {
+		return entityCache == null ? Optional.empty() : Optional.of(entityCache.stats());
+	}
+
+	private boolean isEntityCacheReadable() {
+		// 事务内可能读到未提交的数据，不读也不写缓存
+		return entityCache != null && !TransactionSynchronizationManager.isActualTransactionActive();
+	}
+
+	/**
+	 * 查询前先取表版本号，查询期间有写入时版本号已变，写进去的结果下次读取即失效。
+	 * 命中时返回缓存列表的副本，调用方修改列表不影响缓存，但列表里的对象是共享的，不能修改
+	 */
+	@SuppressWarnings("unchecked")
+	private <R> List<R> cachedQuery(String method, String sql, Object[] args, Supplier<List<R>> query) {
+		if(resultCache == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+			return query.get();
+		}
+		String key = QueryResultCache.key(method, sql, args);
+		long version = TableVersions.current(resultCacheTables);
+		List<R> cached = (List<R>) resultCache.get(key, version);
+		if(cached != null) {
+			logger.debug("从结果缓存中找到：{}\t{}", sql, args);
+			return new ArrayList<>(cached);
+		}
+		List<R> result = query.get();
+		resultCache.put(key, new ArrayList<>(result), version);
+		return result;
+	}
+
+	public Optional<CacheStats> getResultCacheStats() {
+		return resultCache == null ? Optional.empty() : Optional.of(resultCache.stats());
+	}
+
+	private boolean isCountCacheReadable() {
+		return countCache != null && !TransactionSynchronizationManager.isActualTransactionActive();
+	}
+
+	/**
+	 * 写表后更新表版本号并清空计数缓存，事务结束时再做一次，避免事务期间其他线程缓存了提交前的数据
+	 */
+	private void onTableWrite() {
+		Runnable invalidation = () -> {
+			TableVersions.bump(tableName);
+			if(countCache != null) {
+				countCache.invalidateAll();
+			}
+		};
+		invalidation.run();
+		afterTransactionCompletion(invalidation);
+	}
+
+	protected void evictEntity(Object id) {
+		onTableWrite();
+		if(entityCache != null) {
+			String key = id.toString();
+			entityCache.invalidate(key);
+			afterTransactionCompletion(() -> entityCache.invalidate(key));
+		}
+	}
+
+	protected void evictEntities(int[] ids) {
+		onTableWrite();
+		if(entityCache != null) {
+			Runnable eviction = () -> {
+				for(int id : ids) {
+					entityCache.invalidate(String.valueOf(id));
+				}
+			};
+			eviction.run();
+			afterTransactionCompletion(eviction);
+		}
+	}
+
+	protected void evictAllEntities() {
+		onTableWrite();
+		if(entityCache != null) {
+			entityCache.invalidateAll();
+			afterTransactionCompletion(entityCache::invalidateAll);
+		}
+	}
+
+	private void afterTransactionCompletion(Runnable runnable) {
+		if(TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					runnable.run();
+				}
+			});
+		}
+	}
 	
 	protected boolean hasOnlyOneRecord(String where, Object... args) {
-		return 1  == this.countTotalFilterBy(where, args);
+		// 只需要知道有没有第二条，不用数完所有符合条件的记录
+		String sql = sqlTemplates.firstTwo(where);
+		logger.debug("{}\t{}", sql, args);
+		return doQueryForList("hasOnlyOneRecord", sql, args).size() == 1;
 	}
 	
 	protected boolean hasRecord(String filter, Object... args) {
-		String sql = "select 1 from " + tableName + " " + filter + " limit 0, 1";
-		logger.debug(sql + "\t" + Arrays.toString(args));
-		return jdbcTemplate.queryForList(sql, args).size() > 0;
+		String sql = sqlTemplates.exists(filter);
+		logger.debug("{}\t{}", sql, args);
+		return doQueryForList("hasRecord", sql, args).size() > 0;
 	}
 
 }
@@ -0,0 +1,367 @@
+package com.jtool.db.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.jtool.db.annotation.Sharding;
+import com.jtool.db.annotation.TableName;
+import com.jtool.db.shard.OrderByComparator;
+import com.jtool.db.shard.Shard;
+import com.jtool.db.shard.ShardingStrategy;
+
+/**
+ * 分片DAO：按@Sharding声明的分片键把单条记录的读写路由到一个分片，
+ * 不带分片键的查询并发发到所有分片后在内存里合并。
+ * 事务内的扇出查询在调用线程上依次执行，才能用到事务绑定的连接。
+ */
+public abstract class AbstractShardedDAO implements ApplicationContextAware {
+
+	protected final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	protected String tableName;
+
+	protected String shardKey;
+
+	protected List<Shard> shards;
+
+	private List<SqlTemplates> sqlTemplates;
+
+	private List<SimpleJdbcInsert> simpleJdbcInserts;
+
+	private ShardingStrategy shardingStrategy;
+
+	private RowMapperFactory rowMapperFactory;
+
+	private ExecutorService executor;
+
+	private ApplicationContext context;
+
+	@Override
+	public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+		context = applicationContext;
+	}
+
+	@PostConstruct
+	protected void init() {
+		tableName = this.getClass().getAnnotation(TableName.class).value();
+		rowMapperFactory = RowMapperFactory.forDAO(this.getClass());
+		initShards();
+	}
+
+	@PreDestroy
+	protected void destroy() {
+		executor.shutdown();
+	}
+
+	private void initShards() {
+		Sharding config = this.getClass().getAnnotation(Sharding.class);
+		if(config.dataSources().length == 0 || config.tablesPerDataSource() <= 0) {
+			throw new IllegalArgumentException("invalid @Sharding on " + this.getClass().getName());
+		}
+		shardKey = config.shardKey();
+		try {
+			shardingStrategy = config.strategy().newInstance();
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new IllegalArgumentException("cannot create sharding strategy " + config.strategy().getName(), e);
+		}
+
+		List<Shard> shardList = new ArrayList<>();
+		sqlTemplates = new ArrayList<>();
+		simpleJdbcInserts = new ArrayList<>();
+		for(String dataSourceName : config.dataSources()) {
+			DataSource shardDataSource = context.getBean(dataSourceName, DataSource.class);
+			for(int i = 0; i < config.tablesPerDataSource(); i++) {
+				int index = shardList.size();
+				String shardTableName = config.tablesPerDataSource() > 1 ? tableName + "_" + index : tableName;
+				Shard shard = new Shard(index, dataSourceName, shardDataSource, shardTableName);
+				shardList.add(shard);
+				sqlTemplates.add(new SqlTemplates(shardTableName));
+				SimpleJdbcInsert insert = new SimpleJdbcInsert(shardDataSource).withTableName(shardTableName);
+				// 以id分片时id必须在插入前分配好，否则使用各分片自己的自增ID
+				simpleJdbcInserts.add(isShardedById() ? insert : insert.usingGeneratedKeyColumns("id"));
+			}
+		}
+		shards = Collections.unmodifiableList(shardList);
+
+		int parallelism = config.parallelism() > 0 ? config.parallelism() : shards.size();
+		executor = ParallelExecution.newDaemonPool(parallelism, "shard-" + tableName);
+		logger.debug("初始化分片：{}", shards);
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	public List<Shard> getShards() {
+		return shards;
+	}
+
+	protected Shard shardFor(Object shardKeyValue) {
+		return shards.get(shardingStrategy.shardFor(shardKeyValue, shards.size()));
+	}
+
+	protected RowMapper<?> makeRowMapperInstance() {
+		return rowMapperFactory.newRowMapper();
+	}
+
+	protected SqlParameterSource makeParameterSource(Object object) {
+		return rowMapperFactory.newParameterSource(object);
+	}
+
+	protected int add(Object object) {
+		SqlParameterSource sps = makeParameterSource(object);
+		Object shardKeyValue = readShardKey(sps, object);
+		Shard shard = shardFor(shardKeyValue);
+		logger.debug("准备插入对象到{}：{}", shard, object);
+		SimpleJdbcInsert insert = simpleJdbcInserts.get(shard.getIndex());
+		int id;
+		if(isShardedById()) {
+			insert.execute(sps);
+			id = ((Number) shardKeyValue).intValue();
+		} else {
+			id = insert.executeAndReturnKey(sps).intValue();
+		}
+		logger.debug("插入成功:{}", object);
+		return id;
+	}
+
+	private Object readShardKey(SqlParameterSource sps, Object object) {
+		Object value = null;
+		if(sps.hasValue(shardKey)) {
+			value = sps.getValue(shardKey);
+		} else {
+			String propertyName = JdbcUtils.convertUnderscoreNameToPropertyName(shardKey);
+			if(sps.hasValue(propertyName)) {
+				value = sps.getValue(propertyName);
+			}
+		}
+		if(value == null || (isShardedById() && value instanceof Number && ((Number) value).longValue() == 0)) {
+			throw new IllegalArgumentException("shard key " + shardKey + " is not set on " + object);
+		}
+		return value;
+	}
+
+	/**
+	 * 只能在以id为分片键时使用，否则要用selectById(shardKeyValue, id)
+	 */
+	protected <T> Optional<T> selectById(Object id) {
+		requireShardedById();
+		return selectById(id, id);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> Optional<T> selectById(Object shardKeyValue, Object id) {
+		Shard shard = shardFor(shardKeyValue);
+		String sql = templates(shard).selectById;
+		logger.debug("准备根据ID查找：{}\t{}\t{}", shard, sql, id);
+		try {
+			T t = (T) shard.getJdbcTemplate().queryForObject(sql, makeRowMapperInstance(), id);
+			logger.debug("根据ID查找到：{}", t);
+			return Optional.of(t);
+		} catch (EmptyResultDataAccessException e) {
+			logger.debug("根据ID({})查找不到对象", id);
+			return Optional.empty();
+		}
+	}
+
+	protected int deleteById(Object id) {
+		requireShardedById();
+		return deleteById(id, id);
+	}
+
+	protected int deleteById(Object shardKeyValue, Object id) {
+		Shard shard = shardFor(shardKeyValue);
+		String sql = templates(shard).deleteById;
+		logger.debug("准备根据ID删除记录：{}\t{}\t{}", shard, sql, id);
+		int i = shard.getJdbcTemplate().update(sql, id);
+		logger.debug("删除记录条数：{}", i);
+		return i;
+	}
+
+	private SqlTemplates templates(Shard shard) {
+		return sqlTemplates.get(shard.getIndex());
+	}
+
+	private boolean isShardedById() {
+		return "id".equalsIgnoreCase(shardKey);
+	}
+
+	private void requireShardedById() {
+		if(!isShardedById()) {
+			throw new IllegalStateException(this.getClass().getName() + " is sharded by " + shardKey + ", the shard key value is required");
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> List<T> selectAll() {
+		logger.debug("准备从{}个分片查找全部数据", shards.size());
+		List<T> result = flatten(fanOut(shard -> (List<T>) shard.getJdbcTemplate().query(templates(shard).selectAll, makeRowMapperInstance())));
+		logger.debug("查找全部数据的条数：{}", result.size());
+		return result;
+	}
+
+	protected int countTotal() {
+		return countTotalFilterBy("");
+	}
+
+	protected int countTotalFilterBy(String filter, Object... args) {
+		logger.debug("准备从{}个分片计算记录条数：{}\t{}", shards.size(), filter, args);
+		int result = 0;
+		for(Integer count : fanOut(shard -> shard.getJdbcTemplate().queryForObject(templates(shard).count(filter), args, Integer.class))) {
+			result += count;
+		}
+		logger.debug("计算记录条数为：{}", result);
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> List<T> selectFilterByAsList(String filterStr, Object... args) {
+		logger.debug("准备从{}个分片查找数据：{}\t{}", shards.size(), filterStr, args);
+		List<T> result = flatten(fanOut(shard -> (List<T>) shard.getJdbcTemplate().query(templates(shard).select(filterStr), makeRowMapperInstance(), args)));
+		logger.debug("查找到符合条件记录条数：{}", result.size());
+		return result;
+	}
+
+	/**
+	 * 每个分片取前start+limit条，再按orderBy归并后跳过start条，翻页越深代价越大。
+	 * 字符串排序列的归并顺序见mergeComparator
+	 */
+	protected List<Map<String, Object>> selectFilterByStartAndLimitOrderBy(String filterBy, Integer start, Integer limit, String orderBy, Object... args) {
+		return selectMergedPage(filterBy, start, limit, orderBy, ColumnMapRowMapper::new, args);
+	}
+
+	@SuppressWarnings("unchecked")
+	protected <T> List<T> selectFilterByStartAndLimitOrderByAsList(String filterBy, Integer start, Integer limit, String orderBy, Object... args) {
+		return selectMergedPage(filterBy, start, limit, orderBy, () -> (RowMapper<T>) makeRowMapperInstance(), args);
+	}
+
+	/**
+	 * 归并各分片结果时排序列的比较器，默认返回null即Java自然顺序（字符串区分大小写）。
+	 * 按不区分大小写等非二进制排序规则的字符串列排序时要覆盖此方法，返回与库里排序规则一致的比较器，例如Collator
+	 */
+	protected Comparator<?> mergeComparator(String columnLabel) {
+		return null;
+	}
+
+	private <T> List<T> selectMergedPage(String filterBy, int start, int limit, String orderBy, Supplier<RowMapper<T>> rowMappers, Object... args) {
+		OrderByComparator order = OrderByComparator.parse(orderBy, this::mergeComparator);
+		Object[] params = Arrays.copyOf(args, args.length + 2);
+		params[args.length] = 0;
+		params[args.length + 1] = start + limit;
+		logger.debug("准备从{}个分片分页查找数据：{}\t{}\tstart={}\tlimit={}", shards.size(), filterBy, orderBy, start, limit);
+
+		List<List<SortedRow<T>>> pages = fanOut(shard -> {
+			RowMapper<T> rowMapper = rowMappers.get();
+			return shard.getJdbcTemplate().query(templates(shard).paged(filterBy, orderBy), (rs, rowNum) -> new SortedRow<>(sortKey(rs, order), rowMapper.mapRow(rs, rowNum)), params);
+		});
+
+		// 各分片结果已有序，用优先队列做k路归并，排序键相同时按分片序号保持稳定
+		Comparator<int[]> byHead = (a, b) -> {
+			int c = order.compare(pages.get(a[0]).get(a[1]).key, pages.get(b[0]).get(b[1]).key);
+			return c != 0 ? c : Integer.compare(a[0], b[0]);
+		};
+		PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, pages.size()), byHead);
+		for(int i = 0; i < pages.size(); i++) {
+			if(!pages.get(i).isEmpty()) {
+				heads.add(new int[] { i, 0 });
+			}
+		}
+		List<T> result = new ArrayList<>(limit);
+		int skipped = 0;
+		while(!heads.isEmpty() && result.size() < limit) {
+			int[] head = heads.poll();
+			List<SortedRow<T>> page = pages.get(head[0]);
+			if(skipped < start) {
+				skipped++;
+			} else {
+				result.add(page.get(head[1]).row);
+			}
+			if(++head[1] < page.size()) {
+				heads.add(head);
+			}
+		}
+		logger.debug("查找到符合条件记录条数：{}", result.size());
+		return result;
+	}
+
+	private static Object[] sortKey(ResultSet rs, OrderByComparator order) throws SQLException {
+		Object[] key = new Object[order.size()];
+		for(int i = 0; i < key.length; i++) {
+			key[i] = rs.getObject(order.getColumnLabel(i));
+		}
+		return key;
+	}
+
+	private static <T> List<T> flatten(List<List<T>> lists) {
+		int size = 0;
+		for(List<T> list : lists) {
+			size += list.size();
+		}
+		List<T> result = new ArrayList<>(size);
+		for(List<T> list : lists) {
+			result.addAll(list);
+		}
+		return result;
+	}
+
+	/**
+	 * 在所有分片上执行，结果按分片序号排列。任一分片失败时取消其他分片并抛出该异常
+	 */
+	protected <R> List<R> fanOut(ShardOperation<R> operation) {
+		List<R> results = new ArrayList<>(shards.size());
+		if(shards.size() == 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+			for(Shard shard : shards) {
+				results.add(operation.run(shard));
+			}
+			return results;
+		}
+		List<Callable<R>> tasks = new ArrayList<>(shards.size());
+		for(Shard shard : shards) {
+			tasks.add(() -> operation.run(shard));
+		}
+		return ParallelExecution.invokeAll(executor, tasks);
+	}
+
+	@FunctionalInterface
+	protected interface ShardOperation<R> {
+		R run(Shard shard);
+	}
+
+	private static class SortedRow<T> {
+		final Object[] key;
+		final T row;
+
+		SortedRow(Object[] key, T row) {
+			this.key = key;
+			this.row = row;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.jtool.db.dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.core.InfrastructureProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * 取连接前依次通过各个限流器，连接关闭（归还连接池）时释放，连接占用时长作为自适应限流的耗时样本。
+ * 实现InfrastructureProxy，事务同步时按原数据源查找，事务管理器绑定的连接照常被复用
+ */
+class AdmissionControlledDataSource extends DelegatingDataSource implements InfrastructureProxy {
+
+	private final ConcurrencyLimiter[] limiters;
+
+	AdmissionControlledDataSource(DataSource targetDataSource, ConcurrencyLimiter... limiters) {
+		super(targetDataSource);
+		this.limiters = limiters;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return admit(null, null);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return admit(username, password);
+	}
+
+	private Connection admit(String username, String password) throws SQLException {
+		int acquired = 0;
+		try {
+			for(ConcurrencyLimiter limiter : limiters) {
+				limiter.acquire();
+				acquired++;
+			}
+			long begin = System.nanoTime();
+			Connection target = username == null ? getTargetDataSource().getConnection() : getTargetDataSource().getConnection(username, password);
+			return releasingOnClose(target, begin);
+		} catch (SQLException | RuntimeException | Error e) {
+			release(acquired, 0);
+			throw e;
+		}
+	}
+
+	private void release(int acquired, long latencyNanos) {
+		for(int i = acquired - 1; i >= 0; i--) {
+			limiters[i].release(latencyNanos);
+		}
+	}
+
+	private Connection releasingOnClose(Connection target, long begin) {
+		AtomicBoolean released = new AtomicBoolean();
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+			switch(method.getName()) {
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "close":
+				if(released.compareAndSet(false, true)) {
+					try {
+						target.close();
+					} finally {
+						release(limiters.length, System.nanoTime() - begin);
+					}
+				}
+				return null;
+			default:
+				try {
+					return method.invoke(target, args);
+				} catch (InvocationTargetException e) {
+					throw e.getTargetException();
+				}
+			}
+		});
+	}
+
+	@Override
+	public Object getWrappedObject() {
+		return getTargetDataSource();
+	}
+}
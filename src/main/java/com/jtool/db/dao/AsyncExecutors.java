@@ -0,0 +1,112 @@
+package com.jtool.db.dao;
+
+import java.lang.reflect.Method;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 每个数据源一个异步执行器，并发数默认与连接池大小一致，多出来的任务排队等连接而不是等在连接池里。
+ * 执行器按引用计数共享，最后一个使用它的DAO销毁时关闭。
+ * 虚拟线程通过反射创建，项目仍可在JDK8上编译运行
+ */
+final class AsyncExecutors {
+
+	static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+	private static final Logger logger = LoggerFactory.getLogger(AsyncExecutors.class);
+
+	private static final String[] POOL_SIZE_GETTERS = { "getMaximumPoolSize", "getMaxTotal", "getMaxActive", "getMaxPoolSize" };
+
+	private static final Map<DataSource, SharedExecutor> executors = new IdentityHashMap<>();
+
+	private AsyncExecutors() {
+	}
+
+	/**
+	 * 取得数据源的执行器并增加引用计数，不再使用时必须调用release
+	 */
+	static synchronized Executor forDataSource(DataSource dataSource, String name, int maxConcurrency, boolean virtualThreads) {
+		SharedExecutor shared = executors.computeIfAbsent(dataSource, ds -> newExecutor(ds, name, maxConcurrency, virtualThreads));
+		shared.references++;
+		return shared.executor;
+	}
+
+	/**
+	 * 减少引用计数，没有DAO使用时关闭执行器，已提交的任务会继续执行完
+	 */
+	static synchronized void release(DataSource dataSource) {
+		SharedExecutor shared = executors.get(dataSource);
+		if(shared == null || --shared.references > 0) {
+			return;
+		}
+		executors.remove(dataSource);
+		logger.debug("关闭异步查询执行器：{}", shared.name);
+		shared.threads.shutdown();
+	}
+
+	private static SharedExecutor newExecutor(DataSource dataSource, String name, int maxConcurrency, boolean virtualThreads) {
+		int concurrency = maxConcurrency > 0 ? maxConcurrency : poolSizeOf(dataSource);
+		ExecutorService virtualThreadExecutor = virtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+		if(virtualThreadExecutor == null) {
+			logger.debug("数据源{}使用平台线程执行异步查询，并发数：{}", name, concurrency);
+			ExecutorService pool = ParallelExecution.newDaemonPool(concurrency, "async-" + name);
+			return new SharedExecutor(name, pool, pool);
+		}
+		logger.debug("数据源{}使用虚拟线程执行异步查询，并发数：{}", name, concurrency);
+		Semaphore permits = new Semaphore(concurrency);
+		return new SharedExecutor(name, virtualThreadExecutor, task -> virtualThreadExecutor.execute(() -> {
+			permits.acquireUninterruptibly();
+			try {
+				task.run();
+			} finally {
+				permits.release();
+			}
+		}));
+	}
+
+	static int poolSizeOf(DataSource dataSource) {
+		for(String getter : POOL_SIZE_GETTERS) {
+			try {
+				Method method = dataSource.getClass().getMethod(getter);
+				Object size = method.invoke(dataSource);
+				if(size instanceof Number && ((Number) size).intValue() > 0) {
+					return ((Number) size).intValue();
+				}
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				// 不是这种连接池，继续尝试下一个
+			}
+		}
+		return DEFAULT_MAX_CONCURRENCY;
+	}
+
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			logger.debug("当前JDK不支持虚拟线程，改用平台线程");
+			return null;
+		}
+	}
+
+	private static final class SharedExecutor {
+		final String name;
+		final ExecutorService threads;
+		final Executor executor;
+		int references;
+
+		SharedExecutor(String name, ExecutorService threads, Executor executor) {
+			this.name = name;
+			this.threads = threads;
+			this.executor = executor;
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package com.jtool.db.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import com.jtool.db.mapping.EntityParameterBinder;
+
+/**
+ * 在SimpleJdbcInsert解析出的表结构上做批量插入，并取回每一行的自增主键
+ */
+class BulkJdbcInsert extends SimpleJdbcInsert {
+
+	BulkJdbcInsert(DataSource dataSource) {
+		super(dataSource);
+	}
+
+	/**
+	 * 返回的主键按行的顺序排列。multiRowValues为true时依赖一条语句分到连续的自增主键，
+	 * MySQL要求innodb_autoinc_lock_mode不大于1，见{@link com.jtool.db.annotation.BulkInsert}
+	 */
+	int[] executeBatchAndReturnKeys(List<SqlParameterSource> rows, boolean multiRowValues) {
+		compile();
+		int[] types = getInsertTypes();
+		String sql = multiRowValues ? multiRowInsertString(rows.size()) : getInsertString();
+
+		return getJdbcTemplate().execute((ConnectionCallback<int[]>) con -> {
+			PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+			ResultSet keys = null;
+			try {
+				execute(ps, types, rows, multiRowValues);
+				keys = ps.getGeneratedKeys();
+				int[] ids = new int[rows.size()];
+				int i = 0;
+				while(keys.next() && i < ids.length) {
+					ids[i++] = keys.getInt(1);
+				}
+				if(i != ids.length) {
+					throw new DataRetrievalFailureException("Expected " + ids.length + " generated keys but got " + i);
+				}
+				return ids;
+			} finally {
+				JdbcUtils.closeResultSet(keys);
+				JdbcUtils.closeStatement(ps);
+			}
+		});
+	}
+
+	/**
+	 * 行里已经带有主键时使用，不取回自增主键
+	 */
+	void executeBatch(List<SqlParameterSource> rows, boolean multiRowValues) {
+		compile();
+		int[] types = getInsertTypes();
+		String sql = multiRowValues ? multiRowInsertString(rows.size()) : getInsertString();
+
+		getJdbcTemplate().execute((ConnectionCallback<Void>) con -> {
+			PreparedStatement ps = con.prepareStatement(sql);
+			try {
+				execute(ps, types, rows, multiRowValues);
+				return null;
+			} finally {
+				JdbcUtils.closeStatement(ps);
+			}
+		});
+	}
+
+	private void execute(PreparedStatement ps, int[] types, List<SqlParameterSource> rows, boolean multiRowValues) throws SQLException {
+		// 插入列对应的getter每条语句只解析一次，实体行按下标绑定
+		EntityParameterBinder binder = EntityParameterBinder.forRows(rows, insertColumns());
+		if(multiRowValues) {
+			int index = 1;
+			for(SqlParameterSource row : rows) {
+				index = setValues(ps, index, types, binder, row);
+			}
+			ps.executeUpdate();
+		} else {
+			for(SqlParameterSource row : rows) {
+				setValues(ps, 1, types, binder, row);
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+	}
+
+	private int setValues(PreparedStatement ps, int index, int[] types, EntityParameterBinder binder, SqlParameterSource row) throws SQLException {
+		if(binder != null && binder.canBind(row)) {
+			return binder.bind(ps, index, types, row);
+		}
+		return setValues(ps, index, types, matchInParameterValuesWithInsertColumns(row));
+	}
+
+	private int setValues(PreparedStatement ps, int index, int[] types, List<Object> values) throws SQLException {
+		for(int i = 0; i < values.size(); i++) {
+			int type = types != null && i < types.length ? types[i] : SqlTypeValue.TYPE_UNKNOWN;
+			StatementCreatorUtils.setParameterValue(ps, index++, type, values.get(i));
+		}
+		return index;
+	}
+
+	/**
+	 * SimpleJdbcInsert没有公开实际使用的插入列，从"INSERT INTO t (a, b) VALUES(?, ?)"里取出
+	 */
+	private List<String> insertColumns() {
+		String insertString = getInsertString();
+		int columnsBegin = insertString.indexOf('(') + 1;
+		int columnsEnd = insertString.lastIndexOf(") VALUES");
+		return Arrays.asList(insertString.substring(columnsBegin, columnsEnd).split(", "));
+	}
+
+	private String multiRowInsertString(int rowCount) {
+		// SimpleJdbcInsert生成的是"INSERT INTO t (a, b) VALUES(?, ?)"，把VALUES后的占位符重复rowCount次
+		String insertString = getInsertString();
+		int valuesEnd = insertString.lastIndexOf("VALUES") + "VALUES".length();
+		String placeholders = insertString.substring(valuesEnd).trim();
+		StringBuilder sb = new StringBuilder(insertString.substring(0, valuesEnd)).append(' ');
+		for(int i = 0; i < rowCount; i++) {
+			if(i > 0) {
+				sb.append(", ");
+			}
+			sb.append(placeholders);
+		}
+		return sb.toString();
+	}
+}
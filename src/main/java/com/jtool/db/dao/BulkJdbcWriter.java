@@ -0,0 +1,333 @@
+package com.jtool.db.dao;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * 按表结构批量执行upsert和按ID更新。列名和类型在第一次使用时从DatabaseMetaData读取（或由启动预热从快照设置），
+ * 只写参数源里值不为null的列（基本类型的字段总有值，总会写入），同一批里有值的列不同的行按列分组各自执行。MySQL用insert ... on duplicate key update，其他数据库用标准的merge语句（按id匹配）
+ */
+class BulkJdbcWriter {
+
+	private static final String ID = "id";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final String tableName;
+
+	private volatile TableColumns tableColumns;
+
+	BulkJdbcWriter(JdbcTemplate jdbcTemplate, String tableName) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.tableName = tableName;
+	}
+
+	/**
+	 * @return 每行的影响行数，0表示该ID不存在
+	 */
+	int[] updateById(List<SqlParameterSource> rows, StatementRecorder recorder) {
+		TableColumns table = tableColumns();
+		Map<List<String>, List<Integer>> shapes = shapes(table, rows, false);
+		return jdbcTemplate.execute((ConnectionCallback<int[]>) con -> {
+			int[] counts = new int[rows.size()];
+			for(Map.Entry<List<String>, List<Integer>> shape : shapes.entrySet()) {
+				List<String> columns = shape.getKey();
+				if(columns.isEmpty()) {
+					throw new InvalidDataAccessApiUsageException("no updatable column of " + tableName + " found in " + rows.get(shape.getValue().get(0)));
+				}
+				StringBuilder sql = new StringBuilder("update ").append(tableName).append(" set ");
+				for(int i = 0; i < columns.size(); i++) {
+					sql.append(i == 0 ? "" : ", ").append(columns.get(i)).append(" = ?");
+				}
+				sql.append(" where ").append(ID).append(" = ?");
+				List<String> parameterColumns = new ArrayList<>(columns);
+				parameterColumns.add(ID);
+				scatter(executeBatch(con, sql.toString(), table, parameterColumns, select(rows, shape.getValue()), recorder), shape.getValue(), counts);
+			}
+			return counts;
+		});
+	}
+
+	UpsertOutcome[] upsert(List<SqlParameterSource> rows, StatementRecorder recorder) {
+		TableColumns table = tableColumns();
+		Map<List<String>, List<Integer>> shapes = shapes(table, rows, true);
+		for(Map.Entry<List<String>, List<Integer>> shape : shapes.entrySet()) {
+			if(!shape.getKey().contains(ID)) {
+				throw new InvalidDataAccessApiUsageException("upsert requires the id of " + tableName + " in " + rows.get(shape.getValue().get(0)));
+			}
+		}
+		return jdbcTemplate.execute((ConnectionCallback<UpsertOutcome[]>) con -> {
+			UpsertOutcome[] outcomes = new UpsertOutcome[rows.size()];
+			for(Map.Entry<List<String>, List<Integer>> shape : shapes.entrySet()) {
+				List<String> columns = shape.getKey();
+				List<Integer> indexes = shape.getValue();
+				List<SqlParameterSource> shapeRows = select(rows, indexes);
+				UpsertOutcome[] shapeOutcomes;
+				if(table.mysql) {
+					shapeOutcomes = mysqlOutcomes(executeBatch(con, onDuplicateKeyUpdateSql(columns), table, columns, shapeRows, recorder));
+				} else {
+					shapeOutcomes = mergeOutcomes(con, table, columns, shapeRows, recorder);
+				}
+				for(int i = 0; i < indexes.size(); i++) {
+					outcomes[indexes.get(i)] = shapeOutcomes[i];
+				}
+			}
+			return outcomes;
+		});
+	}
+
+	private UpsertOutcome[] mergeOutcomes(Connection con, TableColumns table, List<String> columns, List<SqlParameterSource> rows, StatementRecorder recorder)
+			throws SQLException {
+		Set<String> existing = existingIds(con, table, rows);
+		int[] counts = executeBatch(con, mergeSql(columns), table, columns, rows, recorder);
+		UpsertOutcome[] outcomes = new UpsertOutcome[rows.size()];
+		for(int i = 0; i < outcomes.length; i++) {
+			if(counts[i] == 0) {
+				outcomes[i] = UpsertOutcome.UNCHANGED;
+			} else if(counts[i] < 0) {
+				outcomes[i] = UpsertOutcome.UNKNOWN;
+			} else {
+				outcomes[i] = existing.contains(String.valueOf(value(rows.get(i), ID))) ? UpsertOutcome.UPDATED : UpsertOutcome.INSERTED;
+			}
+		}
+		return outcomes;
+	}
+
+	/**
+	 * 按每行里值不为null的列分组，同一组的行用同一条语句批量执行，组内保持原来的先后顺序
+	 */
+	private Map<List<String>, List<Integer>> shapes(TableColumns table, List<SqlParameterSource> rows, boolean includeId) {
+		Map<List<String>, List<Integer>> shapes = new LinkedHashMap<>();
+		for(int i = 0; i < rows.size(); i++) {
+			shapes.computeIfAbsent(presentColumns(table, rows.get(i), includeId), columns -> new ArrayList<>()).add(i);
+		}
+		return shapes;
+	}
+
+	private static List<SqlParameterSource> select(List<SqlParameterSource> rows, List<Integer> indexes) {
+		if(indexes.size() == rows.size()) {
+			return rows;
+		}
+		List<SqlParameterSource> selected = new ArrayList<>(indexes.size());
+		for(int index : indexes) {
+			selected.add(rows.get(index));
+		}
+		return selected;
+	}
+
+	private static void scatter(int[] counts, List<Integer> indexes, int[] target) {
+		for(int i = 0; i < indexes.size(); i++) {
+			target[indexes.get(i)] = counts[i];
+		}
+	}
+
+	private String onDuplicateKeyUpdateSql(List<String> columns) {
+		StringBuilder sql = new StringBuilder("insert into ").append(tableName).append(" (").append(String.join(", ", columns)).append(") values (");
+		for(int i = 0; i < columns.size(); i++) {
+			sql.append(i == 0 ? "?" : ", ?");
+		}
+		sql.append(") on duplicate key update ");
+		boolean first = true;
+		for(String column : columns) {
+			if(!column.equals(ID)) {
+				sql.append(first ? "" : ", ").append(column).append(" = values(").append(column).append(')');
+				first = false;
+			}
+		}
+		if(first) {
+			sql.append(ID).append(" = ").append(ID);
+		}
+		return sql.toString();
+	}
+
+	private String mergeSql(List<String> columns) {
+		StringBuilder sql = new StringBuilder("merge into ").append(tableName).append(" t using (values (");
+		for(int i = 0; i < columns.size(); i++) {
+			sql.append(i == 0 ? "?" : ", ?");
+		}
+		String columnList = String.join(", ", columns);
+		sql.append(")) as s (").append(columnList).append(") on t.").append(ID).append(" = s.").append(ID);
+		boolean first = true;
+		for(String column : columns) {
+			if(!column.equals(ID)) {
+				sql.append(first ? " when matched then update set " : ", ").append("t.").append(column).append(" = s.").append(column);
+				first = false;
+			}
+		}
+		sql.append(" when not matched then insert (").append(columnList).append(") values (");
+		for(int i = 0; i < columns.size(); i++) {
+			sql.append(i == 0 ? "" : ", ").append("s.").append(columns.get(i));
+		}
+		return sql.append(')').toString();
+	}
+
+	private UpsertOutcome[] mysqlOutcomes(int[] counts) {
+		// 不带CLIENT_FOUND_ROWS时MySQL对插入返回1，更新返回2，值没有变化返回0
+		UpsertOutcome[] outcomes = new UpsertOutcome[counts.length];
+		for(int i = 0; i < counts.length; i++) {
+			switch(counts[i]) {
+			case 0:
+				outcomes[i] = UpsertOutcome.UNCHANGED;
+				break;
+			case 1:
+				outcomes[i] = UpsertOutcome.INSERTED;
+				break;
+			case 2:
+				outcomes[i] = UpsertOutcome.UPDATED;
+				break;
+			default:
+				outcomes[i] = UpsertOutcome.UNKNOWN;
+			}
+		}
+		return outcomes;
+	}
+
+	private Set<String> existingIds(Connection con, TableColumns table, List<SqlParameterSource> rows) throws SQLException {
+		StringBuilder sql = new StringBuilder("select ").append(ID).append(" from ").append(tableName).append(" where ").append(ID).append(" in (");
+		for(int i = 0; i < rows.size(); i++) {
+			sql.append(i == 0 ? "?" : ",?");
+		}
+		sql.append(')');
+		Set<String> ids = new HashSet<>();
+		PreparedStatement ps = con.prepareStatement(sql.toString());
+		ResultSet rs = null;
+		try {
+			for(int i = 0; i < rows.size(); i++) {
+				StatementCreatorUtils.setParameterValue(ps, i + 1, table.types.get(ID), value(rows.get(i), ID));
+			}
+			rs = ps.executeQuery();
+			while(rs.next()) {
+				ids.add(rs.getString(1));
+			}
+			return ids;
+		} finally {
+			JdbcUtils.closeResultSet(rs);
+			JdbcUtils.closeStatement(ps);
+		}
+	}
+
+	private int[] executeBatch(Connection con, String sql, TableColumns table, List<String> columns, List<SqlParameterSource> rows, StatementRecorder recorder)
+			throws SQLException {
+		long begin = System.nanoTime();
+		PreparedStatement ps = null;
+		try {
+			ps = con.prepareStatement(sql);
+			for(SqlParameterSource row : rows) {
+				for(int i = 0; i < columns.size(); i++) {
+					String column = columns.get(i);
+					StatementCreatorUtils.setParameterValue(ps, i + 1, table.types.get(column), value(row, column));
+				}
+				ps.addBatch();
+			}
+			int[] counts = ps.executeBatch();
+			for(int i = 0; i < counts.length; i++) {
+				if(counts[i] == Statement.SUCCESS_NO_INFO) {
+					counts[i] = -1;
+				}
+			}
+			recorder.record(sql, begin, counts.length, false);
+			return counts;
+		} catch (SQLException | RuntimeException e) {
+			recorder.record(sql, begin, 0, true);
+			throw e;
+		} finally {
+			JdbcUtils.closeStatement(ps);
+		}
+	}
+
+	/**
+	 * 记录每条实际执行的语句，用于查询统计
+	 */
+	interface StatementRecorder {
+		void record(String sql, long beginNanos, int rows, boolean error);
+	}
+
+	private List<String> presentColumns(TableColumns table, SqlParameterSource row, boolean includeId) {
+		List<String> columns = new ArrayList<>();
+		for(String column : table.types.keySet()) {
+			if(!includeId && column.equals(ID)) {
+				continue;
+			}
+			String name = parameterName(row, column);
+			if(name != null && row.getValue(name) != null) {
+				columns.add(column);
+			}
+		}
+		return columns;
+	}
+
+	private static Object value(SqlParameterSource row, String column) {
+		String name = parameterName(row, column);
+		if(name == null) {
+			throw new InvalidDataAccessApiUsageException("no value for column " + column + " in " + row);
+		}
+		return row.getValue(name);
+	}
+
+	/**
+	 * 与SimpleJdbcInsert相同的匹配规则：列名、小写列名、下划线转驼峰
+	 */
+	private static String parameterName(SqlParameterSource row, String column) {
+		if(row.hasValue(column)) {
+			return column;
+		}
+		String lowerCase = column.toLowerCase(Locale.ENGLISH);
+		if(row.hasValue(lowerCase)) {
+			return lowerCase;
+		}
+		String propertyName = JdbcUtils.convertUnderscoreNameToPropertyName(column);
+		return row.hasValue(propertyName) ? propertyName : null;
+	}
+
+	/**
+	 * 使用启动时从元数据快照里读到的表结构，跳过第一次使用时的元数据查询
+	 */
+	void useColumns(TableColumns columns) {
+		tableColumns = columns;
+	}
+
+	TableColumns tableColumns() {
+		TableColumns table = tableColumns;
+		if(table == null) {
+			table = jdbcTemplate.execute((ConnectionCallback<TableColumns>) this::readTableColumns);
+			tableColumns = table;
+		}
+		return table;
+	}
+
+	private TableColumns readTableColumns(Connection con) throws SQLException {
+		DatabaseMetaData metaData = con.getMetaData();
+		for(String name : new String[] { tableName, tableName.toUpperCase(Locale.ENGLISH), tableName.toLowerCase(Locale.ENGLISH) }) {
+			Map<String, Integer> types = new LinkedHashMap<>();
+			ResultSet rs = metaData.getColumns(con.getCatalog(), null, name, null);
+			try {
+				while(rs.next()) {
+					types.putIfAbsent(rs.getString("COLUMN_NAME").toLowerCase(Locale.ENGLISH), rs.getInt("DATA_TYPE"));
+				}
+			} finally {
+				JdbcUtils.closeResultSet(rs);
+			}
+			if(!types.isEmpty()) {
+				return new TableColumns(types, metaData.getDatabaseProductName().toLowerCase(Locale.ENGLISH).contains("mysql"));
+			}
+		}
+		throw new InvalidDataAccessApiUsageException("cannot read columns of table " + tableName);
+	}
+}
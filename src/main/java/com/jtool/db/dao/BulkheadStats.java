@@ -0,0 +1,47 @@
+package com.jtool.db.dao;
+
+public final class BulkheadStats {
+
+	private final String name;
+	private final int limit;
+	private final int inFlight;
+	private final long admittedCount;
+	private final long rejectedCount;
+
+	BulkheadStats(String name, int limit, int inFlight, long admittedCount, long rejectedCount) {
+		this.name = name;
+		this.limit = limit;
+		this.inFlight = inFlight;
+		this.admittedCount = admittedCount;
+		this.rejectedCount = rejectedCount;
+	}
+
+	/**
+	 * 数据源bean名称，或DAO自己的上限时为DAO类名
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getInFlight() {
+		return inFlight;
+	}
+
+	public long getAdmittedCount() {
+		return admittedCount;
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+
+	@Override
+	public String toString() {
+		return "BulkheadStats [name=" + name + ", limit=" + limit + ", inFlight=" + inFlight + ", admittedCount=" + admittedCount
+				+ ", rejectedCount=" + rejectedCount + "]";
+	}
+}
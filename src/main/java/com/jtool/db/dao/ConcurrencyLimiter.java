@@ -0,0 +1,155 @@
+package com.jtool.db.dao;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jtool.db.exception.AdmissionRejectedException;
+
+/**
+ * 并发上限加有限等待。自适应模式每WINDOW_SIZE次调用统计一次平均耗时：
+ * 明显高于观察到的最低耗时说明数据库已经排队，上限乘以0.9；否则并发曾经打满时上限加1
+ */
+final class ConcurrencyLimiter {
+
+	static final int WINDOW_SIZE = 20;
+	static final int LATENCY_TOLERANCE = 2;
+
+	/**
+	 * 每隔这么多个窗口把最低耗时重置为当前窗口的平均值，跟上数据量增长等长期变化
+	 */
+	private static final int MIN_LATENCY_RESET_WINDOWS = 50;
+
+	private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+	private static final Map<DataSource, ConcurrencyLimiter> limiters = Collections.synchronizedMap(new IdentityHashMap<>());
+
+	private final String name;
+	private final long maxWaitNanos;
+	private final boolean adaptive;
+	private final int minLimit;
+	private final int maxLimit;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+
+	private int limit;
+	private int inFlight;
+	private long admittedCount;
+	private long rejectedCount;
+
+	private long windowLatencySum;
+	private int windowCount;
+	private int windowPeakInFlight;
+	private int windows;
+	private long minLatency = Long.MAX_VALUE;
+
+	ConcurrencyLimiter(String name, int maxLimit, long maxWaitMillis, boolean adaptive, int minLimit) {
+		if(maxLimit <= 0 || minLimit <= 0 || maxWaitMillis < 0) {
+			throw new IllegalArgumentException("limits must be positive and maxWait must not be negative");
+		}
+		this.name = name;
+		this.maxLimit = maxLimit;
+		this.minLimit = Math.min(minLimit, maxLimit);
+		this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+		this.adaptive = adaptive;
+		this.limit = maxLimit;
+	}
+
+	/**
+	 * 同一数据源共用一个限流器，maxConcurrency为0时取连接池大小
+	 */
+	static ConcurrencyLimiter forDataSource(DataSource dataSource, String name, int maxConcurrency, long maxWaitMillis, boolean adaptive, int minConcurrency) {
+		return limiters.computeIfAbsent(dataSource, ds -> {
+			int concurrency = maxConcurrency > 0 ? maxConcurrency : AsyncExecutors.poolSizeOf(ds);
+			logger.debug("数据源{}并发上限：{}，最长排队{}ms，自适应：{}", name, concurrency, maxWaitMillis, adaptive);
+			return new ConcurrencyLimiter(name, concurrency, maxWaitMillis, adaptive, minConcurrency);
+		});
+	}
+
+	void acquire() {
+		lock.lock();
+		try {
+			long remaining = maxWaitNanos;
+			while(inFlight >= limit) {
+				if(remaining <= 0) {
+					reject();
+				}
+				try {
+					remaining = available.awaitNanos(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					reject();
+				}
+			}
+			inFlight++;
+			windowPeakInFlight = Math.max(windowPeakInFlight, inFlight);
+			admittedCount++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void reject() {
+		rejectedCount++;
+		logger.debug("{}并发已满（{}/{}），拒绝调用", name, inFlight, limit);
+		throw new AdmissionRejectedException();
+	}
+
+	void release(long latencyNanos) {
+		lock.lock();
+		try {
+			inFlight--;
+			if(adaptive) {
+				sample(latencyNanos);
+			}
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void sample(long latencyNanos) {
+		windowLatencySum += latencyNanos;
+		if(++windowCount < WINDOW_SIZE) {
+			return;
+		}
+		long average = windowLatencySum / windowCount;
+		if(++windows % MIN_LATENCY_RESET_WINDOWS == 0) {
+			minLatency = average;
+		}
+		minLatency = Math.min(minLatency, average);
+		int previous = limit;
+		if(average > minLatency * LATENCY_TOLERANCE) {
+			limit = Math.max(minLimit, Math.min(limit - 1, limit * 9 / 10));
+		} else if(windowPeakInFlight >= limit) {
+			limit = Math.min(maxLimit, limit + 1);
+		}
+		if(limit != previous) {
+			logger.debug("{}并发上限调整：{} -> {}，平均耗时{}us，最低{}us", name, previous, limit, average / 1000, minLatency / 1000);
+			if(limit > previous) {
+				available.signalAll();
+			}
+		}
+		windowLatencySum = 0;
+		windowCount = 0;
+		windowPeakInFlight = inFlight;
+	}
+
+	BulkheadStats stats() {
+		lock.lock();
+		try {
+			return new BulkheadStats(name, limit, inFlight, admittedCount, rejectedCount);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
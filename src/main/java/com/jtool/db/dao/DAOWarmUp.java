@@ -0,0 +1,241 @@
+package com.jtool.db.dao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+/**
+ * 启动预热。容器刷新完成后并发编译所有AbstractDAO的插入语句、读取表结构，可选地预先建立连接，
+ * 避免部署后第一批请求各自承担元数据查询的延迟。
+ * 配置snapshotFile后表结构写入本地快照，下次启动直接使用快照，跳过元数据查询；
+ * 随后在后台线程核对实际表结构，不一致的DAO丢弃快照重新编译，并更新快照文件。
+ * 核对完成前快照可能已过期（如新增了NOT NULL列或删除了列），这期间写入失败时DAO会先按实际表结构核对，变化了就重新编译并重试一次。
+ *
+ * <pre>
+ * &lt;bean class="com.jtool.db.dao.DAOWarmUp" p:snapshotFile="/var/cache/app/dao-metadata.properties" p:prefetchConnections="10" /&gt;
+ * </pre>
+ */
+public class DAOWarmUp implements ApplicationContextAware, ApplicationListener<ContextRefreshedEvent> {
+
+	private final Logger logger = LoggerFactory.getLogger(DAOWarmUp.class);
+
+	private ApplicationContext context;
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	private int prefetchConnections;
+
+	private String snapshotFile;
+
+	private volatile Map<String, Long> timings = Collections.emptyMap();
+
+	@Override
+	public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+		context = applicationContext;
+	}
+
+	@Override
+	public void onApplicationEvent(ContextRefreshedEvent event) {
+		if(event.getApplicationContext() == context) {
+			warmUp();
+		}
+	}
+
+	/**
+	 * @return 每个DAO（bean名称）预热耗时，单位毫秒
+	 */
+	public Map<String, Long> warmUp() {
+		long begin = System.nanoTime();
+		Map<String, AbstractDAO> daos = context.getBeansOfType(AbstractDAO.class);
+		if(daos.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<String, TableColumns> snapshot = loadSnapshot();
+
+		List<String> names = new ArrayList<>(daos.keySet());
+		List<Callable<long[]>> tasks = new ArrayList<>(names.size());
+		Map<String, TableColumns> columns = Collections.synchronizedMap(new TreeMap<>());
+		for(String name : names) {
+			AbstractDAO dao = daos.get(name);
+			String key = snapshotKey(dao);
+			TableColumns cached = snapshot.get(key);
+			tasks.add(() -> {
+				long daoBegin = System.nanoTime();
+				try {
+					columns.put(key, dao.warmUp(cached));
+				} catch (RuntimeException e) {
+					logger.warn("DAO预热失败：" + name, e);
+				}
+				return new long[] { (System.nanoTime() - daoBegin) / 1000000, cached == null ? 0 : 1 };
+			});
+		}
+		ExecutorService executor = ParallelExecution.newDaemonPool(Math.min(parallelism, tasks.size()), "dao-warm-up");
+		List<long[]> results;
+		try {
+			results = ParallelExecution.invokeAll(executor, tasks);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Map<String, Long> daoTimings = new LinkedHashMap<>();
+		List<AbstractDAO> fromSnapshot = new ArrayList<>();
+		for(int i = 0; i < names.size(); i++) {
+			long[] result = results.get(i);
+			daoTimings.put(names.get(i), result[0]);
+			if(result[1] == 1) {
+				fromSnapshot.add(daos.get(names.get(i)));
+			}
+			logger.info("DAO预热：{}\t{}ms{}", names.get(i), result[0], result[1] == 1 ? "\t使用元数据快照" : "");
+		}
+		if(prefetchConnections > 0) {
+			prefetchConnections(daos.values());
+		}
+		timings = Collections.unmodifiableMap(daoTimings);
+		logger.info("DAO预热完成：{}个DAO，其中{}个使用元数据快照，耗时{}ms", names.size(), fromSnapshot.size(), (System.nanoTime() - begin) / 1000000);
+
+		if(snapshotFile != null) {
+			if(fromSnapshot.isEmpty()) {
+				saveSnapshot(columns);
+			} else {
+				Thread verifier = new Thread(() -> verifySnapshot(fromSnapshot, snapshot, columns), "dao-warm-up-verify");
+				verifier.setDaemon(true);
+				verifier.start();
+			}
+		}
+		return timings;
+	}
+
+	/**
+	 * 核对快照与实际表结构，不一致时让DAO按实际表结构重新编译，最后用实际表结构更新快照
+	 */
+	void verifySnapshot(List<AbstractDAO> fromSnapshot, Map<String, TableColumns> snapshot, Map<String, TableColumns> columns) {
+		try {
+			for(AbstractDAO dao : fromSnapshot) {
+				String key = snapshotKey(dao);
+				TableColumns actual = dao.readTableColumns();
+				if(!actual.equals(snapshot.get(key))) {
+					logger.warn("元数据快照与表结构不一致，重新编译：" + key);
+					dao.resetInsertMetadata();
+				}
+				columns.put(key, actual);
+			}
+			saveSnapshot(columns);
+		} catch (RuntimeException e) {
+			logger.warn("核对元数据快照失败", e);
+		}
+	}
+
+	private void prefetchConnections(Iterable<AbstractDAO> daos) {
+		Set<DataSource> dataSources = Collections.newSetFromMap(new IdentityHashMap<>());
+		for(AbstractDAO dao : daos) {
+			dataSources.add(dao.dataSource);
+		}
+		for(DataSource dataSource : dataSources) {
+			long begin = System.nanoTime();
+			List<Connection> connections = new ArrayList<>(prefetchConnections);
+			try {
+				for(int i = 0; i < prefetchConnections; i++) {
+					connections.add(DataSourceUtils.getConnection(dataSource));
+				}
+			} catch (RuntimeException e) {
+				logger.warn("预先建立连接失败", e);
+			} finally {
+				for(Connection connection : connections) {
+					DataSourceUtils.releaseConnection(connection, dataSource);
+				}
+			}
+			logger.info("预先建立连接：{}个，耗时{}ms", connections.size(), (System.nanoTime() - begin) / 1000000);
+		}
+	}
+
+	private Map<String, TableColumns> loadSnapshot() {
+		if(snapshotFile == null || !Files.exists(Paths.get(snapshotFile))) {
+			return Collections.emptyMap();
+		}
+		Properties properties = new Properties();
+		try(Reader reader = Files.newBufferedReader(Paths.get(snapshotFile), StandardCharsets.UTF_8)) {
+			properties.load(reader);
+			Map<String, TableColumns> snapshot = new TreeMap<>();
+			for(String key : properties.stringPropertyNames()) {
+				snapshot.put(key, TableColumns.decode(properties.getProperty(key)));
+			}
+			logger.debug("读取元数据快照：{}，表数：{}", snapshotFile, snapshot.size());
+			return snapshot;
+		} catch (IOException | IllegalArgumentException e) {
+			logger.warn("读取元数据快照失败，改为查询元数据：" + snapshotFile, e);
+			return Collections.emptyMap();
+		}
+	}
+
+	private void saveSnapshot(Map<String, TableColumns> columns) {
+		Properties properties = new Properties();
+		synchronized(columns) {
+			for(Map.Entry<String, TableColumns> entry : columns.entrySet()) {
+				properties.setProperty(entry.getKey(), entry.getValue().encode());
+			}
+		}
+		Path target = Paths.get(snapshotFile).toAbsolutePath();
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		try {
+			Files.createDirectories(target.getParent());
+			try(Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				properties.store(writer, "jtool-mysql table metadata snapshot, delete after schema changes to force a refresh");
+			}
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			logger.debug("写入元数据快照：{}，表数：{}", target, properties.size());
+		} catch (IOException e) {
+			logger.warn("写入元数据快照失败：" + target, e);
+		}
+	}
+
+	private static String snapshotKey(AbstractDAO dao) {
+		return dao.getDataSourceName() + "." + dao.getTableName();
+	}
+
+	public Map<String, Long> getTimings() {
+		return timings;
+	}
+
+	public void setParallelism(int parallelism) {
+		if(parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism must be positive");
+		}
+		this.parallelism = parallelism;
+	}
+
+	public void setPrefetchConnections(int prefetchConnections) {
+		this.prefetchConnections = prefetchConnections;
+	}
+
+	public void setSnapshotFile(String snapshotFile) {
+		this.snapshotFile = snapshotFile;
+	}
+}
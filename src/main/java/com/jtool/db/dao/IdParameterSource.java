@@ -0,0 +1,39 @@
+package com.jtool.db.dao;
+
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+/**
+ * 在原参数源上补充分配好的id，用于对象没有可写id属性的情况
+ */
+class IdParameterSource implements SqlParameterSource {
+
+	private static final String ID = "id";
+
+	private final SqlParameterSource delegate;
+	private final long id;
+
+	IdParameterSource(SqlParameterSource delegate, long id) {
+		this.delegate = delegate;
+		this.id = id;
+	}
+
+	@Override
+	public boolean hasValue(String paramName) {
+		return ID.equalsIgnoreCase(paramName) || delegate.hasValue(paramName);
+	}
+
+	@Override
+	public Object getValue(String paramName) {
+		return ID.equalsIgnoreCase(paramName) ? id : delegate.getValue(paramName);
+	}
+
+	@Override
+	public int getSqlType(String paramName) {
+		return ID.equalsIgnoreCase(paramName) ? TYPE_UNKNOWN : delegate.getSqlType(paramName);
+	}
+
+	@Override
+	public String getTypeName(String paramName) {
+		return ID.equalsIgnoreCase(paramName) ? null : delegate.getTypeName(paramName);
+	}
+}
@@ -0,0 +1,24 @@
+package com.jtool.db.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把[minId, maxId]切成不超过count个左闭右开区间，区间数不超过id跨度
+ */
+final class IdRanges {
+
+	private IdRanges() {
+	}
+
+	static List<long[]> split(long minId, long maxId, int count) {
+		long span = maxId - minId + 1;
+		int rangeCount = (int) Math.max(1, Math.min(count, span));
+		long step = (span + rangeCount - 1) / rangeCount;
+		List<long[]> ranges = new ArrayList<>(rangeCount);
+		for(long from = minId; from <= maxId; from += step) {
+			ranges.add(new long[] { from, Math.min(from + step, maxId + 1) });
+		}
+		return ranges;
+	}
+}
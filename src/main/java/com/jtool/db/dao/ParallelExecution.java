@@ -0,0 +1,61 @@
+package com.jtool.db.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DAO内部并发查询用的线程池和结果收集
+ */
+final class ParallelExecution {
+
+	private ParallelExecution() {
+	}
+
+	static ExecutorService newDaemonPool(int threads, String namePrefix) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * 结果与tasks顺序一致。任一任务失败时取消其余任务并抛出该任务的异常
+	 */
+	static <R> List<R> invokeAll(ExecutorService executor, List<Callable<R>> tasks) {
+		List<Future<R>> futures = new ArrayList<>(tasks.size());
+		List<R> results = new ArrayList<>(tasks.size());
+		try {
+			for(Callable<R> task : tasks) {
+				futures.add(executor.submit(task));
+			}
+			for(Future<R> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if(cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for parallel queries", e);
+		} finally {
+			for(Future<R> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.jtool.db.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+/**
+ * 逐行读取ResultSet的Spliterator，读完或出错时自动释放ResultSet、Statement和连接
+ */
+class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> implements AutoCloseable {
+
+	private final String sql;
+	private final Connection connection;
+	private final DataSource dataSource;
+	private final Statement statement;
+	private final ResultSet resultSet;
+	private final RowMapper<T> rowMapper;
+	private final SQLExceptionTranslator exceptionTranslator;
+	private final CloseListener closeListener;
+
+	private int rowNum;
+	private boolean closed;
+
+	ResultSetSpliterator(String sql, Connection connection, DataSource dataSource, Statement statement, ResultSet resultSet,
+			RowMapper<T> rowMapper, SQLExceptionTranslator exceptionTranslator, CloseListener closeListener) {
+		super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+		this.sql = sql;
+		this.connection = connection;
+		this.dataSource = dataSource;
+		this.statement = statement;
+		this.resultSet = resultSet;
+		this.rowMapper = rowMapper;
+		this.exceptionTranslator = exceptionTranslator;
+		this.closeListener = closeListener;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		if(closed) {
+			return false;
+		}
+		try {
+			if(!resultSet.next()) {
+				close();
+				return false;
+			}
+			action.accept(rowMapper.mapRow(resultSet, rowNum++));
+			return true;
+		} catch (SQLException e) {
+			close(true);
+			throw exceptionTranslator.translate("ResultSetSpliterator", sql, e);
+		} catch (RuntimeException | Error e) {
+			close(true);
+			throw e;
+		}
+	}
+
+	@Override
+	public void close() {
+		close(false);
+	}
+
+	private void close(boolean error) {
+		if(closed) {
+			return;
+		}
+		closed = true;
+		JdbcUtils.closeResultSet(resultSet);
+		JdbcUtils.closeStatement(statement);
+		DataSourceUtils.releaseConnection(connection, dataSource);
+		closeListener.closed(rowNum, error);
+	}
+
+	@FunctionalInterface
+	interface CloseListener {
+		void closed(int rows, boolean error);
+	}
+}
@@ -0,0 +1,99 @@
+package com.jtool.db.dao;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import com.jtool.db.annotation.EntityClass;
+import com.jtool.db.annotation.Mapper;
+import com.jtool.db.exception.NewRowMapperInstanceException;
+import com.jtool.db.exception.NotFindRowMapperClassException;
+import com.jtool.db.mapping.EntityMapping;
+
+/**
+ * 根据DAO类上的@EntityClass或内部@Mapper类创建RowMapper和参数源
+ */
+final class RowMapperFactory {
+
+	private final Class<RowMapper<?>> rowMapperClass;
+
+	private final EntityMapping<?> entityMapping;
+
+	private final MethodHandle rowMapperConstructor;
+
+	private RowMapperFactory(Class<RowMapper<?>> rowMapperClass, EntityMapping<?> entityMapping, MethodHandle rowMapperConstructor) {
+		this.rowMapperClass = rowMapperClass;
+		this.entityMapping = entityMapping;
+		this.rowMapperConstructor = rowMapperConstructor;
+	}
+
+	static RowMapperFactory forDAO(Class<?> clazz) {
+		Class<?>[] clazzes = clazz.getDeclaredClasses();
+		EntityClass entityClass = clazz.getAnnotation(EntityClass.class);
+		if(entityClass != null && !hasRowMapperClass(clazzes)) {
+			return new RowMapperFactory(null, EntityMapping.of(entityClass.value()), null);
+		}
+		Class<RowMapper<?>> rowMapperClass = findRowMapperClass(clazzes);
+		return new RowMapperFactory(rowMapperClass, null, findRowMapperConstructor(rowMapperClass));
+	}
+
+	private static boolean hasRowMapperClass(Class<?>[] clazzes) {
+		return Arrays.asList(clazzes).stream().anyMatch(e -> e.getAnnotation(Mapper.class) != null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Class<RowMapper<?>> findRowMapperClass(Class<?>[] clazzes) {
+		
+		Optional<Class<?>> c = Arrays.asList(clazzes).stream().filter(e -> e.getAnnotation(Mapper.class) != null).findFirst();
+		
+		if(c.isPresent()) {
+			return (Class<RowMapper<?>>) c.get();
+		} else {
+			throw new NotFindRowMapperClassException();
+		}
+		
+	}
+
+	private static MethodHandle findRowMapperConstructor(Class<RowMapper<?>> rowMapperClass) {
+		try {
+			Constructor<RowMapper<?>> constructor = rowMapperClass.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(RowMapper.class));
+		} catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+			throw new NewRowMapperInstanceException();
+		}
+	}
+
+	Class<RowMapper<?>> getRowMapperClass() {
+		return rowMapperClass;
+	}
+
+	EntityMapping<?> getEntityMapping() {
+		return entityMapping;
+	}
+
+	RowMapper<?> newRowMapper() {
+		if(entityMapping != null) {
+			return entityMapping.newRowMapper();
+		}
+		try {
+			return (RowMapper<?>) rowMapperConstructor.invokeExact();
+		} catch (Throwable e) {
+			throw new NewRowMapperInstanceException();
+		}
+	}
+
+	SqlParameterSource newParameterSource(Object object) {
+		if(entityMapping != null && entityMapping.getType().isInstance(object)) {
+			return entityMapping.newParameterSource(object);
+		}
+		return new BeanPropertySqlParameterSource(object);
+	}
+}
@@ -0,0 +1,194 @@
+package com.jtool.db.dao;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.jtool.db.keyset.Keyset;
+
+/**
+ * 每个DAO在init时生成的SQL模板。固定语句直接预先拼好，带过滤条件的语句按条件字符串缓存，
+ * 条件通常是字符串常量，命中时只有一次HashMap查找，不再每次调用都拼接字符串。
+ */
+class SqlTemplates {
+
+	static final int MAX_CACHED_STATEMENTS = 1024;
+
+	final String selectAll;
+	final String selectById;
+	final String deleteById;
+	final String idBounds;
+
+	private final String selectPrefix;
+	private final String countPrefix;
+	private final String deletePrefix;
+	private final String existsPrefix;
+	private final String idPrefix;
+
+	private final Map<String, String> selectStatements = new ConcurrentHashMap<>();
+	private final Map<String, String> countStatements = new ConcurrentHashMap<>();
+	private final Map<String, String> deleteStatements = new ConcurrentHashMap<>();
+	private final Map<String, String> chunkBoundaryStatements = new ConcurrentHashMap<>();
+	private final Map<String, String> existsStatements = new ConcurrentHashMap<>();
+	private final Map<String, String> firstTwoStatements = new ConcurrentHashMap<>();
+	private final Map<String, Map<String, String>> pagedStatements = new ConcurrentHashMap<>();
+	private final Map<Integer, String> selectByIdsStatements = new ConcurrentHashMap<>();
+	private final Map<String, Map<String, String>> projectedStatements = new ConcurrentHashMap<>();
+	private final Map<String, Map<Keyset, String[]>> keysetStatements = new ConcurrentHashMap<>();
+
+	SqlTemplates(String tableName) {
+		this.selectAll = "select * from " + tableName;
+		this.selectById = "select * from " + tableName + " where id = ?";
+		this.deleteById = "delete from " + tableName + " where id = ?";
+		this.idBounds = "select min(id) as min_id, max(id) as max_id from " + tableName;
+		this.selectPrefix = "select * from " + tableName + " ";
+		this.countPrefix = "select count(1) from " + tableName + " ";
+		this.deletePrefix = "delete from " + tableName + " ";
+		this.existsPrefix = "select 1 from " + tableName + " ";
+		this.idPrefix = "select id from " + tableName + " ";
+	}
+
+	String select(String filter) {
+		return cached(selectStatements, filter, selectPrefix, "");
+	}
+
+	String count(String filter) {
+		return cached(countStatements, filter, countPrefix, "");
+	}
+
+	String delete(String filter) {
+		return cached(deleteStatements, filter, deletePrefix, "");
+	}
+
+	/**
+	 * 符合条件的记录按id排序后第n + 1条的id，n为最后一个参数
+	 */
+	String chunkBoundary(String filter) {
+		return cached(chunkBoundaryStatements, filter, idPrefix, " order by id limit ?, 1");
+	}
+
+	String exists(String filter) {
+		return cached(existsStatements, filter, existsPrefix, " limit 0, 1");
+	}
+
+	String firstTwo(String filter) {
+		return cached(firstTwoStatements, filter, existsPrefix, " limit 0, 2");
+	}
+
+	String paged(String filter, String orderBy) {
+		Map<String, String> byOrder = pagedStatements.get(filter);
+		if(byOrder == null) {
+			if(pagedStatements.size() >= MAX_CACHED_STATEMENTS) {
+				return selectPrefix + filter + " " + orderBy + " limit ?, ?";
+			}
+			byOrder = pagedStatements.computeIfAbsent(filter, f -> new ConcurrentHashMap<>());
+		}
+		String sql = byOrder.get(orderBy);
+		if(sql == null) {
+			sql = selectPrefix + filter + " " + orderBy + " limit ?, ?";
+			if(byOrder.size() < MAX_CACHED_STATEMENTS) {
+				byOrder.putIfAbsent(orderBy, sql);
+			}
+		}
+		return sql;
+	}
+
+	/**
+	 * keyset分页的一页（多取的一行用来判断是否还有下一页），afterPosition为false时是第一页，不带位置条件
+	 */
+	String keysetPage(String filter, Keyset keyset, boolean afterPosition, boolean backward) {
+		String normalizedFilter = filter == null ? "" : filter;
+		Map<Keyset, String[]> byKeyset = keysetStatements.get(normalizedFilter);
+		if(byKeyset == null) {
+			if(keysetStatements.size() >= MAX_CACHED_STATEMENTS) {
+				return keysetSql(normalizedFilter, keyset, afterPosition, backward);
+			}
+			byKeyset = keysetStatements.computeIfAbsent(normalizedFilter, f -> new ConcurrentHashMap<>());
+		}
+		String[] variants = byKeyset.get(keyset);
+		if(variants == null) {
+			if(byKeyset.size() >= MAX_CACHED_STATEMENTS) {
+				return keysetSql(normalizedFilter, keyset, afterPosition, backward);
+			}
+			variants = byKeyset.computeIfAbsent(keyset, k -> new String[] { keysetSql(normalizedFilter, k, false, false),
+					keysetSql(normalizedFilter, k, true, false), keysetSql(normalizedFilter, k, true, true) });
+		}
+		return afterPosition ? variants[backward ? 2 : 1] : variants[0];
+	}
+
+	private String keysetSql(String filter, Keyset keyset, boolean afterPosition, boolean backward) {
+		String where = afterPosition ? keyset.predicate(backward) : null;
+		return selectPrefix + combineFilter(filter, where) + " " + keyset.orderBy(afterPosition && backward) + " limit ?";
+	}
+
+	/**
+	 * 在以where开头的过滤条件上再加一个and条件
+	 */
+	static String combineFilter(String filter, String condition) {
+		String trimmed = filter == null ? "" : filter.trim();
+		if(condition == null) {
+			return trimmed;
+		}
+		if(trimmed.isEmpty()) {
+			return "where " + condition;
+		}
+		if(!trimmed.regionMatches(true, 0, "where ", 0, 6)) {
+			throw new IllegalArgumentException("filter must start with where: " + filter);
+		}
+		return "where (" + trimmed.substring(6) + ") and " + condition;
+	}
+
+	/**
+	 * 把"select * from ..."换成只查询selectList的语句
+	 */
+	String project(String sql, String selectList) {
+		Map<String, String> bySql = projectedStatements.get(selectList);
+		if(bySql == null) {
+			if(projectedStatements.size() >= MAX_CACHED_STATEMENTS) {
+				return projectedSql(sql, selectList);
+			}
+			bySql = projectedStatements.computeIfAbsent(selectList, l -> new ConcurrentHashMap<>());
+		}
+		String projected = bySql.get(sql);
+		if(projected == null) {
+			projected = projectedSql(sql, selectList);
+			if(bySql.size() < MAX_CACHED_STATEMENTS) {
+				bySql.putIfAbsent(sql, projected);
+			}
+		}
+		return projected;
+	}
+
+	private static String projectedSql(String sql, String selectList) {
+		if(!sql.startsWith("select * ")) {
+			throw new IllegalArgumentException("not a select * statement: " + sql);
+		}
+		return "select " + selectList + sql.substring("select *".length());
+	}
+
+	String selectByIds(int count) {
+		String sql = selectByIdsStatements.get(count);
+		if(sql == null) {
+			StringBuilder builder = new StringBuilder(selectPrefix.length() + 16 + count * 2).append(selectPrefix).append("where id in (");
+			for(int i = 0; i < count; i++) {
+				builder.append(i == 0 ? "?" : ",?");
+			}
+			sql = builder.append(')').toString();
+			if(selectByIdsStatements.size() < MAX_CACHED_STATEMENTS) {
+				selectByIdsStatements.putIfAbsent(count, sql);
+			}
+		}
+		return sql;
+	}
+
+	private static String cached(Map<String, String> statements, String key, String prefix, String suffix) {
+		String sql = statements.get(key);
+		if(sql == null) {
+			sql = prefix + key + suffix;
+			// 动态拼接的条件不缓存，避免无限增长
+			if(statements.size() < MAX_CACHED_STATEMENTS) {
+				statements.putIfAbsent(key, sql);
+			}
+		}
+		return sql;
+	}
+}
@@ -0,0 +1,76 @@
+package com.jtool.db.dao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 表的列名（小写）到java.sql.Types的映射，以及是否MySQL
+ */
+final class TableColumns {
+
+	final Map<String, Integer> types;
+	final boolean mysql;
+
+	TableColumns(Map<String, Integer> types, boolean mysql) {
+		this.types = types;
+		this.mysql = mysql;
+	}
+
+	/**
+	 * 除自增主键id以外的列，即SimpleJdbcInsert的插入列
+	 */
+	String[] insertColumns() {
+		List<String> columns = new ArrayList<>(types.keySet());
+		columns.remove("id");
+		return columns.toArray(new String[columns.size()]);
+	}
+
+	/**
+	 * 编码为"mysql|id:4,name:12"的形式，用于写入元数据快照
+	 */
+	String encode() {
+		StringBuilder sb = new StringBuilder(mysql ? "mysql|" : "other|");
+		for(Map.Entry<String, Integer> entry : types.entrySet()) {
+			if(sb.charAt(sb.length() - 1) != '|') {
+				sb.append(',');
+			}
+			sb.append(entry.getKey()).append(':').append(entry.getValue());
+		}
+		return sb.toString();
+	}
+
+	static TableColumns decode(String encoded) {
+		int separator = encoded.indexOf('|');
+		if(separator < 0) {
+			throw new IllegalArgumentException("invalid table columns: " + encoded);
+		}
+		Map<String, Integer> types = new LinkedHashMap<>();
+		for(String column : encoded.substring(separator + 1).split(",")) {
+			int colon = column.lastIndexOf(':');
+			if(colon <= 0) {
+				throw new IllegalArgumentException("invalid table columns: " + encoded);
+			}
+			types.put(column.substring(0, colon), Integer.valueOf(column.substring(colon + 1)));
+		}
+		return new TableColumns(types, encoded.substring(0, separator).equals("mysql"));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj) {
+			return true;
+		}
+		if(!(obj instanceof TableColumns)) {
+			return false;
+		}
+		TableColumns other = (TableColumns) obj;
+		return mysql == other.mysql && types.equals(other.types);
+	}
+
+	@Override
+	public int hashCode() {
+		return types.hashCode() * 31 + (mysql ? 1 : 0);
+	}
+}
@@ -0,0 +1,207 @@
+package com.jtool.db.dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.jtool.db.export.ExportOptions;
+import com.jtool.db.export.ExportResult;
+import com.jtool.db.export.RowEncoder;
+
+/**
+ * 按主键区间并发导出。每个区间一个读取线程、一个连接、一个FileChannel和一块固定大小的ByteBuffer，
+ * 内存占用与表大小无关。合并输出时先写分段文件，再用transferTo拼接
+ */
+class TableExporter {
+
+	@FunctionalInterface
+	interface RangeReader {
+		/**
+		 * 流式读取 fromInclusive <= id < toExclusive 的行
+		 */
+		void read(long fromInclusive, long toExclusive, RowCallbackHandler handler);
+	}
+
+	private final Logger logger = LoggerFactory.getLogger(TableExporter.class);
+
+	private final String tableName;
+	private final String[] columnLabels;
+	private final RangeReader reader;
+
+	TableExporter(String tableName, String[] columnLabels, RangeReader reader) {
+		this.tableName = tableName;
+		this.columnLabels = columnLabels;
+		this.reader = reader;
+	}
+
+	/**
+	 * merge为true时target为输出文件，否则为输出目录，每个区间一个文件
+	 */
+	ExportResult export(long minId, long maxId, Path target, ExportOptions options) {
+		List<long[]> ranges = IdRanges.split(minId, maxId, options.getRanges());
+		int rangeCount = ranges.size();
+		String header = RowEncoder.forFormat(options.getFormat(), columnLabels).header();
+
+		List<Path> rangeFiles = new ArrayList<>(rangeCount);
+		List<Callable<long[]>> tasks = new ArrayList<>(rangeCount);
+		try {
+			Path directory = options.isMerge() ? target.toAbsolutePath().getParent() : target;
+			Files.createDirectories(directory);
+			for(int i = 0; i < rangeCount; i++) {
+				long from = ranges.get(i)[0];
+				long to = ranges.get(i)[1];
+				Path file = options.isMerge() ? target.resolveSibling(target.getFileName() + String.format(".part-%05d", i))
+						: target.resolve(String.format("%s-%05d%s", tableName, i, options.getFormat().getExtension()));
+				rangeFiles.add(file);
+				tasks.add(() -> exportRange(from, to, file, options, options.isMerge() ? "" : header));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		logger.debug("准备导出{}：{}个区间，{}个线程", tableName, rangeCount, options.getParallelism());
+
+		ExecutorService executor = ParallelExecution.newDaemonPool(Math.min(options.getParallelism(), rangeCount), "export-" + tableName);
+		List<long[]> counts;
+		try {
+			counts = ParallelExecution.invokeAll(executor, tasks);
+		} catch (RuntimeException | Error e) {
+			deleteQuietly(rangeFiles);
+			throw e;
+		} finally {
+			executor.shutdownNow();
+		}
+
+		long rows = 0;
+		long bytes = 0;
+		for(long[] count : counts) {
+			rows += count[0];
+			bytes += count[1];
+		}
+		if(!options.isMerge()) {
+			return new ExportResult(rangeFiles, rows, bytes);
+		}
+		try {
+			bytes = merge(target, header, rangeFiles);
+		} finally {
+			deleteQuietly(rangeFiles);
+		}
+		List<Path> files = new ArrayList<>(1);
+		files.add(target);
+		return new ExportResult(files, rows, bytes);
+	}
+
+	private long[] exportRange(long from, long to, Path file, ExportOptions options, String header) {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ChannelWriter writer = new ChannelWriter(channel, options.getBufferSize());
+			RowEncoder encoder = RowEncoder.forFormat(options.getFormat(), columnLabels);
+			StringBuilder line = new StringBuilder(256);
+			long[] rows = new long[1];
+			writer.write(header);
+			reader.read(from, to, rs -> {
+				line.setLength(0);
+				encoder.encode(rs, line);
+				try {
+					writer.write(line);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				rows[0]++;
+			});
+			writer.flush();
+			logger.debug("导出区间[{}, {})完成，行数：{}", from, to, rows[0]);
+			return new long[] { rows[0], writer.bytes };
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private long merge(Path target, String header, List<Path> rangeFiles) {
+		try(FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer headerBytes = ByteBuffer.wrap(header.getBytes(StandardCharsets.UTF_8));
+			while(headerBytes.hasRemaining()) {
+				out.write(headerBytes);
+			}
+			for(Path file : rangeFiles) {
+				try(FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+					long size = in.size();
+					long position = 0;
+					while(position < size) {
+						position += in.transferTo(position, size - position, out);
+					}
+				}
+			}
+			return out.size();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void deleteQuietly(List<Path> files) {
+		for(Path file : files) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				logger.warn("删除导出临时文件失败：" + file, e);
+			}
+		}
+	}
+
+	/**
+	 * 把文本按UTF-8编码进固定大小的缓冲区，满了才写入channel，每行不再单独分配byte[]
+	 */
+	private static final class ChannelWriter {
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+		long bytes;
+
+		ChannelWriter(FileChannel channel, int bufferSize) {
+			this.channel = channel;
+			this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		}
+
+		void write(CharSequence text) throws IOException {
+			CharBuffer chars = CharBuffer.wrap(text);
+			while(true) {
+				CoderResult result = encoder.encode(chars, buffer, true);
+				if(result.isOverflow()) {
+					drain();
+				} else if(result.isError()) {
+					result.throwException();
+				} else {
+					break;
+				}
+			}
+			encoder.reset();
+		}
+
+		void flush() throws IOException {
+			drain();
+			channel.force(false);
+		}
+
+		private void drain() throws IOException {
+			buffer.flip();
+			while(buffer.hasRemaining()) {
+				bytes += channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package com.jtool.db.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jtool.db.scan.BatchHandler;
+import com.jtool.db.scan.ScanOptions;
+import com.jtool.db.scan.ScanProgress;
+import com.jtool.db.scan.ScanProgressListener;
+import com.jtool.db.scan.ScanResult;
+
+/**
+ * 按主键区间并行扫描。每个区间一个线程，区间内按id升序分批读取，记住最后处理成功的id作为断点，
+ * 出错重试时从断点继续，不必从区间开头重读
+ */
+class TableScanner<T> {
+
+	@FunctionalInterface
+	interface BatchReader<T> {
+		/**
+		 * 读取 fromInclusive <= id < toExclusive 中id最小的limit行，按id升序
+		 */
+		Batch<T> read(long fromInclusive, long toExclusive, int limit);
+	}
+
+	static final class Batch<T> {
+		final List<T> rows;
+		final long lastId;
+
+		Batch(List<T> rows, long lastId) {
+			this.rows = rows;
+			this.lastId = lastId;
+		}
+	}
+
+	private final Logger logger = LoggerFactory.getLogger(TableScanner.class);
+
+	private final String tableName;
+	private final BatchReader<T> reader;
+
+	TableScanner(String tableName, BatchReader<T> reader) {
+		this.tableName = tableName;
+		this.reader = reader;
+	}
+
+	ScanResult scan(long minId, long maxId, ScanOptions options, BatchHandler<T> handler) {
+		long begin = System.nanoTime();
+		List<long[]> splits = IdRanges.split(minId, maxId, options.getSplits());
+		Counters counters = new Counters(splits.size(), begin, options.getProgressListener());
+		List<Callable<Void>> tasks = new ArrayList<>(splits.size());
+		for(long[] split : splits) {
+			tasks.add(() -> {
+				scanSplit(split[0], split[1], options, handler, counters);
+				return null;
+			});
+		}
+		logger.debug("准备扫描{}：{}个区间，{}个线程", tableName, splits.size(), options.getParallelism());
+
+		ExecutorService executor = ParallelExecution.newDaemonPool(Math.min(options.getParallelism(), splits.size()), "scan-" + tableName);
+		try {
+			ParallelExecution.invokeAll(executor, tasks);
+		} finally {
+			executor.shutdownNow();
+		}
+		return new ScanResult(splits.size(), counters.rows.get(), counters.retries.get(), (System.nanoTime() - begin) / 1000000);
+	}
+
+	private void scanSplit(long from, long to, ScanOptions options, BatchHandler<T> handler, Counters counters) {
+		long next = from;
+		int attempts = 0;
+		while(next < to) {
+			if(Thread.currentThread().isInterrupted()) {
+				throw new IllegalStateException("scan of " + tableName + " cancelled");
+			}
+			Batch<T> batch;
+			try {
+				batch = reader.read(next, to, options.getBatchSize());
+				if(!batch.rows.isEmpty()) {
+					handler.handle(batch.rows);
+				}
+			} catch (RuntimeException e) {
+				if(attempts >= options.getMaxRetries()) {
+					throw e;
+				}
+				attempts++;
+				counters.retries.incrementAndGet();
+				logger.warn("扫描" + tableName + "区间[" + next + ", " + to + ")失败，第" + attempts + "次重试", e);
+				backoff(attempts * options.getRetryBackoff());
+				continue;
+			}
+			if(batch.rows.isEmpty()) {
+				break;
+			}
+			counters.batchDone(batch.rows.size());
+			if(batch.rows.size() < options.getBatchSize()) {
+				break;
+			}
+			next = batch.lastId + 1;
+		}
+		counters.splitDone();
+		logger.debug("扫描区间[{}, {})完成", from, to);
+	}
+
+	private void backoff(long millis) {
+		if(millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting to retry scan of " + tableName, e);
+		}
+	}
+
+	private static final class Counters {
+		final AtomicInteger completedSplits = new AtomicInteger();
+		final AtomicLong rows = new AtomicLong();
+		final AtomicInteger retries = new AtomicInteger();
+		final int totalSplits;
+		final long begin;
+		final ScanProgressListener listener;
+
+		Counters(int totalSplits, long begin, ScanProgressListener listener) {
+			this.totalSplits = totalSplits;
+			this.begin = begin;
+			this.listener = listener;
+		}
+
+		void batchDone(int batchRows) {
+			long processedRows = rows.addAndGet(batchRows);
+			report(completedSplits.get(), processedRows);
+		}
+
+		void splitDone() {
+			int completed = completedSplits.incrementAndGet();
+			report(completed, rows.get());
+		}
+
+		private void report(int completed, long processedRows) {
+			if(listener != null) {
+				listener.onProgress(new ScanProgress(completed, totalSplits, processedRows, (System.nanoTime() - begin) / 1000000));
+			}
+		}
+	}
+}
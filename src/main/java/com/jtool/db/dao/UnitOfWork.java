@@ -0,0 +1,146 @@
+package com.jtool.db.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 把当前线程里各DAO的addDeferred/execUpdateDeferred/deleteByIdDeferred先记录下来，
+ * commit时在一个事务里按批执行。相邻的同一DAO、同一语句合成一个JDBC batch，
+ * 语句之间的先后顺序保持不变，后插入的记录依赖先插入的记录时不会被提前执行。
+ * 所有写入必须属于同一个数据源；未commit就close的写入会被丢弃。
+ *
+ * <pre>
+ * try(UnitOfWork unitOfWork = UnitOfWork.begin()) {
+ *     orderDAO.addDeferred(order);
+ *     stockDAO.execUpdateDeferred("update stock set count = count - ? where id = ?", 1, stockId);
+ *     unitOfWork.commit();
+ * }
+ * </pre>
+ */
+public final class UnitOfWork implements AutoCloseable {
+
+	private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+	private final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+
+	private final List<PendingBatch> batches = new ArrayList<>();
+	private DataSource dataSource;
+	private int pendingCount;
+	private boolean closed;
+
+	private UnitOfWork() {
+	}
+
+	public static UnitOfWork begin() {
+		if(CURRENT.get() != null) {
+			throw new IllegalStateException("a unit of work is already active on this thread");
+		}
+		UnitOfWork unitOfWork = new UnitOfWork();
+		CURRENT.set(unitOfWork);
+		return unitOfWork;
+	}
+
+	static UnitOfWork current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * sql为null表示插入，item为待插入对象；否则item为语句参数
+	 */
+	void record(AbstractDAO dao, String method, String sql, Object item) {
+		if(dataSource == null) {
+			dataSource = dao.dataSource;
+		} else if(dataSource != dao.dataSource) {
+			throw new IllegalStateException("unit of work cannot span data sources, " + dao.getClass().getName() + " uses another one");
+		}
+		PendingBatch last = batches.isEmpty() ? null : batches.get(batches.size() - 1);
+		if(last == null || !last.matches(dao, method, sql)) {
+			last = new PendingBatch(dao, method, sql);
+			batches.add(last);
+		}
+		last.items.add(item);
+		pendingCount++;
+	}
+
+	/**
+	 * 按记录顺序逐批执行，没有外层事务时开启一个新事务。执行失败时事务回滚，已记录的写入全部丢弃
+	 */
+	public void commit() {
+		if(closed) {
+			throw new IllegalStateException("unit of work is closed");
+		}
+		if(batches.isEmpty()) {
+			return;
+		}
+		logger.debug("准备提交UnitOfWork：{}条写入，{}个批次", pendingCount, batches.size());
+		List<PendingBatch> flushing = new ArrayList<>(batches);
+		batches.clear();
+		pendingCount = 0;
+		if(TransactionSynchronizationManager.isActualTransactionActive()) {
+			flush(flushing);
+		} else {
+			new TransactionTemplate(new DataSourceTransactionManager(dataSource)).execute(status -> {
+				flush(flushing);
+				return null;
+			});
+		}
+		logger.debug("UnitOfWork提交成功");
+	}
+
+	private void flush(List<PendingBatch> flushing) {
+		for(PendingBatch batch : flushing) {
+			if(batch.sql == null) {
+				batch.dao.flushDeferredInserts(batch.items);
+			} else {
+				List<Object[]> args = new ArrayList<>(batch.items.size());
+				for(Object item : batch.items) {
+					args.add((Object[]) item);
+				}
+				batch.dao.flushDeferredUpdates(batch.method, batch.sql, args);
+			}
+		}
+	}
+
+	public int getPendingCount() {
+		return pendingCount;
+	}
+
+	@Override
+	public void close() {
+		if(closed) {
+			return;
+		}
+		closed = true;
+		CURRENT.remove();
+		if(pendingCount > 0) {
+			logger.debug("UnitOfWork未提交，丢弃{}条写入", pendingCount);
+			batches.clear();
+			pendingCount = 0;
+		}
+	}
+
+	private static final class PendingBatch {
+		final AbstractDAO dao;
+		final String method;
+		final String sql;
+		final List<Object> items = new ArrayList<>();
+
+		PendingBatch(AbstractDAO dao, String method, String sql) {
+			this.dao = dao;
+			this.method = method;
+			this.sql = sql;
+		}
+
+		boolean matches(AbstractDAO otherDao, String otherMethod, String otherSql) {
+			return dao == otherDao && method.equals(otherMethod) && (sql == null ? otherSql == null : sql.equals(otherSql));
+		}
+	}
+}
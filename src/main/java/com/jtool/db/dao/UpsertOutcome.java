@@ -0,0 +1,8 @@
+package com.jtool.db.dao;
+
+/**
+ * upsertAll每一行的结果。MySQL开启rewriteBatchedStatements时驱动不返回每行的影响行数，结果为UNKNOWN
+ */
+public enum UpsertOutcome {
+	INSERTED, UPDATED, UNCHANGED, UNKNOWN
+}
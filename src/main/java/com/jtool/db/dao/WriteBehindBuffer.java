@@ -0,0 +1,215 @@
+package com.jtool.db.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jtool.db.exception.WriteBehindQueueFullException;
+
+/**
+ * 有界写队列加一个后台线程，攒够batchSize或等满flushInterval后整批写入。
+ * flush()和shutdown()通过往队列里放标记对象实现，所有写入都只在后台线程执行。
+ */
+class WriteBehindBuffer {
+
+	private static final long FLUSH_CHECK_INTERVAL_MILLIS = 100;
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	private final String name;
+	private final BlockingQueue<Object> queue;
+	private final int batchSize;
+	private final long flushIntervalNanos;
+	private final long offerTimeoutMillis;
+	private final Consumer<List<Object>> writer;
+	private final int maxRetries;
+	private final long retryBackoffMillis;
+	private final WriteBehindFailureHandler failureHandler;
+	private final Thread flusher;
+
+	private final AtomicLong enqueuedCount = new AtomicLong();
+	private final AtomicLong rejectedCount = new AtomicLong();
+	private volatile long flushCount;
+	private volatile long flushedRows;
+	private volatile long failedRows;
+	private volatile long lastFlushMillis;
+	private volatile long maxFlushMillis;
+	private volatile long totalFlushMillis;
+
+	private volatile boolean running = true;
+
+	WriteBehindBuffer(String name, int queueCapacity, int batchSize, long flushIntervalMillis, long offerTimeoutMillis,
+			Consumer<List<Object>> writer, int maxRetries, long retryBackoffMillis, WriteBehindFailureHandler failureHandler) {
+		this.name = name;
+		this.queue = new LinkedBlockingQueue<>(queueCapacity);
+		this.batchSize = batchSize;
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+		this.offerTimeoutMillis = offerTimeoutMillis;
+		this.writer = writer;
+		this.maxRetries = maxRetries;
+		this.retryBackoffMillis = retryBackoffMillis;
+		this.failureHandler = failureHandler;
+		this.flusher = new Thread(this::run, "write-behind-" + name);
+		this.flusher.setDaemon(true);
+		this.flusher.start();
+	}
+
+	void add(Object object) {
+		if(!running) {
+			throw new IllegalStateException("write-behind buffer of " + name + " is shut down");
+		}
+		try {
+			if(!queue.offer(object, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				rejectedCount.incrementAndGet();
+				throw new WriteBehindQueueFullException();
+			}
+			enqueuedCount.incrementAndGet();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new WriteBehindQueueFullException();
+		}
+	}
+
+	void flush() {
+		if(!flusher.isAlive()) {
+			return;
+		}
+		Barrier barrier = new Barrier();
+		try {
+			queue.put(barrier);
+			// 与shutdown并发时后台线程可能已经退出，不能无限等待
+			while(!barrier.latch.await(FLUSH_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+				if(!flusher.isAlive()) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	void shutdown(long timeoutMillis) {
+		if(!running) {
+			return;
+		}
+		running = false;
+		try {
+			queue.put(new Barrier());
+			flusher.join(timeoutMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if(flusher.isAlive()) {
+			logger.warn("关闭" + name + "的延迟写队列超时，剩余未写入条数：" + queue.size());
+		}
+	}
+
+	WriteBehindStats stats() {
+		return new WriteBehindStats(queue.size(), enqueuedCount.get(), rejectedCount.get(), flushCount, flushedRows, failedRows,
+				lastFlushMillis, maxFlushMillis, totalFlushMillis);
+	}
+
+	private void run() {
+		List<Object> batch = new ArrayList<>(batchSize);
+		while(running || !queue.isEmpty()) {
+			try {
+				Object item = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+				long deadline = System.nanoTime() + flushIntervalNanos;
+				while(item != null) {
+					if(item instanceof Barrier) {
+						write(batch);
+						((Barrier) item).latch.countDown();
+						break;
+					}
+					batch.add(item);
+					if(batch.size() >= batchSize) {
+						write(batch);
+						deadline = System.nanoTime() + flushIntervalNanos;
+					}
+					long remaining = deadline - System.nanoTime();
+					item = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+				}
+				write(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		// 关闭时队列里剩下的对象照常写入，flush()放入的标记直接放行
+		for(Object item = queue.poll(); item != null; item = queue.poll()) {
+			if(item instanceof Barrier) {
+				((Barrier) item).latch.countDown();
+			} else {
+				batch.add(item);
+			}
+		}
+		write(batch);
+	}
+
+	private void write(List<Object> batch) {
+		if(batch.isEmpty()) {
+			return;
+		}
+		long begin = System.nanoTime();
+		try {
+			writeWithRetries(batch);
+			flushedRows += batch.size();
+		} catch (RuntimeException e) {
+			failedRows += batch.size();
+			deadLetter(batch, e);
+		} finally {
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+			flushCount++;
+			lastFlushMillis = elapsed;
+			maxFlushMillis = Math.max(maxFlushMillis, elapsed);
+			totalFlushMillis += elapsed;
+			batch.clear();
+		}
+	}
+
+	private void writeWithRetries(List<Object> batch) {
+		for(int attempt = 0;; attempt++) {
+			try {
+				writer.accept(batch);
+				return;
+			} catch (RuntimeException e) {
+				if(attempt >= maxRetries || Thread.currentThread().isInterrupted()) {
+					throw e;
+				}
+				long backoff = retryBackoffMillis << Math.min(attempt, 20);
+				logger.warn("延迟写入" + name + "失败，" + backoff + "ms后第" + (attempt + 1) + "次重试，条数：" + batch.size(), e);
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
+	private void deadLetter(List<Object> batch, RuntimeException cause) {
+		if(failureHandler == null) {
+			logger.error("延迟写入" + name + "失败，丢弃条数：" + batch.size(), cause);
+			return;
+		}
+		try {
+			failureHandler.onFailure(name, new ArrayList<>(batch), cause);
+		} catch (RuntimeException e) {
+			e.addSuppressed(cause);
+			logger.error("延迟写入" + name + "失败且失败处理出错，丢弃条数：" + batch.size(), e);
+		}
+	}
+
+	private static final class Barrier {
+		final CountDownLatch latch = new CountDownLatch(1);
+	}
+}
@@ -0,0 +1,12 @@
+package com.jtool.db.dao;
+
+import java.util.List;
+
+/**
+ * 延迟写入重试用尽后接收整批写失败的对象，例如转存到死信表或消息队列。
+ * 在后台写线程里调用，抛出的异常只记录日志
+ */
+public interface WriteBehindFailureHandler {
+
+	void onFailure(String tableName, List<Object> rows, RuntimeException cause);
+}
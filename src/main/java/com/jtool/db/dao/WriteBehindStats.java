@@ -0,0 +1,70 @@
+package com.jtool.db.dao;
+
+public final class WriteBehindStats {
+
+	private final int queueDepth;
+	private final long enqueuedCount;
+	private final long rejectedCount;
+	private final long flushCount;
+	private final long flushedRows;
+	private final long failedRows;
+	private final long lastFlushMillis;
+	private final long maxFlushMillis;
+	private final long totalFlushMillis;
+
+	WriteBehindStats(int queueDepth, long enqueuedCount, long rejectedCount, long flushCount, long flushedRows, long failedRows,
+			long lastFlushMillis, long maxFlushMillis, long totalFlushMillis) {
+		this.queueDepth = queueDepth;
+		this.enqueuedCount = enqueuedCount;
+		this.rejectedCount = rejectedCount;
+		this.flushCount = flushCount;
+		this.flushedRows = flushedRows;
+		this.failedRows = failedRows;
+		this.lastFlushMillis = lastFlushMillis;
+		this.maxFlushMillis = maxFlushMillis;
+		this.totalFlushMillis = totalFlushMillis;
+	}
+
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+
+	public long getEnqueuedCount() {
+		return enqueuedCount;
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+
+	public long getFlushCount() {
+		return flushCount;
+	}
+
+	public long getFlushedRows() {
+		return flushedRows;
+	}
+
+	public long getFailedRows() {
+		return failedRows;
+	}
+
+	public long getLastFlushMillis() {
+		return lastFlushMillis;
+	}
+
+	public long getMaxFlushMillis() {
+		return maxFlushMillis;
+	}
+
+	public double getAverageFlushMillis() {
+		return flushCount == 0 ? 0 : (double) totalFlushMillis / flushCount;
+	}
+
+	@Override
+	public String toString() {
+		return "WriteBehindStats [queueDepth=" + queueDepth + ", enqueuedCount=" + enqueuedCount + ", rejectedCount=" + rejectedCount
+				+ ", flushCount=" + flushCount + ", flushedRows=" + flushedRows + ", failedRows=" + failedRows + ", lastFlushMillis="
+				+ lastFlushMillis + ", maxFlushMillis=" + maxFlushMillis + "]";
+	}
+}
@@ -0,0 +1,10 @@
+package com.jtool.db.delete;
+
+/**
+ * 每删除一批回调一次。抛出异常会终止后续批次，已删除的批次不会回滚
+ */
+@FunctionalInterface
+public interface ChunkedDeleteListener {
+
+	void onChunk(int chunkRows, long totalDeleted);
+}
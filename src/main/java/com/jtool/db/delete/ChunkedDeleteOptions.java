@@ -0,0 +1,59 @@
+package com.jtool.db.delete;
+
+/**
+ * 分批删除参数，不可变，withXxx返回新对象。
+ * chunkSize为每条delete语句最多删除的行数，pauseMillis为两批之间的固定间隔，
+ * maxRowsPerSecond大于0时按平均删除速度限流，两者可以同时使用
+ */
+public final class ChunkedDeleteOptions {
+
+	private final int chunkSize;
+	private final long pauseMillis;
+	private final int maxRowsPerSecond;
+	private final ChunkedDeleteListener listener;
+
+	private ChunkedDeleteOptions(int chunkSize, long pauseMillis, int maxRowsPerSecond, ChunkedDeleteListener listener) {
+		if(chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive");
+		}
+		if(pauseMillis < 0 || maxRowsPerSecond < 0) {
+			throw new IllegalArgumentException("pauseMillis and maxRowsPerSecond must not be negative");
+		}
+		this.chunkSize = chunkSize;
+		this.pauseMillis = pauseMillis;
+		this.maxRowsPerSecond = maxRowsPerSecond;
+		this.listener = listener;
+	}
+
+	public static ChunkedDeleteOptions of(int chunkSize) {
+		return new ChunkedDeleteOptions(chunkSize, 0, 0, null);
+	}
+
+	public ChunkedDeleteOptions withPause(long pauseMillis) {
+		return new ChunkedDeleteOptions(chunkSize, pauseMillis, maxRowsPerSecond, listener);
+	}
+
+	public ChunkedDeleteOptions withMaxRowsPerSecond(int maxRowsPerSecond) {
+		return new ChunkedDeleteOptions(chunkSize, pauseMillis, maxRowsPerSecond, listener);
+	}
+
+	public ChunkedDeleteOptions withListener(ChunkedDeleteListener listener) {
+		return new ChunkedDeleteOptions(chunkSize, pauseMillis, maxRowsPerSecond, listener);
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public long getPauseMillis() {
+		return pauseMillis;
+	}
+
+	public int getMaxRowsPerSecond() {
+		return maxRowsPerSecond;
+	}
+
+	public ChunkedDeleteListener getListener() {
+		return listener;
+	}
+}
@@ -0,0 +1,5 @@
+package com.jtool.db.exception;
+
+public class InvalidContinuationTokenException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+}
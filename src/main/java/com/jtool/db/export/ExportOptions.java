@@ -0,0 +1,67 @@
+package com.jtool.db.export;
+
+/**
+ * 导出参数，不可变，withXxx返回新对象。
+ * ranges为按主键切分的区间数，parallelism为同时读取的区间数（即占用的连接数），
+ * merge为true时导出到一个文件，否则每个区间一个文件
+ */
+public final class ExportOptions {
+
+	private final ExportFormat format;
+	private final int parallelism;
+	private final int ranges;
+	private final boolean merge;
+	private final int bufferSize;
+
+	private ExportOptions(ExportFormat format, int parallelism, int ranges, boolean merge, int bufferSize) {
+		if(parallelism <= 0 || ranges <= 0 || bufferSize <= 0) {
+			throw new IllegalArgumentException("parallelism, ranges and bufferSize must be positive");
+		}
+		this.format = format;
+		this.parallelism = parallelism;
+		this.ranges = ranges;
+		this.merge = merge;
+		this.bufferSize = bufferSize;
+	}
+
+	public static ExportOptions of(ExportFormat format) {
+		int cores = Runtime.getRuntime().availableProcessors();
+		return new ExportOptions(format, cores, cores * 4, true, 256 * 1024);
+	}
+
+	public ExportOptions withParallelism(int parallelism) {
+		return new ExportOptions(format, parallelism, ranges, merge, bufferSize);
+	}
+
+	public ExportOptions withRanges(int ranges) {
+		return new ExportOptions(format, parallelism, ranges, merge, bufferSize);
+	}
+
+	public ExportOptions withMerge(boolean merge) {
+		return new ExportOptions(format, parallelism, ranges, merge, bufferSize);
+	}
+
+	public ExportOptions withBufferSize(int bufferSize) {
+		return new ExportOptions(format, parallelism, ranges, merge, bufferSize);
+	}
+
+	public ExportFormat getFormat() {
+		return format;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public int getRanges() {
+		return ranges;
+	}
+
+	public boolean isMerge() {
+		return merge;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+}
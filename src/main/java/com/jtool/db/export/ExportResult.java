@@ -0,0 +1,35 @@
+package com.jtool.db.export;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+public final class ExportResult {
+
+	private final List<Path> files;
+	private final long rowCount;
+	private final long byteCount;
+
+	public ExportResult(List<Path> files, long rowCount, long byteCount) {
+		this.files = Collections.unmodifiableList(files);
+		this.rowCount = rowCount;
+		this.byteCount = byteCount;
+	}
+
+	public List<Path> getFiles() {
+		return files;
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	public long getByteCount() {
+		return byteCount;
+	}
+
+	@Override
+	public String toString() {
+		return "ExportResult [files=" + files.size() + ", rowCount=" + rowCount + ", byteCount=" + byteCount + "]";
+	}
+}
@@ -0,0 +1,151 @@
+package com.jtool.db.export;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Base64;
+
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * 把ResultSet的当前行编码成一行文本追加到StringBuilder，包括行尾换行符。
+ * 不是线程安全的，每个读取线程一个实例
+ */
+public abstract class RowEncoder {
+
+	protected final String[] columnLabels;
+
+	protected RowEncoder(String[] columnLabels) {
+		this.columnLabels = columnLabels;
+	}
+
+	public static RowEncoder forFormat(ExportFormat format, String[] columnLabels) {
+		return format == ExportFormat.CSV ? new CsvRowEncoder(columnLabels) : new JsonLinesRowEncoder(columnLabels);
+	}
+
+	/**
+	 * 文件头，没有时返回空字符串
+	 */
+	public abstract String header();
+
+	public abstract void encode(ResultSet rs, StringBuilder out) throws SQLException;
+
+	static final class CsvRowEncoder extends RowEncoder {
+
+		CsvRowEncoder(String[] columnLabels) {
+			super(columnLabels);
+		}
+
+		@Override
+		public String header() {
+			StringBuilder out = new StringBuilder();
+			for(int i = 0; i < columnLabels.length; i++) {
+				if(i > 0) {
+					out.append(',');
+				}
+				appendField(columnLabels[i], out);
+			}
+			return out.append('\n').toString();
+		}
+
+		@Override
+		public void encode(ResultSet rs, StringBuilder out) throws SQLException {
+			for(int i = 0; i < columnLabels.length; i++) {
+				if(i > 0) {
+					out.append(',');
+				}
+				Object value = JdbcUtils.getResultSetValue(rs, i + 1);
+				if(value != null) {
+					appendField(value instanceof byte[] ? Base64.getEncoder().encodeToString((byte[]) value) : value.toString(), out);
+				}
+			}
+			out.append('\n');
+		}
+
+		private static void appendField(String value, StringBuilder out) {
+			boolean quote = false;
+			for(int i = 0; i < value.length() && !quote; i++) {
+				char c = value.charAt(i);
+				quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+			}
+			if(!quote) {
+				out.append(value);
+				return;
+			}
+			out.append('"');
+			for(int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if(c == '"') {
+					out.append('"');
+				}
+				out.append(c);
+			}
+			out.append('"');
+		}
+	}
+
+	static final class JsonLinesRowEncoder extends RowEncoder {
+
+		JsonLinesRowEncoder(String[] columnLabels) {
+			super(columnLabels);
+		}
+
+		@Override
+		public String header() {
+			return "";
+		}
+
+		@Override
+		public void encode(ResultSet rs, StringBuilder out) throws SQLException {
+			out.append('{');
+			for(int i = 0; i < columnLabels.length; i++) {
+				if(i > 0) {
+					out.append(',');
+				}
+				appendString(columnLabels[i], out);
+				out.append(':');
+				Object value = JdbcUtils.getResultSetValue(rs, i + 1);
+				if(value == null) {
+					out.append("null");
+				} else if(value instanceof Number || value instanceof Boolean) {
+					out.append(value);
+				} else if(value instanceof byte[]) {
+					appendString(Base64.getEncoder().encodeToString((byte[]) value), out);
+				} else {
+					appendString(value.toString(), out);
+				}
+			}
+			out.append("}\n");
+		}
+
+		private static void appendString(String value, StringBuilder out) {
+			out.append('"');
+			for(int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				switch(c) {
+				case '"':
+					out.append("\\\"");
+					break;
+				case '\\':
+					out.append("\\\\");
+					break;
+				case '\n':
+					out.append("\\n");
+					break;
+				case '\r':
+					out.append("\\r");
+					break;
+				case '\t':
+					out.append("\\t");
+					break;
+				default:
+					if(c < 0x20) {
+						out.append(String.format("\\u%04x", (int) c));
+					} else {
+						out.append(c);
+					}
+				}
+			}
+			out.append('"');
+		}
+	}
+}
@@ -0,0 +1,10 @@
+package com.jtool.db.id;
+
+/**
+ * 主键分配器，nextId会被多个线程并发调用
+ */
+@FunctionalInterface
+public interface IdAllocator {
+
+	long nextId();
+}
@@ -0,0 +1,102 @@
+package com.jtool.db.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 号段分配器。在独立事务里把序列表的next_id加上blockSize，预留[next_id - blockSize, next_id)这一段，
+ * 之后在内存里用CAS分配，号段用完时才再访问数据库。多个进程共用同一行序列互不重复；
+ * 进程重启时未用完的号段会被跳过，id不连续。
+ * 序列行不存在时以initialValue（通常是表里现有的max(id) + 1）为起点插入
+ */
+public class SegmentIdAllocator implements IdAllocator {
+
+	private final Logger logger = LoggerFactory.getLogger(SegmentIdAllocator.class);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final String sequenceName;
+	private final int blockSize;
+	private final LongSupplier initialValue;
+
+	private final String reserveSql;
+	private final String selectSql;
+	private final String insertSql;
+
+	private volatile Segment segment = new Segment(0, 0);
+
+	public SegmentIdAllocator(DataSource dataSource, String sequenceTable, String sequenceName, int blockSize, LongSupplier initialValue) {
+		if(blockSize <= 0) {
+			throw new IllegalArgumentException("blockSize must be positive");
+		}
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.sequenceName = sequenceName;
+		this.blockSize = blockSize;
+		this.initialValue = initialValue;
+		this.reserveSql = "update " + sequenceTable + " set next_id = next_id + ? where name = ?";
+		this.selectSql = "select next_id from " + sequenceTable + " where name = ?";
+		this.insertSql = "insert into " + sequenceTable + " (name, next_id) values (?, ?)";
+	}
+
+	@Override
+	public long nextId() {
+		while(true) {
+			Segment current = segment;
+			long id = current.next.getAndIncrement();
+			if(id < current.end) {
+				return id;
+			}
+			synchronized(this) {
+				if(segment == current) {
+					segment = reserve();
+				}
+			}
+		}
+	}
+
+	/**
+	 * 预留号段的事务与调用方的事务无关，调用方回滚时号段不会被重复分配
+	 */
+	private Segment reserve() {
+		Segment reserved = transactionTemplate.execute(status -> {
+			if(jdbcTemplate.update(reserveSql, blockSize, sequenceName) == 0) {
+				long start = initialValue.getAsLong();
+				try {
+					jdbcTemplate.update(insertSql, sequenceName, start + blockSize);
+					return new Segment(start, start + blockSize);
+				} catch (DuplicateKeyException e) {
+					logger.debug("序列{}已由其他进程创建", sequenceName);
+					jdbcTemplate.update(reserveSql, blockSize, sequenceName);
+				}
+			}
+			long end = jdbcTemplate.queryForObject(selectSql, Long.class, sequenceName);
+			return new Segment(end - blockSize, end);
+		});
+		logger.debug("序列{}预留号段：[{}, {})", sequenceName, reserved.start, reserved.end);
+		return reserved;
+	}
+
+	private static final class Segment {
+		final long start;
+		final long end;
+		final AtomicLong next;
+
+		Segment(long start, long end) {
+			this.start = start;
+			this.end = end;
+			this.next = new AtomicLong(start);
+		}
+	}
+}
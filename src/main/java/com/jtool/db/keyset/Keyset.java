@@ -0,0 +1,136 @@
+package com.jtool.db.keyset;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * keyset分页的排序列，按声明顺序组成复合排序键，每列可以单独指定升序或降序。
+ * 排序键必须能唯一确定一行且不能为null，没有包含唯一列时用tieBreaker补充。
+ */
+public final class Keyset {
+
+	private static final Pattern COLUMN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+
+	private final List<String> columns;
+	private final List<Boolean> ascendings;
+
+	private Keyset(List<String> columns, List<Boolean> ascendings) {
+		this.columns = Collections.unmodifiableList(columns);
+		this.ascendings = Collections.unmodifiableList(ascendings);
+	}
+
+	public static Keyset asc(String column) {
+		return new Keyset(new ArrayList<>(), new ArrayList<>()).then(column, true);
+	}
+
+	public static Keyset desc(String column) {
+		return new Keyset(new ArrayList<>(), new ArrayList<>()).then(column, false);
+	}
+
+	public Keyset thenAsc(String column) {
+		return then(column, true);
+	}
+
+	public Keyset thenDesc(String column) {
+		return then(column, false);
+	}
+
+	public Keyset withTieBreaker(String column) {
+		for(String c : columns) {
+			if(c.equalsIgnoreCase(column) || c.toLowerCase().endsWith("." + column.toLowerCase())) {
+				return this;
+			}
+		}
+		return then(column, ascendings.get(ascendings.size() - 1));
+	}
+
+	public int size() {
+		return columns.size();
+	}
+
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	public String getColumnLabel(int i) {
+		String column = columns.get(i);
+		int dot = column.indexOf('.');
+		return dot < 0 ? column : column.substring(dot + 1);
+	}
+
+	public String orderBy(boolean reverse) {
+		StringBuilder sb = new StringBuilder("order by ");
+		for(int i = 0; i < columns.size(); i++) {
+			if(i > 0) {
+				sb.append(", ");
+			}
+			sb.append(columns.get(i)).append(ascendings.get(i) != reverse ? " asc" : " desc");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 生成"位于给定位置之后"的条件：k1 op ? and (k1 op ? or (k1 = ? and k2 op ?) or ...)，
+	 * 第一部分让MySQL可以在首列上使用范围扫描
+	 */
+	public String predicate(boolean reverse) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(columns.get(0)).append(operator(0, reverse)).append("= ? and (");
+		for(int i = 0; i < columns.size(); i++) {
+			if(i > 0) {
+				sb.append(" or ");
+			}
+			sb.append("(");
+			for(int j = 0; j < i; j++) {
+				sb.append(columns.get(j)).append(" = ? and ");
+			}
+			sb.append(columns.get(i)).append(operator(i, reverse)).append(" ?)");
+		}
+		return sb.append(")").toString();
+	}
+
+	public List<Object> predicateArgs(Object[] values) {
+		List<Object> args = new ArrayList<>();
+		args.add(values[0]);
+		for(int i = 0; i < values.length; i++) {
+			for(int j = 0; j <= i; j++) {
+				args.add(values[j]);
+			}
+		}
+		return args;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj) {
+			return true;
+		}
+		if(!(obj instanceof Keyset)) {
+			return false;
+		}
+		Keyset other = (Keyset) obj;
+		return columns.equals(other.columns) && ascendings.equals(other.ascendings);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * columns.hashCode() + ascendings.hashCode();
+	}
+
+	private String operator(int i, boolean reverse) {
+		return ascendings.get(i) != reverse ? " >" : " <";
+	}
+
+	private Keyset then(String column, boolean ascending) {
+		if(column == null || !COLUMN.matcher(column).matches()) {
+			throw new IllegalArgumentException("Illegal keyset column: " + column);
+		}
+		List<String> newColumns = new ArrayList<>(columns);
+		List<Boolean> newAscendings = new ArrayList<>(ascendings);
+		newColumns.add(column);
+		newAscendings.add(ascending);
+		return new Keyset(newColumns, newAscendings);
+	}
+}
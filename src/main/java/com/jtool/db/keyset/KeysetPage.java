@@ -0,0 +1,41 @@
+package com.jtool.db.keyset;
+
+import java.util.List;
+
+public final class KeysetPage<T> {
+
+	private final List<T> items;
+	private final String nextToken;
+	private final String previousToken;
+
+	public KeysetPage(List<T> items, String nextToken, String previousToken) {
+		this.items = items;
+		this.nextToken = nextToken;
+		this.previousToken = previousToken;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public String getNextToken() {
+		return nextToken;
+	}
+
+	public String getPreviousToken() {
+		return previousToken;
+	}
+
+	public boolean hasNext() {
+		return nextToken != null;
+	}
+
+	public boolean hasPrevious() {
+		return previousToken != null;
+	}
+
+	@Override
+	public String toString() {
+		return "KeysetPage [items=" + items + ", nextToken=" + nextToken + ", previousToken=" + previousToken + "]";
+	}
+}
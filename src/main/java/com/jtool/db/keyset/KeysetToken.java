@@ -0,0 +1,120 @@
+package com.jtool.db.keyset;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+import com.jtool.db.exception.InvalidContinuationTokenException;
+
+/**
+ * 续页标记，记录翻页方向和边界行的排序键值。
+ * 只按类型标记还原少数基本类型，不做Java反序列化，客户端传回的内容不可信。
+ */
+public final class KeysetToken {
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private final boolean backward;
+	private final Object[] values;
+
+	public KeysetToken(boolean backward, Object[] values) {
+		this.backward = backward;
+		this.values = values;
+	}
+
+	public boolean isBackward() {
+		return backward;
+	}
+
+	public Object[] getValues() {
+		return values;
+	}
+
+	public String encode() {
+		StringBuilder sb = new StringBuilder(backward ? "B" : "F");
+		for(Object value : values) {
+			sb.append('.').append(tag(value)).append(ENCODER.encodeToString(text(value).getBytes(StandardCharsets.UTF_8)));
+		}
+		return sb.toString();
+	}
+
+	public static KeysetToken decode(String token, int expectedSize) {
+		String[] parts = token.split("\\.", -1);
+		if(parts.length != expectedSize + 1 || !("F".equals(parts[0]) || "B".equals(parts[0]))) {
+			throw new InvalidContinuationTokenException();
+		}
+		Object[] values = new Object[expectedSize];
+		try {
+			for(int i = 0; i < expectedSize; i++) {
+				String part = parts[i + 1];
+				if(part.isEmpty()) {
+					throw new InvalidContinuationTokenException();
+				}
+				String text = new String(DECODER.decode(part.substring(1)), StandardCharsets.UTF_8);
+				values[i] = parse(part.charAt(0), text);
+			}
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new InvalidContinuationTokenException();
+		}
+		return new KeysetToken("B".equals(parts[0]), values);
+	}
+
+	private static char tag(Object value) {
+		if(value instanceof String) {
+			return 's';
+		} else if(value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return 'i';
+		} else if(value instanceof Long) {
+			return 'l';
+		} else if(value instanceof BigDecimal) {
+			return 'd';
+		} else if(value instanceof Double || value instanceof Float) {
+			return 'f';
+		} else if(value instanceof Timestamp) {
+			return 't';
+		} else if(value instanceof java.sql.Date) {
+			return 'D';
+		} else if(value instanceof Boolean) {
+			return 'b';
+		}
+		throw new IllegalArgumentException("Unsupported keyset value: " + (value == null ? null : value.getClass()));
+	}
+
+	private static String text(Object value) {
+		if(value instanceof Timestamp) {
+			Timestamp ts = (Timestamp) value;
+			return ts.getTime() + ":" + ts.getNanos();
+		} else if(value instanceof java.sql.Date) {
+			return String.valueOf(((java.sql.Date) value).getTime());
+		}
+		return value.toString();
+	}
+
+	private static Object parse(char tag, String text) {
+		switch(tag) {
+		case 's':
+			return text;
+		case 'i':
+			return Integer.valueOf(text);
+		case 'l':
+			return Long.valueOf(text);
+		case 'd':
+			return new BigDecimal(text);
+		case 'f':
+			return Double.valueOf(text);
+		case 't':
+			String[] ts = text.split(":");
+			Timestamp timestamp = new Timestamp(Long.parseLong(ts[0]));
+			timestamp.setNanos(Integer.parseInt(ts[1]));
+			return timestamp;
+		case 'D':
+			return new java.sql.Date(Long.parseLong(text));
+		case 'b':
+			return Boolean.valueOf(text);
+		default:
+			throw new InvalidContinuationTokenException();
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.jtool.db.mapping;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.support.JdbcUtils;
+
+@FunctionalInterface
+interface ColumnReader {
+
+	Object read(ResultSet rs, int index) throws SQLException;
+
+	static ColumnReader forType(Class<?> type) {
+		if(type == int.class) {
+			return ResultSet::getInt;
+		} else if(type == Integer.class) {
+			return (rs, index) -> {
+				int value = rs.getInt(index);
+				return rs.wasNull() ? null : value;
+			};
+		} else if(type == long.class) {
+			return ResultSet::getLong;
+		} else if(type == Long.class) {
+			return (rs, index) -> {
+				long value = rs.getLong(index);
+				return rs.wasNull() ? null : value;
+			};
+		} else if(type == String.class) {
+			return ResultSet::getString;
+		} else if(type == double.class) {
+			return ResultSet::getDouble;
+		} else if(type == Double.class) {
+			return (rs, index) -> {
+				double value = rs.getDouble(index);
+				return rs.wasNull() ? null : value;
+			};
+		} else if(type == boolean.class) {
+			return ResultSet::getBoolean;
+		} else if(type == Boolean.class) {
+			return (rs, index) -> {
+				boolean value = rs.getBoolean(index);
+				return rs.wasNull() ? null : value;
+			};
+		} else if(type == BigDecimal.class) {
+			return ResultSet::getBigDecimal;
+		}
+		return (rs, index) -> JdbcUtils.getResultSetValue(rs, index, type);
+	}
+}
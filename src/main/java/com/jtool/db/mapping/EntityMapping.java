@@ -0,0 +1,188 @@
+package com.jtool.db.mapping;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * 实体类的映射元数据，启动时一次性把构造器和setter/getter解析成MethodHandle，
+ * 并按结果集的列组成缓存列下标到属性的绑定，运行时不再有反射和按列名查找。
+ */
+public final class EntityMapping<T> {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+	private static final Map<Class<?>, EntityMapping<?>> MAPPINGS = new ConcurrentHashMap<>();
+
+	private final Class<T> type;
+	private final MethodHandle constructor;
+	private final Map<String, Property> writableProperties = new HashMap<>();
+	private final Map<String, Property> readableProperties = new HashMap<>();
+	private final List<String> readablePropertyNames = new ArrayList<>();
+	private final Map<String, ColumnBinding[]> bindingsByShape = new ConcurrentHashMap<>();
+
+	@SuppressWarnings("unchecked")
+	public static <T> EntityMapping<T> of(Class<T> type) {
+		return (EntityMapping<T>) MAPPINGS.computeIfAbsent(type, EntityMapping::new);
+	}
+
+	private EntityMapping(Class<T> type) {
+		this.type = type;
+		try {
+			Constructor<T> ctor = type.getDeclaredConstructor();
+			ctor.setAccessible(true);
+			this.constructor = LOOKUP.unreflectConstructor(ctor).asType(CONSTRUCTOR_TYPE);
+			for(PropertyDescriptor pd : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+				Method setter = pd.getWriteMethod();
+				Method getter = pd.getReadMethod();
+				if(setter != null) {
+					setter.setAccessible(true);
+					writableProperties.put(normalize(pd.getName()), new Property(pd.getName(), pd.getPropertyType(),
+							LOOKUP.unreflect(setter).asType(SETTER_TYPE)));
+				}
+				if(getter != null && getter.getDeclaringClass() != Object.class) {
+					getter.setAccessible(true);
+					Property property = new Property(pd.getName(), pd.getPropertyType(), LOOKUP.unreflect(getter).asType(GETTER_TYPE));
+					readableProperties.put(normalize(pd.getName()), property);
+					readablePropertyNames.add(pd.getName());
+				}
+			}
+		} catch (NoSuchMethodException | IllegalAccessException | IntrospectionException e) {
+			throw new IllegalArgumentException("Cannot map entity class " + type.getName(), e);
+		}
+	}
+
+	public Class<T> getType() {
+		return type;
+	}
+
+	public RowMapper<T> newRowMapper() {
+		return new EntityRowMapper();
+	}
+
+	public EntitySqlParameterSource newParameterSource(Object entity) {
+		return new EntitySqlParameterSource(this, entity);
+	}
+
+	/**
+	 * 列名（忽略大小写和下划线）是否对应一个可写属性
+	 */
+	public boolean hasWritableProperty(String column) {
+		return writableProperties.containsKey(normalize(column));
+	}
+
+	List<String> getReadablePropertyNames() {
+		return Collections.unmodifiableList(readablePropertyNames);
+	}
+
+	Property findReadableProperty(String name) {
+		return readableProperties.get(normalize(name));
+	}
+
+	static String normalize(String name) {
+		StringBuilder sb = new StringBuilder(name.length());
+		for(int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if(c != '_') {
+				sb.append(Character.toLowerCase(c));
+			}
+		}
+		return sb.toString();
+	}
+
+	private ColumnBinding[] bindings(ResultSet rs) throws SQLException {
+		ResultSetMetaData meta = rs.getMetaData();
+		int columnCount = meta.getColumnCount();
+		StringBuilder shape = new StringBuilder();
+		for(int i = 1; i <= columnCount; i++) {
+			shape.append(JdbcUtils.lookupColumnName(meta, i)).append(',');
+		}
+		ColumnBinding[] bindings = bindingsByShape.get(shape.toString());
+		if(bindings == null) {
+			List<ColumnBinding> list = new ArrayList<>();
+			for(int i = 1; i <= columnCount; i++) {
+				Property property = writableProperties.get(normalize(JdbcUtils.lookupColumnName(meta, i)));
+				if(property != null) {
+					list.add(new ColumnBinding(i, ColumnReader.forType(property.type), property.handle));
+				}
+			}
+			bindings = list.toArray(new ColumnBinding[list.size()]);
+			bindingsByShape.putIfAbsent(shape.toString(), bindings);
+		}
+		return bindings;
+	}
+
+	static final class Property {
+		final String name;
+		final Class<?> type;
+		final MethodHandle handle;
+
+		Property(String name, Class<?> type, MethodHandle handle) {
+			this.name = name;
+			this.type = type;
+			this.handle = handle;
+		}
+	}
+
+	private static final class ColumnBinding {
+		final int index;
+		final ColumnReader reader;
+		final MethodHandle setter;
+
+		ColumnBinding(int index, ColumnReader reader, MethodHandle setter) {
+			this.index = index;
+			this.reader = reader;
+			this.setter = setter;
+		}
+	}
+
+	/**
+	 * 每次查询一个实例，第一行时确定列绑定，后续行直接按下标读取
+	 */
+	private final class EntityRowMapper implements RowMapper<T> {
+
+		private ColumnBinding[] bindings;
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+			if(bindings == null) {
+				bindings = bindings(rs);
+			}
+			try {
+				Object entity = (Object) constructor.invokeExact();
+				for(ColumnBinding binding : bindings) {
+					Object value = binding.reader.read(rs, binding.index);
+					if(value != null) {
+						binding.setter.invokeExact(entity, value);
+					}
+				}
+				return (T) entity;
+			} catch (SQLException | RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new IllegalStateException("Cannot map row to " + type.getName(), e);
+			}
+		}
+	}
+}
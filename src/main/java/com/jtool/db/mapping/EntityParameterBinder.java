@@ -0,0 +1,73 @@
+package com.jtool.db.mapping;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+/**
+ * 把一条语句的参数列一次解析成getter句柄，之后每一行按下标取值绑定，
+ * 代替SimpleJdbcInsert逐行逐列按列名查找属性
+ */
+public final class EntityParameterBinder {
+
+	private final EntityMapping<?> mapping;
+	private final EntityMapping.Property[] properties;
+	private final int[] sqlTypes;
+
+	private EntityParameterBinder(EntityMapping<?> mapping, List<String> columns) {
+		this.mapping = mapping;
+		this.properties = new EntityMapping.Property[columns.size()];
+		this.sqlTypes = new int[columns.size()];
+		for(int i = 0; i < properties.length; i++) {
+			properties[i] = mapping.findReadableProperty(columns.get(i));
+			sqlTypes[i] = properties[i] == null ? SqlTypeValue.TYPE_UNKNOWN : StatementCreatorUtils.javaTypeToSqlParameterType(properties[i].type);
+		}
+	}
+
+	/**
+	 * 第一行不是EntitySqlParameterSource时返回null，调用方按列名取值
+	 */
+	public static EntityParameterBinder forRows(List<? extends SqlParameterSource> rows, List<String> columns) {
+		if(rows.isEmpty() || !(rows.get(0) instanceof EntitySqlParameterSource)) {
+			return null;
+		}
+		return new EntityParameterBinder(((EntitySqlParameterSource) rows.get(0)).getMapping(), columns);
+	}
+
+	/**
+	 * 同一实体类且没有单独登记参数类型的行才能按下标绑定
+	 */
+	public boolean canBind(SqlParameterSource row) {
+		return row instanceof EntitySqlParameterSource && ((EntitySqlParameterSource) row).isBoundBy(mapping);
+	}
+
+	/**
+	 * 从index开始设置这一行的参数，属性没有声明SQL类型时使用columnTypes里的表结构类型
+	 * @return 下一个参数的下标
+	 */
+	public int bind(PreparedStatement ps, int index, int[] columnTypes, SqlParameterSource row) throws SQLException {
+		Object entity = ((EntitySqlParameterSource) row).getEntity();
+		for(int i = 0; i < properties.length; i++) {
+			int type = sqlTypes[i];
+			if(type == SqlTypeValue.TYPE_UNKNOWN) {
+				type = columnTypes != null && i < columnTypes.length ? columnTypes[i] : SqlTypeValue.TYPE_UNKNOWN;
+			}
+			StatementCreatorUtils.setParameterValue(ps, index++, type, properties[i] == null ? null : read(properties[i], entity));
+		}
+		return index;
+	}
+
+	private static Object read(EntityMapping.Property property, Object entity) {
+		try {
+			return (Object) property.handle.invokeExact(entity);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException("Cannot read property '" + property.name + "'", e);
+		}
+	}
+}
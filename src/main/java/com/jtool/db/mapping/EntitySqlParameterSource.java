@@ -0,0 +1,80 @@
+package com.jtool.db.mapping;
+
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+
+/**
+ * 用预先解析好的getter句柄取值，代替每次插入都要新建BeanWrapper的BeanPropertySqlParameterSource
+ */
+public class EntitySqlParameterSource extends AbstractSqlParameterSource {
+
+	private final EntityMapping<?> mapping;
+	private final Object entity;
+	private boolean typesRegistered;
+
+	EntitySqlParameterSource(EntityMapping<?> mapping, Object entity) {
+		this.mapping = mapping;
+		this.entity = entity;
+	}
+
+	EntityMapping<?> getMapping() {
+		return mapping;
+	}
+
+	Object getEntity() {
+		return entity;
+	}
+
+	/**
+	 * 登记过参数类型的行要按列名取值，才能用上登记的类型
+	 */
+	boolean isBoundBy(EntityMapping<?> mapping) {
+		return this.mapping == mapping && !typesRegistered;
+	}
+
+	@Override
+	public void registerSqlType(String paramName, int sqlType) {
+		super.registerSqlType(paramName, sqlType);
+		typesRegistered = true;
+	}
+
+	@Override
+	public void registerTypeName(String paramName, String typeName) {
+		super.registerTypeName(paramName, typeName);
+		typesRegistered = true;
+	}
+
+	@Override
+	public boolean hasValue(String paramName) {
+		return mapping.findReadableProperty(paramName) != null;
+	}
+
+	@Override
+	public Object getValue(String paramName) throws IllegalArgumentException {
+		EntityMapping.Property property = mapping.findReadableProperty(paramName);
+		if(property == null) {
+			throw new IllegalArgumentException("No property '" + paramName + "' on " + mapping.getType().getName());
+		}
+		try {
+			return (Object) property.handle.invokeExact(entity);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new IllegalStateException("Cannot read property '" + paramName + "'", e);
+		}
+	}
+
+	@Override
+	public int getSqlType(String paramName) {
+		int sqlType = super.getSqlType(paramName);
+		if(sqlType != TYPE_UNKNOWN) {
+			return sqlType;
+		}
+		EntityMapping.Property property = mapping.findReadableProperty(paramName);
+		return property == null ? TYPE_UNKNOWN : StatementCreatorUtils.javaTypeToSqlParameterType(property.type);
+	}
+
+	public String[] getReadablePropertyNames() {
+		return mapping.getReadablePropertyNames().toArray(new String[0]);
+	}
+}
@@ -0,0 +1,89 @@
+package com.jtool.db.mapping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * 列投影：只查询需要的列，宽表上不必每次把TEXT/BLOB列传过来再解码。
+ * of(type, columns)的结果用EntityMapping映射成type，只填充查询到的列；
+ * of(type)不指定列时由DAO按表结构选出与type可写属性同名的列（忽略大小写和下划线）；
+ * columns(...)的结果为列名到值的Map。投影对象不可变，建议定义成常量复用
+ */
+public final class Projection<T> {
+
+	private final Class<T> type;
+	private final List<String> columns;
+	private final String selectList;
+
+	private Projection(Class<T> type, String[] columns) {
+		this.type = type;
+		this.columns = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(columns)));
+		this.selectList = columns.length == 0 ? null : String.join(", ", columns);
+	}
+
+	public static Projection<Map<String, Object>> columns(String... columns) {
+		if(columns.length == 0) {
+			throw new IllegalArgumentException("at least one column is required");
+		}
+		return new Projection<>(null, columns);
+	}
+
+	public static <T> Projection<T> of(Class<T> type, String... columns) {
+		if(type == null) {
+			throw new IllegalArgumentException("type is required");
+		}
+		return new Projection<>(type, columns);
+	}
+
+	/**
+	 * columns(...)创建的投影返回null
+	 */
+	public Class<T> getType() {
+		return type;
+	}
+
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * 查询的列表达式，如"id, name"。没有指定列时按表的列选出type有可写属性的列
+	 */
+	public String selectList(Collection<String> tableColumns) {
+		if(selectList != null) {
+			return selectList;
+		}
+		EntityMapping<T> mapping = EntityMapping.of(type);
+		List<String> matched = new ArrayList<>();
+		for(String column : tableColumns) {
+			if(mapping.hasWritableProperty(column)) {
+				matched.add(column);
+			}
+		}
+		if(matched.isEmpty()) {
+			throw new IllegalArgumentException("no column matches a property of " + type.getName());
+		}
+		return String.join(", ", matched);
+	}
+
+	public boolean hasExplicitColumns() {
+		return selectList != null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public RowMapper<T> newRowMapper() {
+		return type == null ? (RowMapper<T>) new ColumnMapRowMapper() : EntityMapping.of(type).newRowMapper();
+	}
+
+	@Override
+	public String toString() {
+		return "Projection [type=" + (type == null ? "Map" : type.getSimpleName()) + ", columns=" + columns + "]";
+	}
+}
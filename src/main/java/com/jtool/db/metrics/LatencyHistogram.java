@@ -0,0 +1,90 @@
+package com.jtool.db.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁的对数分桶延迟直方图，单位微秒，每个2的幂区间分4个子桶，分位数误差在25%以内
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKETS = 4;
+	private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalMicros = new AtomicLong();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	public void record(long nanos) {
+		long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+		counts.incrementAndGet(bucket(micros));
+		count.incrementAndGet();
+		totalMicros.addAndGet(micros);
+		long max;
+		while(micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getMaxMicros() {
+		return maxMicros.get();
+	}
+
+	public double getMeanMicros() {
+		long c = count.get();
+		return c == 0 ? 0 : (double) totalMicros.get() / c;
+	}
+
+	public long getPercentileMicros(double percentile) {
+		long total = 0;
+		long[] snapshot = new long[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts.get(i);
+			total += snapshot[i];
+		}
+		if(total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(total * percentile / 100.0);
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if(seen >= rank) {
+				return Math.min(upperBound(i), maxMicros.get());
+			}
+		}
+		return maxMicros.get();
+	}
+
+	public void reset() {
+		for(int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		totalMicros.set(0);
+		maxMicros.set(0);
+	}
+
+	static int bucket(long micros) {
+		if(micros < SUB_BUCKETS) {
+			return (int) micros;
+		}
+		int power = 63 - Long.numberOfLeadingZeros(micros);
+		int sub = (int) ((micros >>> (power - 2)) & (SUB_BUCKETS - 1));
+		return power * SUB_BUCKETS + sub;
+	}
+
+	static long upperBound(int bucket) {
+		if(bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int power = bucket / SUB_BUCKETS;
+		int sub = bucket % SUB_BUCKETS;
+		return ((long) (SUB_BUCKETS + sub + 1) << (power - 2)) - 1;
+	}
+}
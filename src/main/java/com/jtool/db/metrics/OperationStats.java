@@ -0,0 +1,42 @@
+package com.jtool.db.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class OperationStats {
+
+	private final String method;
+	private final String sql;
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final AtomicLong rows = new AtomicLong();
+	private final AtomicLong errors = new AtomicLong();
+	private final AtomicLong slowQueries = new AtomicLong();
+
+	OperationStats(String method, String sql) {
+		this.method = method;
+		this.sql = sql;
+	}
+
+	void record(long nanos, int rowCount, boolean error, boolean slow) {
+		latency.record(nanos);
+		if(error) {
+			errors.incrementAndGet();
+		} else if(rowCount > 0) {
+			rows.addAndGet(rowCount);
+		}
+		if(slow) {
+			slowQueries.incrementAndGet();
+		}
+	}
+
+	void reset() {
+		latency.reset();
+		rows.set(0);
+		errors.set(0);
+		slowQueries.set(0);
+	}
+
+	public OperationStatsSnapshot snapshot() {
+		return new OperationStatsSnapshot(method, sql, latency.getCount(), errors.get(), rows.get(), slowQueries.get(),
+				latency.getPercentileMicros(50), latency.getPercentileMicros(99), latency.getMaxMicros(), latency.getMeanMicros());
+	}
+}
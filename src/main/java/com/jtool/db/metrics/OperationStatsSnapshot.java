@@ -0,0 +1,78 @@
+package com.jtool.db.metrics;
+
+import java.beans.ConstructorProperties;
+
+public class OperationStatsSnapshot {
+
+	private final String method;
+	private final String sql;
+	private final long count;
+	private final long errorCount;
+	private final long rows;
+	private final long slowCount;
+	private final long p50Micros;
+	private final long p99Micros;
+	private final long maxMicros;
+	private final double meanMicros;
+
+	@ConstructorProperties({ "method", "sql", "count", "errorCount", "rows", "slowCount", "p50Micros", "p99Micros", "maxMicros", "meanMicros" })
+	public OperationStatsSnapshot(String method, String sql, long count, long errorCount, long rows, long slowCount, long p50Micros,
+			long p99Micros, long maxMicros, double meanMicros) {
+		this.method = method;
+		this.sql = sql;
+		this.count = count;
+		this.errorCount = errorCount;
+		this.rows = rows;
+		this.slowCount = slowCount;
+		this.p50Micros = p50Micros;
+		this.p99Micros = p99Micros;
+		this.maxMicros = maxMicros;
+		this.meanMicros = meanMicros;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getErrorCount() {
+		return errorCount;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public long getSlowCount() {
+		return slowCount;
+	}
+
+	public long getP50Micros() {
+		return p50Micros;
+	}
+
+	public long getP99Micros() {
+		return p99Micros;
+	}
+
+	public long getMaxMicros() {
+		return maxMicros;
+	}
+
+	public double getMeanMicros() {
+		return meanMicros;
+	}
+
+	@Override
+	public String toString() {
+		return "OperationStatsSnapshot [method=" + method + ", sql=" + sql + ", count=" + count + ", errorCount=" + errorCount + ", rows="
+				+ rows + ", p50Micros=" + p50Micros + ", p99Micros=" + p99Micros + ", maxMicros=" + maxMicros + "]";
+	}
+}
@@ -0,0 +1,177 @@
+package com.jtool.db.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 一个DAO的查询统计，按方法名和归一化后的SQL分别记录延迟分布、行数、错误数和慢查询数。
+ * 每个方法最多记录MAX_STATEMENTS_PER_METHOD种归一化后的SQL，超出的归入OTHER_SQL。
+ * 原始SQL到统计项的映射另外缓存（最多MAX_RAW_STATEMENTS_PER_METHOD条），命中时不再做归一化，
+ * 缓存满了以后新的原始SQL每次都归一化，仍然记到对应的统计项里。
+ */
+public class QueryMetrics implements QueryMetricsMXBean {
+
+	static final int MAX_STATEMENTS_PER_METHOD = 512;
+	static final int MAX_RAW_STATEMENTS_PER_METHOD = 4096;
+	static final String OTHER_SQL = "<other>";
+
+	private static final Logger SLOW_QUERY_LOGGER = LoggerFactory.getLogger("com.jtool.db.slowQuery");
+
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(\\.\\d+)?");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private final String daoName;
+	private final String tableName;
+	private volatile long slowQueryThresholdNanos;
+
+	private final Map<String, MethodStatements> statsByMethod = new ConcurrentHashMap<>();
+	private final Map<String, OperationStats> statsByKey = new ConcurrentHashMap<>();
+
+	private ObjectName objectName;
+
+	public QueryMetrics(String daoName, String tableName, long slowQueryThresholdMillis) {
+		this.daoName = daoName;
+		this.tableName = tableName;
+		this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+	}
+
+	public void record(String method, String sql, long beginNanos, int rows, boolean error) {
+		long elapsed = System.nanoTime() - beginNanos;
+		boolean slow = slowQueryThresholdNanos > 0 && elapsed >= slowQueryThresholdNanos;
+		stats(method, sql).record(elapsed, rows, error, slow);
+		if(slow) {
+			SLOW_QUERY_LOGGER.warn("慢查询 {}.{} 耗时{}ms 行数{}：{}", daoName, method, TimeUnit.NANOSECONDS.toMillis(elapsed), rows, sql);
+		}
+	}
+
+	public static String normalize(String sql) {
+		String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+		normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+		return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+	}
+
+	public void register() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName("com.jtool.db:type=QueryMetrics,name=" + ObjectName.quote(daoName));
+			try {
+				server.registerMBean(this, name);
+			} catch (InstanceAlreadyExistsException e) {
+				// 同一个JVM里有多个Spring上下文时用实例标识区分
+				name = new ObjectName("com.jtool.db:type=QueryMetrics,name=" + ObjectName.quote(daoName) + ",instance="
+						+ Integer.toHexString(System.identityHashCode(this)));
+				server.registerMBean(this, name);
+			}
+			objectName = name;
+		} catch (JMException e) {
+			LoggerFactory.getLogger(this.getClass()).warn("注册JMX失败：" + daoName, e);
+		}
+	}
+
+	public void unregister() {
+		if(objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (JMException e) {
+				LoggerFactory.getLogger(this.getClass()).warn("注销JMX失败：" + objectName, e);
+			}
+			objectName = null;
+		}
+	}
+
+	public ObjectName getObjectName() {
+		return objectName;
+	}
+
+	@Override
+	public String getDaoName() {
+		return daoName;
+	}
+
+	@Override
+	public String getTableName() {
+		return tableName;
+	}
+
+	@Override
+	public long getSlowQueryThresholdMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos);
+	}
+
+	@Override
+	public void setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+		this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+	}
+
+	@Override
+	public List<OperationStatsSnapshot> getOperations() {
+		List<OperationStatsSnapshot> result = new ArrayList<>();
+		for(OperationStats stats : statsByKey.values()) {
+			result.add(stats.snapshot());
+		}
+		return result;
+	}
+
+	public OperationStatsSnapshot getOperation(String method, String sql) {
+		MethodStatements statements = statsByMethod.get(method);
+		OperationStats stats = statements == null ? null : statements.byRawSql.get(sql);
+		if(stats == null) {
+			stats = statsByKey.get(method + '\n' + normalize(sql));
+		}
+		return stats == null ? null : stats.snapshot();
+	}
+
+	@Override
+	public void reset() {
+		for(OperationStats stats : statsByKey.values()) {
+			stats.reset();
+		}
+	}
+
+	private OperationStats stats(String method, String sql) {
+		MethodStatements statements = statsByMethod.get(method);
+		if(statements == null) {
+			statements = statsByMethod.computeIfAbsent(method, m -> new MethodStatements());
+		}
+		OperationStats stats = statements.byRawSql.get(sql);
+		if(stats != null) {
+			return stats;
+		}
+		String normalized = normalize(sql);
+		stats = statements.byShape.get(normalized);
+		if(stats == null) {
+			boolean tracked = statements.byShape.size() < MAX_STATEMENTS_PER_METHOD;
+			String key = tracked ? normalized : OTHER_SQL;
+			stats = statsByKey.computeIfAbsent(method + '\n' + key, k -> new OperationStats(method, key));
+			if(tracked) {
+				OperationStats existing = statements.byShape.putIfAbsent(normalized, stats);
+				if(existing != null) {
+					stats = existing;
+				}
+			}
+		}
+		if(statements.byRawSql.size() < MAX_RAW_STATEMENTS_PER_METHOD) {
+			statements.byRawSql.putIfAbsent(sql, stats);
+		}
+		return stats;
+	}
+
+	private static final class MethodStatements {
+		final Map<String, OperationStats> byRawSql = new ConcurrentHashMap<>();
+		final Map<String, OperationStats> byShape = new ConcurrentHashMap<>();
+	}
+}
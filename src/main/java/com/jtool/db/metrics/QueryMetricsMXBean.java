@@ -0,0 +1,18 @@
+package com.jtool.db.metrics;
+
+import java.util.List;
+
+public interface QueryMetricsMXBean {
+
+	String getDaoName();
+
+	String getTableName();
+
+	long getSlowQueryThresholdMillis();
+
+	void setSlowQueryThresholdMillis(long slowQueryThresholdMillis);
+
+	List<OperationStatsSnapshot> getOperations();
+
+	void reset();
+}
@@ -0,0 +1,5 @@
+package com.jtool.db.routing;
+
+public enum LoadBalance {
+	ROUND_ROBIN, LEAST_IN_FLIGHT
+}
@@ -0,0 +1,59 @@
+package com.jtool.db.routing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class Replica {
+
+	private final String name;
+	private final DataSource dataSource;
+	private final JdbcTemplate jdbcTemplate;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private volatile long downUntil;
+
+	public Replica(String name, DataSource dataSource) {
+		this.name = name;
+		this.dataSource = dataSource;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public DataSource getDataSource() {
+		return dataSource;
+	}
+
+	public JdbcTemplate getJdbcTemplate() {
+		return jdbcTemplate;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public boolean isAvailable() {
+		return isAvailable(System.currentTimeMillis());
+	}
+
+	boolean isAvailable(long now) {
+		return downUntil <= now;
+	}
+
+	void markDown(long until) {
+		downUntil = until;
+	}
+
+	AtomicInteger inFlightCounter() {
+		return inFlight;
+	}
+
+	@Override
+	public String toString() {
+		return "Replica [name=" + name + ", inFlight=" + inFlight + ", available=" + isAvailable() + "]";
+	}
+}
@@ -0,0 +1,82 @@
+package com.jtool.db.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 一组从库，按轮询或最少进行中请求选择，出错的从库在recoveryInterval内不参与选择
+ */
+public class ReplicaSet {
+
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	private final List<Replica> replicas;
+	private final LoadBalance loadBalance;
+	private final long recoveryIntervalMillis;
+	private final AtomicInteger next = new AtomicInteger();
+
+	public ReplicaSet(List<Replica> replicas, LoadBalance loadBalance, long recoveryIntervalMillis) {
+		this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+		this.loadBalance = loadBalance;
+		this.recoveryIntervalMillis = recoveryIntervalMillis;
+	}
+
+	public List<Replica> getReplicas() {
+		return replicas;
+	}
+
+	/**
+	 * 事务中或没有可用从库时返回null，调用方应使用主库；返回的从库用完后必须release
+	 */
+	public Replica acquire() {
+		if(TransactionSynchronizationManager.isActualTransactionActive()) {
+			return null;
+		}
+		Replica replica = loadBalance == LoadBalance.LEAST_IN_FLIGHT ? leastInFlight() : roundRobin();
+		if(replica != null) {
+			replica.inFlightCounter().incrementAndGet();
+		}
+		return replica;
+	}
+
+	public void release(Replica replica) {
+		if(replica != null) {
+			replica.inFlightCounter().decrementAndGet();
+		}
+	}
+
+	public void markDown(Replica replica, Throwable cause) {
+		replica.markDown(System.currentTimeMillis() + recoveryIntervalMillis);
+		logger.warn("从库" + replica.getName() + "出错，摘除" + recoveryIntervalMillis + "ms", cause);
+	}
+
+	private Replica roundRobin() {
+		long now = System.currentTimeMillis();
+		int size = replicas.size();
+		int start = next.getAndIncrement() & Integer.MAX_VALUE;
+		for(int i = 0; i < size; i++) {
+			Replica replica = replicas.get((start + i) % size);
+			if(replica.isAvailable(now)) {
+				return replica;
+			}
+		}
+		return null;
+	}
+
+	private Replica leastInFlight() {
+		long now = System.currentTimeMillis();
+		Replica best = null;
+		for(Replica replica : replicas) {
+			if(replica.isAvailable(now) && (best == null || replica.getInFlight() < best.getInFlight())) {
+				best = replica;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,340 @@
+package com.jtool.db.row;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * 紧凑的查询结果：所有行共用一份列头，数据按列存放，int、long、double列用基本类型数组保存。
+ * 作为List&lt;Map&lt;String, Object&gt;&gt;使用时每行是一个只读、列名不区分大小写的Map视图，
+ * 视图只在访问时创建，不复制数据
+ */
+public final class CompactRows extends AbstractList<Map<String, Object>> {
+
+	private final String[] labels;
+	private final int[] labelColumns;
+	private final Map<String, Integer> columnIndex;
+	private final Column[] columns;
+	private final int size;
+
+	CompactRows(String[] columnLabels, Column[] columns, int size) {
+		// 与ColumnMapRowMapper一致，重名的列后面的值覆盖前面的，位置保持第一次出现的位置
+		Map<String, Integer> index = new LinkedHashMap<>();
+		Map<String, String> firstLabels = new LinkedHashMap<>();
+		for(int i = 0; i < columnLabels.length; i++) {
+			String key = columnLabels[i].toLowerCase(Locale.ENGLISH);
+			index.put(key, i);
+			firstLabels.putIfAbsent(key, columnLabels[i]);
+		}
+		this.labels = firstLabels.values().toArray(new String[0]);
+		this.labelColumns = new int[labels.length];
+		int i = 0;
+		for(Integer column : index.values()) {
+			labelColumns[i++] = column;
+		}
+		this.columnIndex = index;
+		this.columns = columns;
+		this.size = size;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Map<String, Object> get(int row) {
+		checkRow(row);
+		return new RowView(row);
+	}
+
+	public List<String> getColumnLabels() {
+		return Arrays.asList(labels);
+	}
+
+	public int getColumnCount() {
+		return columns.length;
+	}
+
+	/**
+	 * @return 列序号，从0开始，找不到时返回-1
+	 */
+	public int findColumn(String columnLabel) {
+		Integer column = columnIndex.get(columnLabel.toLowerCase(Locale.ENGLISH));
+		return column == null ? -1 : column;
+	}
+
+	public Object getObject(int row, int column) {
+		checkRow(row);
+		return columns[column].get(row);
+	}
+
+	public Object getObject(int row, String columnLabel) {
+		return getObject(row, requireColumn(columnLabel));
+	}
+
+	/**
+	 * 值为null时返回0，与ResultSet.getInt一致
+	 */
+	public int getInt(int row, int column) {
+		checkRow(row);
+		Column c = columns[column];
+		if(c instanceof IntColumn) {
+			return ((IntColumn) c).values[row];
+		}
+		Object value = c.get(row);
+		return value == null ? 0 : ((Number) value).intValue();
+	}
+
+	public long getLong(int row, int column) {
+		checkRow(row);
+		Column c = columns[column];
+		if(c instanceof LongColumn) {
+			return ((LongColumn) c).values[row];
+		}
+		if(c instanceof IntColumn) {
+			return ((IntColumn) c).values[row];
+		}
+		Object value = c.get(row);
+		return value == null ? 0 : ((Number) value).longValue();
+	}
+
+	public double getDouble(int row, int column) {
+		checkRow(row);
+		Column c = columns[column];
+		if(c instanceof DoubleColumn) {
+			return ((DoubleColumn) c).values[row];
+		}
+		Object value = c.get(row);
+		return value == null ? 0 : ((Number) value).doubleValue();
+	}
+
+	public boolean isNull(int row, int column) {
+		checkRow(row);
+		return columns[column].isNull(row);
+	}
+
+	private int requireColumn(String columnLabel) {
+		int column = findColumn(columnLabel);
+		if(column < 0) {
+			throw new IllegalArgumentException("no column " + columnLabel);
+		}
+		return column;
+	}
+
+	private void checkRow(int row) {
+		if(row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+		}
+	}
+
+	private final class RowView extends AbstractMap<String, Object> {
+
+		private final int row;
+
+		RowView(int row) {
+			this.row = row;
+		}
+
+		@Override
+		public Object get(Object key) {
+			if(!(key instanceof String)) {
+				return null;
+			}
+			Integer column = columnIndex.get(((String) key).toLowerCase(Locale.ENGLISH));
+			return column == null ? null : columns[column].get(row);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return key instanceof String && columnIndex.containsKey(((String) key).toLowerCase(Locale.ENGLISH));
+		}
+
+		@Override
+		public int size() {
+			return labels.length;
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return new AbstractSet<Entry<String, Object>>() {
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					return new Iterator<Entry<String, Object>>() {
+						private int i;
+
+						@Override
+						public boolean hasNext() {
+							return i < labels.length;
+						}
+
+						@Override
+						public Entry<String, Object> next() {
+							if(i >= labels.length) {
+								throw new NoSuchElementException();
+							}
+							Entry<String, Object> entry = new SimpleImmutableEntry<>(labels[i], columns[labelColumns[i]].get(row));
+							i++;
+							return entry;
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return labels.length;
+				}
+			};
+		}
+	}
+
+	abstract static class Column {
+
+		abstract Object get(int row);
+
+		abstract boolean isNull(int row);
+
+		abstract void trim(int size);
+	}
+
+	static final class IntColumn extends Column {
+		int[] values;
+		final BitSet nulls = new BitSet();
+
+		IntColumn(int capacity) {
+			values = new int[capacity];
+		}
+
+		void set(int row, int value, boolean isNull) {
+			if(row == values.length) {
+				values = Arrays.copyOf(values, Math.max(16, row * 2));
+			}
+			values[row] = value;
+			if(isNull) {
+				nulls.set(row);
+			}
+		}
+
+		@Override
+		Object get(int row) {
+			return nulls.get(row) ? null : values[row];
+		}
+
+		@Override
+		boolean isNull(int row) {
+			return nulls.get(row);
+		}
+
+		@Override
+		void trim(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+	}
+
+	static final class LongColumn extends Column {
+		long[] values;
+		final BitSet nulls = new BitSet();
+
+		LongColumn(int capacity) {
+			values = new long[capacity];
+		}
+
+		void set(int row, long value, boolean isNull) {
+			if(row == values.length) {
+				values = Arrays.copyOf(values, Math.max(16, row * 2));
+			}
+			values[row] = value;
+			if(isNull) {
+				nulls.set(row);
+			}
+		}
+
+		@Override
+		Object get(int row) {
+			return nulls.get(row) ? null : values[row];
+		}
+
+		@Override
+		boolean isNull(int row) {
+			return nulls.get(row);
+		}
+
+		@Override
+		void trim(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+	}
+
+	static final class DoubleColumn extends Column {
+		double[] values;
+		final BitSet nulls = new BitSet();
+
+		DoubleColumn(int capacity) {
+			values = new double[capacity];
+		}
+
+		void set(int row, double value, boolean isNull) {
+			if(row == values.length) {
+				values = Arrays.copyOf(values, Math.max(16, row * 2));
+			}
+			values[row] = value;
+			if(isNull) {
+				nulls.set(row);
+			}
+		}
+
+		@Override
+		Object get(int row) {
+			return nulls.get(row) ? null : values[row];
+		}
+
+		@Override
+		boolean isNull(int row) {
+			return nulls.get(row);
+		}
+
+		@Override
+		void trim(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+	}
+
+	static final class ObjectColumn extends Column {
+		Object[] values;
+
+		ObjectColumn(int capacity) {
+			values = new Object[capacity];
+		}
+
+		void set(int row, Object value) {
+			if(row == values.length) {
+				values = Arrays.copyOf(values, Math.max(16, row * 2));
+			}
+			values[row] = value;
+		}
+
+		@Override
+		Object get(int row) {
+			return values[row];
+		}
+
+		@Override
+		boolean isNull(int row) {
+			return values[row] == null;
+		}
+
+		@Override
+		void trim(int size) {
+			values = Arrays.copyOf(values, size);
+		}
+	}
+}
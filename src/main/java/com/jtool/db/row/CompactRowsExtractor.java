@@ -0,0 +1,72 @@
+package com.jtool.db.row;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import com.jtool.db.row.CompactRows.Column;
+import com.jtool.db.row.CompactRows.DoubleColumn;
+import com.jtool.db.row.CompactRows.IntColumn;
+import com.jtool.db.row.CompactRows.LongColumn;
+import com.jtool.db.row.CompactRows.ObjectColumn;
+
+/**
+ * 把ResultSet读成CompactRows。驱动报告的Java类型为Integer、Long、Double的列用基本类型数组保存，
+ * 其他列的取值方式与ColumnMapRowMapper相同
+ */
+public class CompactRowsExtractor implements ResultSetExtractor<CompactRows> {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	@Override
+	public CompactRows extractData(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		String[] labels = new String[columnCount];
+		Column[] columns = new Column[columnCount];
+		for(int i = 0; i < columnCount; i++) {
+			labels[i] = JdbcUtils.lookupColumnName(rsmd, i + 1);
+			columns[i] = newColumn(rsmd.getColumnClassName(i + 1));
+		}
+
+		int row = 0;
+		while(rs.next()) {
+			for(int i = 0; i < columnCount; i++) {
+				Column column = columns[i];
+				if(column instanceof IntColumn) {
+					int value = rs.getInt(i + 1);
+					((IntColumn) column).set(row, value, rs.wasNull());
+				} else if(column instanceof LongColumn) {
+					long value = rs.getLong(i + 1);
+					((LongColumn) column).set(row, value, rs.wasNull());
+				} else if(column instanceof DoubleColumn) {
+					double value = rs.getDouble(i + 1);
+					((DoubleColumn) column).set(row, value, rs.wasNull());
+				} else {
+					((ObjectColumn) column).set(row, JdbcUtils.getResultSetValue(rs, i + 1));
+				}
+			}
+			row++;
+		}
+		for(Column column : columns) {
+			column.trim(row);
+		}
+		return new CompactRows(labels, columns, row);
+	}
+
+	private static Column newColumn(String className) {
+		if(Integer.class.getName().equals(className)) {
+			return new IntColumn(INITIAL_CAPACITY);
+		}
+		if(Long.class.getName().equals(className)) {
+			return new LongColumn(INITIAL_CAPACITY);
+		}
+		if(Double.class.getName().equals(className)) {
+			return new DoubleColumn(INITIAL_CAPACITY);
+		}
+		return new ObjectColumn(INITIAL_CAPACITY);
+	}
+}
@@ -0,0 +1,13 @@
+package com.jtool.db.scan;
+
+import java.util.List;
+
+/**
+ * 处理一批按id升序排列的记录。不同区间的批次在不同线程上并发调用，实现需线程安全。
+ * 区间重试时从最后一个处理成功的批次之后继续，失败的那一批会再交给handle一次，处理逻辑应当幂等
+ */
+@FunctionalInterface
+public interface BatchHandler<T> {
+
+	void handle(List<T> batch);
+}
@@ -0,0 +1,83 @@
+package com.jtool.db.scan;
+
+/**
+ * 并行扫描参数，不可变，withXxx返回新对象。
+ * splits为按主键切分的区间数，parallelism为同时扫描的区间数（即占用的连接数），
+ * batchSize为每次读取并交给BatchHandler的行数，maxRetries为单个区间失败后的重试次数
+ */
+public final class ScanOptions {
+
+	private final int parallelism;
+	private final int splits;
+	private final int batchSize;
+	private final int maxRetries;
+	private final long retryBackoff;
+	private final ScanProgressListener progressListener;
+
+	private ScanOptions(int parallelism, int splits, int batchSize, int maxRetries, long retryBackoff, ScanProgressListener progressListener) {
+		if(parallelism <= 0 || splits <= 0 || batchSize <= 0) {
+			throw new IllegalArgumentException("parallelism, splits and batchSize must be positive");
+		}
+		if(maxRetries < 0 || retryBackoff < 0) {
+			throw new IllegalArgumentException("maxRetries and retryBackoff must not be negative");
+		}
+		this.parallelism = parallelism;
+		this.splits = splits;
+		this.batchSize = batchSize;
+		this.maxRetries = maxRetries;
+		this.retryBackoff = retryBackoff;
+		this.progressListener = progressListener;
+	}
+
+	public static ScanOptions defaults() {
+		int cores = Runtime.getRuntime().availableProcessors();
+		return new ScanOptions(cores, cores * 4, 1000, 3, 1000, null);
+	}
+
+	public ScanOptions withParallelism(int parallelism) {
+		return new ScanOptions(parallelism, splits, batchSize, maxRetries, retryBackoff, progressListener);
+	}
+
+	public ScanOptions withSplits(int splits) {
+		return new ScanOptions(parallelism, splits, batchSize, maxRetries, retryBackoff, progressListener);
+	}
+
+	public ScanOptions withBatchSize(int batchSize) {
+		return new ScanOptions(parallelism, splits, batchSize, maxRetries, retryBackoff, progressListener);
+	}
+
+	/**
+	 * retryBackoff单位为毫秒，第n次重试前等待n * retryBackoff
+	 */
+	public ScanOptions withRetries(int maxRetries, long retryBackoff) {
+		return new ScanOptions(parallelism, splits, batchSize, maxRetries, retryBackoff, progressListener);
+	}
+
+	public ScanOptions withProgressListener(ScanProgressListener progressListener) {
+		return new ScanOptions(parallelism, splits, batchSize, maxRetries, retryBackoff, progressListener);
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public int getSplits() {
+		return splits;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public long getRetryBackoff() {
+		return retryBackoff;
+	}
+
+	public ScanProgressListener getProgressListener() {
+		return progressListener;
+	}
+}
@@ -0,0 +1,38 @@
+package com.jtool.db.scan;
+
+public final class ScanProgress {
+
+	private final int completedSplits;
+	private final int totalSplits;
+	private final long processedRows;
+	private final long elapsedMillis;
+
+	public ScanProgress(int completedSplits, int totalSplits, long processedRows, long elapsedMillis) {
+		this.completedSplits = completedSplits;
+		this.totalSplits = totalSplits;
+		this.processedRows = processedRows;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public int getCompletedSplits() {
+		return completedSplits;
+	}
+
+	public int getTotalSplits() {
+		return totalSplits;
+	}
+
+	public long getProcessedRows() {
+		return processedRows;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "ScanProgress [completedSplits=" + completedSplits + ", totalSplits=" + totalSplits + ", processedRows=" + processedRows
+				+ ", elapsedMillis=" + elapsedMillis + "]";
+	}
+}
@@ -0,0 +1,10 @@
+package com.jtool.db.scan;
+
+/**
+ * 每处理完一批记录回调一次，在扫描线程上并发调用，实现需线程安全且不应阻塞
+ */
+@FunctionalInterface
+public interface ScanProgressListener {
+
+	void onProgress(ScanProgress progress);
+}
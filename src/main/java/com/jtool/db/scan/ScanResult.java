@@ -0,0 +1,37 @@
+package com.jtool.db.scan;
+
+public final class ScanResult {
+
+	private final int splits;
+	private final long rowCount;
+	private final int retries;
+	private final long elapsedMillis;
+
+	public ScanResult(int splits, long rowCount, int retries, long elapsedMillis) {
+		this.splits = splits;
+		this.rowCount = rowCount;
+		this.retries = retries;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public int getSplits() {
+		return splits;
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	public int getRetries() {
+		return retries;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "ScanResult [splits=" + splits + ", rowCount=" + rowCount + ", retries=" + retries + ", elapsedMillis=" + elapsedMillis + "]";
+	}
+}
@@ -0,0 +1,25 @@
+package com.jtool.db.shard;
+
+/**
+ * 整数分片键按取模分片，其他类型按hashCode取模
+ */
+public class ModuloShardingStrategy implements ShardingStrategy {
+
+	@Override
+	public int shardFor(Object shardKeyValue, int shardCount) {
+		if(shardKeyValue == null) {
+			throw new IllegalArgumentException("shard key value must not be null");
+		}
+		if(shardKeyValue instanceof Number) {
+			return (int) Math.floorMod(((Number) shardKeyValue).longValue(), (long) shardCount);
+		}
+		if(shardKeyValue instanceof CharSequence) {
+			String value = shardKeyValue.toString();
+			if(!value.isEmpty() && value.chars().allMatch(Character::isDigit) && value.length() < 19) {
+				return (int) Math.floorMod(Long.parseLong(value), (long) shardCount);
+			}
+		}
+		return Math.floorMod(shardKeyValue.hashCode(), shardCount);
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.jtool.db.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * 解析形如 "order by age desc, name" 的排序子句，用来在内存里归并各分片已排好序的结果。
+ * 只支持按列名排序，null排在最前（与MySQL升序一致）。默认按Java的自然顺序比较，字符串区分大小写，
+ * 与MySQL默认的_ci排序规则不一致；字符串排序列要么用二进制排序规则，要么按列指定与库里排序规则一致的Comparator（如Collator）
+ */
+public class OrderByComparator implements Comparator<Object[]> {
+
+	private final String[] columnLabels;
+	private final boolean[] descending;
+	private final Comparator<Object>[] comparators;
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private OrderByComparator(String[] columnLabels, boolean[] descending, Function<String, ? extends Comparator<?>> keyComparators) {
+		this.columnLabels = columnLabels;
+		this.descending = descending;
+		this.comparators = new Comparator[columnLabels.length];
+		for(int i = 0; i < columnLabels.length; i++) {
+			comparators[i] = (Comparator<Object>) keyComparators.apply(columnLabels[i]);
+		}
+	}
+
+	public static OrderByComparator parse(String orderBy) {
+		return parse(orderBy, label -> null);
+	}
+
+	/**
+	 * @param keyComparators 按列标签返回该列的比较器，返回null时使用自然顺序
+	 */
+	public static OrderByComparator parse(String orderBy, Function<String, ? extends Comparator<?>> keyComparators) {
+		String clause = orderBy == null ? "" : orderBy.trim();
+		if(clause.regionMatches(true, 0, "order by ", 0, 9)) {
+			clause = clause.substring(9).trim();
+		}
+		if(clause.isEmpty()) {
+			return new OrderByComparator(new String[0], new boolean[0], keyComparators);
+		}
+		List<String> labels = new ArrayList<>();
+		String[] items = clause.split(",");
+		boolean[] descending = new boolean[items.length];
+		for(int i = 0; i < items.length; i++) {
+			String[] parts = items[i].trim().split("\\s+");
+			if(parts.length > 2 || !parts[0].matches("[A-Za-z0-9_.`]+")) {
+				throw new IllegalArgumentException("unsupported order by for shard merge: " + orderBy);
+			}
+			if(parts.length == 2) {
+				String direction = parts[1].toLowerCase(Locale.ROOT);
+				if(!direction.equals("asc") && !direction.equals("desc")) {
+					throw new IllegalArgumentException("unsupported order by for shard merge: " + orderBy);
+				}
+				descending[i] = direction.equals("desc");
+			}
+			String column = parts[0].replace("`", "");
+			labels.add(column.substring(column.lastIndexOf('.') + 1));
+		}
+		return new OrderByComparator(labels.toArray(new String[0]), descending, keyComparators);
+	}
+
+	public int size() {
+		return columnLabels.length;
+	}
+
+	public String getColumnLabel(int i) {
+		return columnLabels[i];
+	}
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public int compare(Object[] a, Object[] b) {
+		for(int i = 0; i < columnLabels.length; i++) {
+			int c;
+			if(a[i] == null || b[i] == null) {
+				c = a[i] == null ? (b[i] == null ? 0 : -1) : 1;
+			} else if(comparators[i] != null) {
+				c = comparators[i].compare(a[i], b[i]);
+			} else {
+				c = ((Comparable) a[i]).compareTo(b[i]);
+			}
+			if(c != 0) {
+				return descending[i] ? -c : c;
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,48 @@
+package com.jtool.db.shard;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 一个分片：数据源加上该数据源里的物理表名
+ */
+public class Shard {
+
+	private final int index;
+	private final String dataSourceName;
+	private final String tableName;
+	private final JdbcTemplate jdbcTemplate;
+
+	public Shard(int index, String dataSourceName, DataSource dataSource, String tableName) {
+		this.index = index;
+		this.dataSourceName = dataSourceName;
+		this.tableName = tableName;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public String getDataSourceName() {
+		return dataSourceName;
+	}
+
+	public DataSource getDataSource() {
+		return jdbcTemplate.getDataSource();
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	public JdbcTemplate getJdbcTemplate() {
+		return jdbcTemplate;
+	}
+
+	@Override
+	public String toString() {
+		return "Shard [index=" + index + ", dataSource=" + dataSourceName + ", table=" + tableName + "]";
+	}
+}
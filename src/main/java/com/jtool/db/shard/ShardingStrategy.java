@@ -0,0 +1,13 @@
+package com.jtool.db.shard;
+
+/**
+ * 根据分片键的值计算分片序号，实现类需要有无参构造函数
+ */
+public interface ShardingStrategy {
+
+	/**
+	 * @return 0到shardCount-1之间的分片序号
+	 */
+	int shardFor(Object shardKeyValue, int shardCount);
+
+}
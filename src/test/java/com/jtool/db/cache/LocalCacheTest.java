@@ -0,0 +1,60 @@
+package com.jtool.db.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LocalCacheTest {
+
+	@Test
+	public void testLruEvictsLeastRecentlyUsed() {
+		LocalCache<String, String> cache = new LocalCache<>(2, 0, EvictionPolicy.LRU);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.get("a");
+		cache.put("c", "3");
+
+		Assert.assertEquals("1", cache.get("a"));
+		Assert.assertNull(cache.get("b"));
+		Assert.assertEquals(1, cache.stats().getEvictionCount());
+	}
+
+	@Test
+	public void testLfuEvictsLeastFrequentlyUsed() {
+		LocalCache<String, String> cache = new LocalCache<>(2, 0, EvictionPolicy.LFU);
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.get("a");
+		cache.get("a");
+		cache.get("b");
+		cache.put("c", "3");
+		cache.get("c");
+		cache.put("d", "4");
+
+		Assert.assertEquals("1", cache.get("a"));
+		Assert.assertNull(cache.get("b"));
+		Assert.assertNull(cache.get("c"));
+		Assert.assertEquals("4", cache.get("d"));
+	}
+
+	@Test
+	public void testExpired() throws InterruptedException {
+		LocalCache<String, String> cache = new LocalCache<>(2, 1, EvictionPolicy.LRU);
+		cache.put("a", "1");
+		Thread.sleep(5);
+
+		Assert.assertNull(cache.get("a"));
+		Assert.assertEquals(1, cache.stats().getExpiredCount());
+		Assert.assertEquals(1, cache.stats().getMissCount());
+	}
+
+	@Test
+	public void testStalePutIsIgnoredAfterInvalidate() {
+		LocalCache<String, String> cache = new LocalCache<>(2, 0, EvictionPolicy.LRU);
+		long stamp = cache.stamp();
+		cache.invalidate("a");
+
+		Assert.assertFalse(cache.put("a", "stale", stamp));
+		Assert.assertNull(cache.get("a"));
+	}
+
+}
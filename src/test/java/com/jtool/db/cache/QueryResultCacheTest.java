@@ -0,0 +1,48 @@
+package com.jtool.db.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryResultCacheTest {
+
+	@Test
+	public void testStaleVersionIsNotServed() {
+		QueryResultCache cache = new QueryResultCache(1024 * 1024, 0);
+		cache.put("k", Arrays.asList("a", "b"), 1);
+
+		Assert.assertEquals(Arrays.asList("a", "b"), cache.get("k", 1));
+		Assert.assertNull(cache.get("k", 2));
+		Assert.assertNull(cache.get("k", 1));
+		Assert.assertEquals(0, cache.weightedSize());
+	}
+
+	@Test
+	public void testMemoryBudgetEvictsLeastRecentlyUsed() {
+		String row = new String(new char[100]);
+		long entrySize = QueryResultCache.estimateSize(Collections.singletonList(row)) + 2 + 64;
+		QueryResultCache cache = new QueryResultCache(entrySize * 2, 0);
+		cache.put("a", Collections.singletonList(row), 0);
+		cache.put("b", Collections.singletonList(row), 0);
+		cache.get("a", 0);
+		cache.put("c", Collections.singletonList(row), 0);
+
+		Assert.assertNotNull(cache.get("a", 0));
+		Assert.assertNull(cache.get("b", 0));
+		Assert.assertEquals(1, cache.stats().getEvictionCount());
+		Assert.assertTrue(cache.weightedSize() <= entrySize * 2);
+
+		Assert.assertFalse(cache.put("huge", Collections.nCopies(10, row), 0));
+	}
+
+	@Test
+	public void testKeyNormalizesWhitespace() {
+		Assert.assertEquals(QueryResultCache.key("m", "select *  from user\n where id = ?", new Object[] { 1 }),
+				QueryResultCache.key("m", " select * from user where id = ? ", new Object[] { 1 }));
+		Assert.assertNotEquals(QueryResultCache.key("m", "select * from user where id = ?", new Object[] { 1 }),
+				QueryResultCache.key("m", "select * from user where id = ?", new Object[] { 2 }));
+	}
+
+}
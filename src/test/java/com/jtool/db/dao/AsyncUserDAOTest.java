@@ -0,0 +1,69 @@
+package com.jtool.db.dao;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class AsyncUserDAOTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private UserDAO userDAO;
+
+	@Test
+	public void testIndependentQueriesOverlap() {
+		CompletableFuture<Integer> count = userDAO.countTotalAsync();
+		CompletableFuture<Optional<User>> user = userDAO.selectByIdAsync(2);
+		CompletableFuture<List<User>> young = userDAO.selectFilterByAsListAsync("where age < ?", 20);
+
+		CompletableFuture.allOf(count, user, young).join();
+
+		Assert.assertEquals(3, count.join().intValue());
+		Assert.assertEquals("KKL", user.join().get().getName());
+		Assert.assertEquals(2, young.join().size());
+	}
+
+	@Test
+	public void testAddAndDeleteAsync() {
+		User user = new User();
+		user.setName("async");
+		user.setAge(5);
+
+		int id = userDAO.addAsync(user).join();
+		Assert.assertTrue(userDAO.selectById(id).isPresent());
+		Assert.assertEquals(1, userDAO.deleteByIdAsync(id).join().intValue());
+		Assert.assertFalse(userDAO.selectById(id).isPresent());
+	}
+
+	@Test
+	public void testExecutorShutsDownWithLastReference() throws Exception {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource();
+		Executor first = AsyncExecutors.forDataSource(dataSource, "refCount", 1, false);
+		Assert.assertSame(first, AsyncExecutors.forDataSource(dataSource, "refCount", 1, false));
+
+		AsyncExecutors.release(dataSource);
+		Assert.assertEquals("ran", CompletableFuture.supplyAsync(() -> "ran", first).get(5, TimeUnit.SECONDS));
+
+		AsyncExecutors.release(dataSource);
+		Assert.assertTrue(((ExecutorService) first).isShutdown());
+		Assert.assertNotSame(first, AsyncExecutors.forDataSource(dataSource, "refCount", 1, false));
+		AsyncExecutors.release(dataSource);
+	}
+
+	@Test
+	public void testPoolSizeFallback() {
+		Assert.assertEquals(AsyncExecutors.DEFAULT_MAX_CONCURRENCY, AsyncExecutors.poolSizeOf(new DriverManagerDataSource()));
+	}
+
+}
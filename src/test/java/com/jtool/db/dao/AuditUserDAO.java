@@ -0,0 +1,31 @@
+package com.jtool.db.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.stereotype.Repository;
+
+import com.jtool.db.annotation.DataSource;
+import com.jtool.db.annotation.Mapper;
+import com.jtool.db.annotation.TableName;
+import com.jtool.db.annotation.WriteBehind;
+
+@Repository
+@TableName("user")
+@DataSource("dataSource")
+@WriteBehind(batchSize = 40, flushInterval = 50, maxRetries = 2, retryBackoff = 10, failureHandler = "auditFailureHandler")
+public class AuditUserDAO extends AbstractDAO {
+
+	@Mapper
+	public static final class ObjectRowMapper implements org.springframework.jdbc.core.RowMapper<User> {
+		public User mapRow(ResultSet rs, int rowNum) throws SQLException {
+			User o = new User();
+			o.setId(rs.getInt("id"));
+			o.setName(rs.getString("name"));
+			o.setAge(rs.getInt("age"));
+
+			return o;
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.jtool.db.dao;
+
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class AuditUserDAOTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private AuditUserDAO auditUserDAO;
+
+	@Resource
+	private RecordingFailureHandler auditFailureHandler;
+
+	@After
+	public void tearDown() {
+		auditUserDAO.deleteBy("where name = ?", "audit");
+	}
+
+	@Test
+	public void testAddWriteBehind() {
+		long flushedRows = auditUserDAO.getWriteBehindStats().get().getFlushedRows();
+		for (int i = 0; i < 100; i++) {
+			auditUserDAO.addWriteBehind(genUserPojo("audit", i));
+		}
+		auditUserDAO.flushWriteBehind();
+
+		Assert.assertEquals(100, auditUserDAO.countTotalFilterBy("where name = ?", "audit"));
+		WriteBehindStats stats = auditUserDAO.getWriteBehindStats().get();
+		Assert.assertEquals(flushedRows + 100, stats.getFlushedRows());
+		Assert.assertEquals(0, stats.getQueueDepth());
+		Assert.assertTrue(stats.getFlushCount() >= 3);
+	}
+
+	@Test
+	public void testFlushByInterval() throws InterruptedException {
+		auditUserDAO.addWriteBehind(genUserPojo("audit", 1));
+
+		for (int i = 0; i < 100 && auditUserDAO.countTotalFilterBy("where name = ?", "audit") == 0; i++) {
+			Thread.sleep(20);
+		}
+		Assert.assertEquals(1, auditUserDAO.countTotalFilterBy("where name = ?", "audit"));
+	}
+
+	@Test
+	public void testFailedBatchGoesToFailureHandler() {
+		long failedRows = auditUserDAO.getWriteBehindStats().get().getFailedRows();
+		auditFailureHandler.rows.clear();
+		User invalid = genUserPojo(null, 1);
+		auditUserDAO.addWriteBehind(invalid);
+		auditUserDAO.flushWriteBehind();
+
+		Assert.assertEquals(1, auditFailureHandler.rows.size());
+		Assert.assertSame(invalid, auditFailureHandler.rows.get(0));
+		Assert.assertEquals(failedRows + 1, auditUserDAO.getWriteBehindStats().get().getFailedRows());
+
+		auditUserDAO.addWriteBehind(genUserPojo("audit", 2));
+		auditUserDAO.flushWriteBehind();
+		Assert.assertEquals(1, auditUserDAO.countTotalFilterBy("where name = ?", "audit"));
+		Assert.assertEquals(1, auditFailureHandler.rows.size());
+	}
+
+	@Test
+	public void testFailedRowInBatchRollsBackWholeBatch() {
+		auditFailureHandler.rows.clear();
+		auditUserDAO.addWriteBehind(genUserPojo("audit", 1));
+		auditUserDAO.addWriteBehind(genUserPojo("audit", 2));
+		auditUserDAO.addWriteBehind(genUserPojo(null, 3));
+		auditUserDAO.addWriteBehind(genUserPojo("audit", 4));
+		auditUserDAO.flushWriteBehind();
+
+		// 每次重试前都已回滚，前两行不会被重复写入
+		Assert.assertEquals(0, auditUserDAO.countTotalFilterBy("where name = ?", "audit"));
+		Assert.assertEquals(4, auditFailureHandler.rows.size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAddWriteBehindNotEnabled() {
+		applicationContext.getBean(UserDAO.class).addWriteBehind(genUserPojo("audit", 1));
+	}
+
+	private User genUserPojo(String name, int age) {
+		User user = new User();
+		user.setAge(age);
+		user.setName(name);
+		return user;
+	}
+
+}
@@ -1,15 +1,19 @@
 package com.jtool.db.dao;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.annotation.Resource;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.dao.DataAccessException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.AbstractTransactionalJUnit4SpringContextTests;
 
+import com.jtool.db.metrics.OperationStatsSnapshot;
+
 @ContextConfiguration(locations = "/testDB-config.xml")
 public class BatchUpdateTest extends AbstractTransactionalJUnit4SpringContextTests {
 
@@ -30,6 +34,113 @@ public class BatchUpdateTest extends AbstractTransactionalJUnit4SpringContextTes
 		Assert.assertEquals(10003, userDAO.countTotal());
 	}
 
+	@Test
+	public void testAddAll() {
+		List<User> users = new ArrayList<User>();
+		for (int i = 0; i < 10000; i++) {
+			users.add(genUserPojo(0, i + "", i));
+		}
+		int[] ids = userDAO.addAll(users, 1000, false);
+
+		assertInserted(users, ids);
+	}
+
+	@Test
+	public void testAddAllWithMultiRowValues() {
+		List<User> users = new ArrayList<User>();
+		for (int i = 0; i < 10000; i++) {
+			users.add(genUserPojo(0, i + "", i));
+		}
+		int[] ids = userDAO.addAll(users, 300, true);
+
+		assertInserted(users, ids);
+	}
+
+	private void assertInserted(List<User> users, int[] ids) {
+		Assert.assertEquals(users.size(), ids.length);
+		Assert.assertEquals(3 + users.size(), userDAO.countTotal());
+		for (int i = 1; i < ids.length; i++) {
+			Assert.assertTrue(ids[i] > ids[i - 1]);
+		}
+		Assert.assertEquals(ids.length, userDAO.countTotalFilterBy("where id >= ? and id <= ?", ids[0], ids[ids.length - 1]));
+		for (int i : new int[] { 0, 299, 300, 999, 1000, ids.length - 1 }) {
+			User inserted = userDAO.<User>selectById(ids[i]).get();
+			Assert.assertEquals(users.get(i).getName(), inserted.getName());
+			Assert.assertEquals(users.get(i).getAge(), inserted.getAge());
+		}
+	}
+
+	@Test
+	public void testUpsertAll() {
+		List<User> users = new ArrayList<User>();
+		users.add(genUserPojo(1, "jialechan", 9));
+		for (int i = 0; i < 2500; i++) {
+			users.add(genUserPojo(1000 + i, i + "", i));
+		}
+		List<UpsertOutcome> outcomes = userDAO.upsertAll(users);
+
+		Assert.assertEquals(2501, outcomes.size());
+		Assert.assertEquals(UpsertOutcome.UPDATED, outcomes.get(0));
+		Assert.assertEquals(UpsertOutcome.INSERTED, outcomes.get(2500));
+		Assert.assertEquals(2503, userDAO.countTotal());
+		Assert.assertEquals(9, userDAO.<User>selectById(1).get().getAge());
+		Assert.assertEquals("2499", userDAO.<User>selectById(3499).get().getName());
+
+		outcomes = userDAO.upsertAll(Arrays.asList(genUserPojo(3499, "changed", 1)));
+		Assert.assertEquals(Arrays.asList(UpsertOutcome.UPDATED), outcomes);
+		Assert.assertEquals("changed", userDAO.<User>selectById(3499).get().getName());
+	}
+
+	@Test
+	public void testUpdateAllById() {
+		int[] counts = userDAO.updateAllById(Arrays.asList(genUserPojo(2, "kkl", 19), genUserPojo(99, "nobody", 1), genUserPojo(3, "ken", 29)));
+
+		Assert.assertArrayEquals(new int[] { 1, 0, 1 }, counts);
+		Assert.assertEquals("kkl", userDAO.<User>selectById(2).get().getName());
+		Assert.assertNotNull(userDAO.getQueryMetrics().getOperation("updateAllById", "update user set name = ?, age = ? where id = ?"));
+		Assert.assertEquals(29, userDAO.<User>selectById(3).get().getAge());
+		Assert.assertEquals(3, userDAO.countTotal());
+	}
+
+	@Test
+	public void testUpdateAllByIdKeepsNullColumns() {
+		int[] counts = userDAO.updateAllById(Arrays.asList(genUserPojo(2, null, 40), genUserPojo(3, "ken", 29)));
+
+		Assert.assertArrayEquals(new int[] { 1, 1 }, counts);
+		User partial = userDAO.<User>selectById(2).get();
+		Assert.assertEquals("KKL", partial.getName());
+		Assert.assertEquals(40, partial.getAge());
+		Assert.assertEquals("ken", userDAO.<User>selectById(3).get().getName());
+	}
+
+	@Test
+	public void testUpsertAllKeepsNullColumns() {
+		List<UpsertOutcome> outcomes = userDAO.upsertAll(Arrays.asList(genUserPojo(1, null, 11), genUserPojo(50, "new", 5), genUserPojo(2, "kkl", 19)));
+
+		Assert.assertEquals(Arrays.asList(UpsertOutcome.UPDATED, UpsertOutcome.INSERTED, UpsertOutcome.UPDATED), outcomes);
+		User partial = userDAO.<User>selectById(1).get();
+		Assert.assertEquals("jialechan", partial.getName());
+		Assert.assertEquals(11, partial.getAge());
+		Assert.assertEquals("new", userDAO.<User>selectById(50).get().getName());
+		Assert.assertEquals("kkl", userDAO.<User>selectById(2).get().getName());
+	}
+
+	@Test
+	public void testFailedAddRecordsInsertStatement() {
+		userDAO.add(genUserPojo(0, "compiled", 1));
+		long errors = errorCount(userDAO.simpleJdbcInsert.getInsertString());
+		try {
+			userDAO.add(genUserPojo(0, null, 1));
+			Assert.fail();
+		} catch (DataAccessException e) {
+			Assert.assertEquals(errors + 1, errorCount(userDAO.simpleJdbcInsert.getInsertString()));
+		}
+	}
+
+	private long errorCount(String sql) {
+		OperationStatsSnapshot snapshot = userDAO.getQueryMetrics().getOperation("add", sql);
+		return snapshot == null ? 0 : snapshot.getErrorCount();
+	}
 
 	private User genUserPojo(int id, String name, int age) {
 		User user = new User();
@@ -0,0 +1,17 @@
+package com.jtool.db.dao;
+
+import org.springframework.stereotype.Repository;
+
+import com.jtool.db.annotation.Bulkhead;
+import com.jtool.db.annotation.DataSource;
+import com.jtool.db.annotation.EntityClass;
+import com.jtool.db.annotation.TableName;
+
+@Repository
+@TableName("user")
+@DataSource("dataSource")
+@EntityClass(User.class)
+@Bulkhead(daoMaxConcurrency = 1, maxWait = 50)
+public class BulkheadUserDAO extends AbstractDAO {
+
+}
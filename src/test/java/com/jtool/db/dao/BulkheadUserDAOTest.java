@@ -0,0 +1,93 @@
+package com.jtool.db.dao;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.annotation.Resource;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+
+import com.jtool.db.exception.AdmissionRejectedException;
+import com.jtool.db.routing.Replica;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class BulkheadUserDAOTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private BulkheadUserDAO bulkheadUserDAO;
+
+	@Resource
+	private BulkheadReplicatedUserDAO bulkheadReplicatedUserDAO;
+
+	@Test
+	public void testRejectsWhenDaoLimitReached() {
+		try(Stream<User> users = bulkheadUserDAO.selectAllAsStream()) {
+			Assert.assertTrue(users.iterator().hasNext());
+			try {
+				bulkheadUserDAO.selectById(1);
+				Assert.fail();
+			} catch (AdmissionRejectedException e) {
+				// 流还占着连接
+			}
+		}
+
+		Assert.assertEquals("jialechan", bulkheadUserDAO.<User> selectById(1).get().getName());
+
+		List<BulkheadStats> stats = bulkheadUserDAO.getBulkheadStats();
+		Assert.assertEquals(2, stats.size());
+		BulkheadStats daoStats = stats.get(0);
+		Assert.assertEquals("BulkheadUserDAO", daoStats.getName());
+		Assert.assertEquals(1, daoStats.getLimit());
+		Assert.assertEquals(0, daoStats.getInFlight());
+		Assert.assertTrue(daoStats.getRejectedCount() >= 1);
+		Assert.assertTrue(daoStats.getAdmittedCount() >= 2);
+	}
+
+	@Test
+	public void testRejectedStreamReleasesReplica() {
+		Replica replica = bulkheadReplicatedUserDAO.replicaSet.getReplicas().get(0);
+		try(Stream<User> users = bulkheadReplicatedUserDAO.selectAllAsStream()) {
+			Assert.assertTrue(users.iterator().hasNext());
+			Assert.assertEquals(1, replica.getInFlight());
+			try {
+				bulkheadReplicatedUserDAO.selectAllAsStream();
+				Assert.fail();
+			} catch (AdmissionRejectedException e) {
+				Assert.assertEquals(1, replica.getInFlight());
+			}
+		}
+		Assert.assertEquals(0, replica.getInFlight());
+		Assert.assertEquals(1, bulkheadReplicatedUserDAO.getQueryMetrics().getOperation("queryAsStream", "select * from user").getErrorCount());
+	}
+
+	@Test
+	public void testAdaptiveLimitBacksOffOnLatency() {
+		ConcurrencyLimiter limiter = new ConcurrencyLimiter("adaptive", 10, 0, true, 2);
+		for(int i = 0; i < ConcurrencyLimiter.WINDOW_SIZE; i++) {
+			limiter.acquire();
+			limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+		}
+		Assert.assertEquals(10, limiter.stats().getLimit());
+
+		for(int round = 0; round < 20; round++) {
+			for(int i = 0; i < ConcurrencyLimiter.WINDOW_SIZE; i++) {
+				limiter.acquire();
+				limiter.release(TimeUnit.MILLISECONDS.toNanos(1) * ConcurrencyLimiter.LATENCY_TOLERANCE * 5);
+			}
+		}
+		Assert.assertEquals(2, limiter.stats().getLimit());
+
+		limiter.acquire();
+		limiter.acquire();
+		try {
+			limiter.acquire();
+			Assert.fail();
+		} catch (AdmissionRejectedException e) {
+			Assert.assertEquals(1, limiter.stats().getRejectedCount());
+		}
+	}
+}
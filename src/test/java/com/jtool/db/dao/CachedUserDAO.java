@@ -0,0 +1,35 @@
+package com.jtool.db.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.stereotype.Repository;
+
+import com.jtool.db.annotation.BatchLookup;
+import com.jtool.db.annotation.DataSource;
+import com.jtool.db.annotation.EntityCache;
+import com.jtool.db.annotation.Mapper;
+import com.jtool.db.annotation.ResultCache;
+import com.jtool.db.annotation.TableName;
+
+@Repository
+@TableName("user")
+@DataSource("dataSource")
+@EntityCache(maxSize = 2, ttl = 60000)
+@BatchLookup(chunkSize = 2, parallelism = 2)
+@ResultCache(maxBytes = 64 * 1024, ttl = 60000)
+public class CachedUserDAO extends AbstractDAO {
+
+	@Mapper
+	public static final class ObjectRowMapper implements org.springframework.jdbc.core.RowMapper<User> {
+		public User mapRow(ResultSet rs, int rowNum) throws SQLException {
+			User o = new User();
+			o.setId(rs.getInt("id"));
+			o.setName(rs.getString("name"));
+			o.setAge(rs.getInt("age"));
+
+			return o;
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+package com.jtool.db.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+
+import com.jtool.db.cache.CacheStats;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class CachedUserDAOTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private CachedUserDAO cachedUserDAO;
+
+	@Resource
+	private UserDAO userDAO;
+
+	private int id;
+
+	@Before
+	public void setUp() {
+		User user = new User();
+		user.setName("cached");
+		user.setAge(99);
+		id = cachedUserDAO.add(user);
+	}
+
+	@After
+	public void tearDown() {
+		cachedUserDAO.deleteById(id);
+	}
+
+	@Test
+	public void testSelectByIdHitsCache() {
+		long hits = cachedUserDAO.getEntityCacheStats().get().getHitCount();
+
+		Optional<User> first = cachedUserDAO.selectById(id);
+		Optional<User> second = cachedUserDAO.selectById(id);
+
+		Assert.assertTrue(first.isPresent());
+		Assert.assertSame(first.get(), second.get());
+		Assert.assertEquals(hits + 1, cachedUserDAO.getEntityCacheStats().get().getHitCount());
+	}
+
+	@Test
+	public void testCachedEntityIsShared() {
+		cachedUserDAO.evictAllEntities();
+		User first = cachedUserDAO.<User>selectById(id).get();
+		first.setName("changed by caller");
+
+		// 缓存的对象不复制，调用方的修改对其他调用方可见，直到被淘汰
+		Assert.assertEquals("changed by caller", cachedUserDAO.<User>selectById(id).get().getName());
+		cachedUserDAO.evictAllEntities();
+		Assert.assertEquals("cached", cachedUserDAO.<User>selectById(id).get().getName());
+	}
+
+	@Test
+	public void testSelectByIdsInParallelChunks() {
+		cachedUserDAO.evictAllEntities();
+		cachedUserDAO.selectById(id);
+		long hits = cachedUserDAO.getEntityCacheStats().get().getHitCount();
+
+		List<Object> missing = new ArrayList<>();
+		Map<Object, User> users = cachedUserDAO.selectByIds(Arrays.asList(id, 1, 2, 3, -1), true, missing);
+
+		Assert.assertEquals(Arrays.asList(id, 1, 2, 3), new ArrayList<>(users.keySet()));
+		Assert.assertEquals("cached", users.get(id).getName());
+		Assert.assertEquals("Ken", users.get(3).getName());
+		Assert.assertEquals(Arrays.asList(-1), missing);
+		Assert.assertEquals(hits + 1, cachedUserDAO.getEntityCacheStats().get().getHitCount());
+	}
+
+	@Test
+	public void testResultCacheInvalidatedByTableWrites() {
+		Assert.assertEquals(1, cachedUserDAO.selectFilterByAsRows("where age = ?", 99).size());
+
+		// 绕过DAO的写入不会使缓存失效
+		cachedUserDAO.jdbcTemplate.update("update user set age = ? where id = ?", 98, id);
+		List<Map<String, Object>> rows = cachedUserDAO.selectFilterByAsRows("where age = ?", 99);
+		Assert.assertEquals(1, rows.size());
+		rows.clear();
+		Assert.assertEquals(1, cachedUserDAO.getResultCacheStats().get().getHitCount());
+
+		// 同一张表的其他DAO写入后不再返回旧结果
+		userDAO.execUpdate("update user set age = ? where id = ?", 99, 1);
+		try {
+			Assert.assertEquals(1, cachedUserDAO.selectFilterByAsRows("where age = ?", 99).size());
+			Assert.assertEquals(1, cachedUserDAO.<User>selectFilterByAsList("where age = ?", 99).size());
+		} finally {
+			userDAO.execUpdate("update user set age = ? where id = ?", 8, 1);
+		}
+	}
+
+	@Test
+	public void testCachedRowsAreShared() {
+		List<Map<String, Object>> first = cachedUserDAO.selectFilterByAsRows("where age = ?", 99);
+		List<Map<String, Object>> second = cachedUserDAO.selectFilterByAsRows("where age = ?", 99);
+
+		// 列表是副本，行对象是共享的
+		Assert.assertNotSame(first, second);
+		Assert.assertSame(first.get(0), second.get(0));
+	}
+
+	@Test
+	public void testExecUpdateInvalidatesCache() {
+		cachedUserDAO.selectById(id);
+
+		cachedUserDAO.execUpdate("update " + cachedUserDAO.getTableName() + " set name = ? where id = ?", "changed", id);
+
+		Optional<User> user = cachedUserDAO.selectById(id);
+		Assert.assertEquals("changed", user.get().getName());
+	}
+
+	@Test
+	public void testDeleteByIdInvalidatesCache() {
+		cachedUserDAO.selectById(id);
+		cachedUserDAO.deleteById(id);
+
+		Assert.assertFalse(cachedUserDAO.selectById(id).isPresent());
+	}
+
+	@Test
+	public void testEviction() {
+		cachedUserDAO.selectById(1);
+		cachedUserDAO.selectById(2);
+		cachedUserDAO.selectById(id);
+
+		CacheStats stats = cachedUserDAO.getEntityCacheStats().get();
+		Assert.assertEquals(2, stats.getSize());
+		Assert.assertTrue(stats.getEvictionCount() > 0);
+	}
+
+	@Test
+	public void testNoEntityCacheStatsWhenDisabled() {
+		Assert.assertFalse(applicationContext.getBean(UserDAO.class).getEntityCacheStats().isPresent());
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.jtool.db.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+
+import com.jtool.db.delete.ChunkedDeleteOptions;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class ChunkedDeleteTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private UserDAO userDAO;
+
+	@After
+	public void cleanUp() {
+		userDAO.deleteBy("where id > ?", 3);
+	}
+
+	@Test
+	public void testDeleteInChunks() {
+		addUsers("purge", 25);
+		List<Integer> chunks = new ArrayList<>();
+		List<Long> totals = new ArrayList<>();
+		ChunkedDeleteOptions options = ChunkedDeleteOptions.of(10).withListener((chunkRows, totalDeleted) -> {
+			chunks.add(chunkRows);
+			totals.add(totalDeleted);
+		});
+
+		long deleted = userDAO.deleteByInChunks("where name like ?", options, "purge%");
+
+		Assert.assertEquals(25, deleted);
+		Assert.assertEquals("[10, 10, 5]", chunks.toString());
+		Assert.assertEquals("[10, 20, 25]", totals.toString());
+		Assert.assertEquals(3, userDAO.countTotal());
+	}
+
+	@Test
+	public void testRowsPerSecondLimit() {
+		addUsers("slow", 6);
+		long begin = System.currentTimeMillis();
+
+		long deleted = userDAO.deleteByInChunks("where name like ?", ChunkedDeleteOptions.of(2).withMaxRowsPerSecond(20), "slow%");
+
+		Assert.assertEquals(6, deleted);
+		Assert.assertTrue(System.currentTimeMillis() - begin >= 200);
+	}
+
+	@Test
+	public void testNothingToDelete() {
+		Assert.assertEquals(0, userDAO.deleteByInChunks("where name = ?", ChunkedDeleteOptions.of(10).withPause(1000), "nobody"));
+		Assert.assertEquals(3, userDAO.countTotal());
+	}
+
+	private void addUsers(String prefix, int count) {
+		List<User> users = new ArrayList<>();
+		for(int i = 0; i < count; i++) {
+			User user = new User();
+			user.setName(prefix + i);
+			user.setAge(i);
+			users.add(user);
+		}
+		userDAO.batchUpdate(users);
+	}
+
+}
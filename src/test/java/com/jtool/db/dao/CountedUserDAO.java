@@ -0,0 +1,24 @@
+package com.jtool.db.dao;
+
+import org.springframework.stereotype.Repository;
+
+import com.jtool.db.annotation.CountCache;
+import com.jtool.db.annotation.DataSource;
+import com.jtool.db.annotation.EntityClass;
+import com.jtool.db.annotation.TableName;
+
+@Repository
+@TableName("user")
+@DataSource("dataSource")
+@EntityClass(User.class)
+@CountCache(ttl = 60000, approximate = true, approximateThreshold = 1000)
+public class CountedUserDAO extends AbstractDAO {
+
+	Long tableRowEstimate;
+
+	@Override
+	protected Long readTableRowEstimate() {
+		return tableRowEstimate == null ? super.readTableRowEstimate() : tableRowEstimate;
+	}
+
+}
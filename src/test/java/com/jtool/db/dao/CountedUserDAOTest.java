@@ -0,0 +1,54 @@
+package com.jtool.db.dao;
+
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class CountedUserDAOTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private CountedUserDAO countedUserDAO;
+
+	@After
+	public void tearDown() {
+		countedUserDAO.tableRowEstimate = null;
+		countedUserDAO.deleteBy("where name = ?", "counted");
+	}
+
+	@Test
+	public void testCountIsCachedUntilWriteThroughDAO() {
+		Assert.assertEquals(2, countedUserDAO.countTotalFilterBy("where age < ?", 20));
+
+		// 绕过DAO的写入不会清空缓存
+		countedUserDAO.jdbcTemplate.update("insert into user (name, age) values (?, ?)", "counted", 1);
+		Assert.assertEquals(2, countedUserDAO.countTotalFilterBy("where age < ?", 20));
+		Assert.assertEquals(1, countedUserDAO.countCache.stats().getHitCount());
+		Assert.assertEquals(1, countedUserDAO.countTotalFilterBy("where age < ?", 5));
+
+		User user = new User();
+		user.setName("counted");
+		user.setAge(2);
+		countedUserDAO.add(user);
+		Assert.assertEquals(4, countedUserDAO.countTotalFilterBy("where age < ?", 20));
+	}
+
+	@Test
+	public void testApproximateCount() {
+		countedUserDAO.tableRowEstimate = 123456L;
+		Assert.assertEquals(123456, countedUserDAO.countTotal());
+
+		// 估算值低于阈值时精确计算
+		countedUserDAO.tableRowEstimate = 10L;
+		Assert.assertEquals(3, countedUserDAO.countTotal());
+
+		// HSQLDB没有table_rows，读取失败后退回精确计算
+		countedUserDAO.tableRowEstimate = null;
+		Assert.assertEquals(3, countedUserDAO.countTotal());
+	}
+
+}
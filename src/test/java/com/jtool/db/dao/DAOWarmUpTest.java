@@ -0,0 +1,117 @@
+package com.jtool.db.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.Resource;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+
+import com.jtool.db.mapping.Projection;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class DAOWarmUpTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private UserDAO userDAO;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testWarmUpWritesSnapshot() throws Exception {
+		Path snapshotFile = folder.getRoot().toPath().resolve("metadata.properties");
+		DAOWarmUp warmUp = newWarmUp(snapshotFile);
+
+		Map<String, Long> timings = warmUp.warmUp();
+
+		Assert.assertTrue(timings.containsKey("userDAO"));
+		Assert.assertEquals(timings, warmUp.getTimings());
+		Assert.assertTrue(userDAO.simpleJdbcInsert.isCompiled());
+		String snapshot = new String(Files.readAllBytes(snapshotFile), StandardCharsets.UTF_8);
+		Assert.assertTrue(snapshot.contains("dataSource.user="));
+	}
+
+	@Test
+	public void testSnapshotSkipsMetadataQueries() {
+		TableColumns actual = userDAO.readTableColumns();
+		UserDAO dao = newUserDAO();
+		try {
+			Assert.assertSame(actual, dao.warmUp(actual));
+			Assert.assertTrue(dao.simpleJdbcInsert.isCompiled());
+
+			User user = new User();
+			user.setName("warmUp");
+			user.setAge(1);
+			int id = dao.add(user);
+			Assert.assertEquals("warmUp", dao.<User> selectById(id).get().getName());
+			dao.deleteById(id);
+		} finally {
+			dao.destroy();
+		}
+	}
+
+	@Test
+	public void testStaleSnapshotIsRecompiled() {
+		TableColumns actual = userDAO.readTableColumns();
+		TableColumns stale = TableColumns.decode(actual.encode().replace(",age:4", ""));
+		UserDAO dao = newUserDAO();
+		try {
+			dao.warmUp(stale);
+			Assert.assertEquals(28, dao.selectFilterByAsSingle(Projection.of(User.class), "where id = ?", 3).get().getAge());
+			DAOWarmUp warmUp = newWarmUp(folder.getRoot().toPath().resolve("stale.properties"));
+			warmUp.verifySnapshot(Collections.singletonList(dao), Collections.singletonMap("dataSource.user", stale),
+					Collections.synchronizedMap(new TreeMap<>()));
+
+			Assert.assertFalse(dao.simpleJdbcInsert.isCompiled());
+			Assert.assertEquals(28, dao.selectFilterByAsSingle(Projection.of(User.class), "where id = ?", 3).get().getAge());
+			Assert.assertEquals(actual, dao.warmUp(null));
+		} finally {
+			dao.destroy();
+		}
+	}
+
+	@Test
+	public void testWriteWithStaleSnapshotRecompilesAndRetries() {
+		TableColumns actual = userDAO.readTableColumns();
+		TableColumns stale = TableColumns.decode(actual.encode().replace(",age:4", ""));
+		UserDAO dao = newUserDAO();
+		try {
+			dao.warmUp(stale);
+
+			User user = new User();
+			user.setName("stale");
+			user.setAge(7);
+			int id = dao.add(user);
+			Assert.assertEquals(7, dao.<User> selectById(id).get().getAge());
+			dao.deleteById(id);
+		} finally {
+			dao.destroy();
+		}
+	}
+
+	private DAOWarmUp newWarmUp(Path snapshotFile) {
+		DAOWarmUp warmUp = new DAOWarmUp();
+		warmUp.setApplicationContext(applicationContext);
+		warmUp.setSnapshotFile(snapshotFile.toString());
+		warmUp.setPrefetchConnections(2);
+		return warmUp;
+	}
+
+	private UserDAO newUserDAO() {
+		UserDAO dao = new UserDAO();
+		dao.setApplicationContext(applicationContext);
+		dao.init();
+		return dao;
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.jtool.db.dao;
+
+import org.springframework.stereotype.Repository;
+
+import com.jtool.db.annotation.DataSource;
+import com.jtool.db.annotation.EntityClass;
+import com.jtool.db.annotation.TableName;
+
+@Repository
+@TableName("user")
+@DataSource("dataSource")
+@EntityClass(User.class)
+public class EntityUserDAO extends AbstractDAO {
+}
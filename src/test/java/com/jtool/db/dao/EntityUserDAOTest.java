@@ -0,0 +1,71 @@
+package com.jtool.db.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import javax.annotation.Resource;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractTransactionalJUnit4SpringContextTests;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class EntityUserDAOTest extends AbstractTransactionalJUnit4SpringContextTests {
+
+	@Resource
+	private EntityUserDAO entityUserDAO;
+
+	@Test
+	public void testSelectAll() {
+		List<User> users = new ArrayList<>();
+		users.add(genUserPojo(1, "jialechan", 8));
+		users.add(genUserPojo(2, "KKL", 18));
+		users.add(genUserPojo(3, "Ken", 28));
+
+		Assert.assertEquals(users, entityUserDAO.selectAll());
+	}
+
+	@Test
+	public void testSelectWithPartialColumns() {
+		String sql = "select name, id from " + entityUserDAO.getTableName() + " where id = ?";
+
+		User user = entityUserDAO.execSelectSqlAsObject(sql, 2);
+
+		Assert.assertEquals(genUserPojo(2, "KKL", 0), user);
+	}
+
+	@Test
+	public void testAdd() {
+		User user = genUserPojo(0, "Tim", 1);
+
+		int id = entityUserDAO.add(user);
+		user.setId(id);
+
+		Optional<User> userFromDb = entityUserDAO.selectById(id);
+		Assert.assertEquals(user, userFromDb.get());
+	}
+
+	@Test
+	public void testAddAll() {
+		List<User> users = new ArrayList<>();
+		users.add(genUserPojo(0, "Tim", 1));
+		users.add(genUserPojo(0, "Tom", 2));
+
+		int[] ids = entityUserDAO.addAll(users);
+
+		Assert.assertEquals(users.get(0).getAge(), entityUserDAO.<User>selectById(ids[0]).get().getAge());
+		Assert.assertEquals("Tom", entityUserDAO.<User>selectById(ids[1]).get().getName());
+		Assert.assertEquals(users.get(1).getAge(), entityUserDAO.<User>selectById(ids[1]).get().getAge());
+	}
+
+	private User genUserPojo(int id, String name, int age) {
+		User user = new User();
+		user.setAge(age);
+		user.setName(name);
+		user.setId(id);
+		return user;
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.jtool.db.dao;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.stereotype.Component;
+
+@Component("auditFailureHandler")
+public class RecordingFailureHandler implements WriteBehindFailureHandler {
+
+	final List<Object> rows = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void onFailure(String tableName, List<Object> failedRows, RuntimeException cause) {
+		rows.addAll(failedRows);
+	}
+}
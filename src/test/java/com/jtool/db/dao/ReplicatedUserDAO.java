@@ -0,0 +1,15 @@
+package com.jtool.db.dao;
+
+import org.springframework.stereotype.Repository;
+
+import com.jtool.db.annotation.DataSource;
+import com.jtool.db.annotation.EntityClass;
+import com.jtool.db.annotation.TableName;
+import com.jtool.db.routing.LoadBalance;
+
+@Repository
+@TableName("user")
+@DataSource(value = "dataSource", replicas = { "brokenReplicaDataSource", "replicaDataSource" }, loadBalance = LoadBalance.ROUND_ROBIN)
+@EntityClass(User.class)
+public class ReplicatedUserDAO extends AbstractDAO {
+}
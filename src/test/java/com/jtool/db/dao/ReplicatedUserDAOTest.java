@@ -0,0 +1,67 @@
+package com.jtool.db.dao;
+
+import java.util.stream.Stream;
+
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jtool.db.routing.Replica;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class ReplicatedUserDAOTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private ReplicatedUserDAO replicatedUserDAO;
+
+	@Resource
+	private PlatformTransactionManager transactionManager;
+
+	@Before
+	public void setUp() {
+		replicatedUserDAO.execUpdate("update " + replicatedUserDAO.getTableName() + " set name = ? where id = ?", "primary", 1);
+	}
+
+	@After
+	public void tearDown() {
+		replicatedUserDAO.execUpdate("update " + replicatedUserDAO.getTableName() + " set name = ? where id = ?", "jialechan", 1);
+	}
+
+	@Test
+	public void testReadsGoToReplica() {
+		for (int i = 0; i < 4; i++) {
+			Assert.assertEquals("jialechan", replicatedUserDAO.<User>selectById(1).get().getName());
+		}
+		try (Stream<User> stream = replicatedUserDAO.selectFilterByAsStream("where id = ?", 1)) {
+			Assert.assertEquals("jialechan", stream.findFirst().get().getName());
+		}
+	}
+
+	@Test
+	public void testReadsInTransactionGoToPrimary() {
+		String name = new TransactionTemplate(transactionManager).execute(status -> replicatedUserDAO.<User>selectById(1).get().getName());
+		Assert.assertEquals("primary", name);
+	}
+
+	@Test
+	public void testBrokenReplicaIsTakenOutOfRotation() {
+		for (int i = 0; i < 4; i++) {
+			replicatedUserDAO.countTotal();
+		}
+
+		Replica broken = replicatedUserDAO.replicaSet.getReplicas().get(0);
+		Replica healthy = replicatedUserDAO.replicaSet.getReplicas().get(1);
+		Assert.assertFalse(broken.isAvailable());
+		Assert.assertTrue(healthy.isAvailable());
+		Assert.assertEquals(0, broken.getInFlight());
+		Assert.assertEquals(0, healthy.getInFlight());
+	}
+
+}
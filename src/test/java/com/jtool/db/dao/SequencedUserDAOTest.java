@@ -0,0 +1,83 @@
+package com.jtool.db.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class SequencedUserDAOTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private SequencedUserDAO sequencedUserDAO;
+
+	@Resource
+	private UserDAO userDAO;
+
+	@After
+	public void cleanUp() {
+		userDAO.deleteBy("where id > ?", 3);
+	}
+
+	@Test
+	public void testAddUsesReservedBlocks() {
+		List<Integer> ids = new ArrayList<>();
+		for(int i = 0; i < 3; i++) {
+			User user = genUser("seq" + i);
+			ids.add(sequencedUserDAO.add(user));
+			Assert.assertEquals(ids.get(i).intValue(), user.getId());
+		}
+		Assert.assertEquals(ids.get(0) + 1, ids.get(1).intValue());
+		Assert.assertEquals(ids.get(1) + 1, ids.get(2).intValue());
+		Assert.assertTrue(ids.get(0) > 3);
+		Assert.assertEquals("seq2", sequencedUserDAO.<User> selectById(ids.get(2)).get().getName());
+
+		long nextId = new JdbcTemplate(sequencedUserDAO.dataSource).queryForObject("select next_id from id_sequence where name = ?", Long.class, "user");
+		Assert.assertTrue(nextId > ids.get(2));
+	}
+
+	@Test
+	public void testAddAllCarriesAllocatedIds() {
+		List<User> users = new ArrayList<>();
+		for(int i = 0; i < 5; i++) {
+			users.add(genUser("batch" + i));
+		}
+		int[] ids = sequencedUserDAO.addAll(users, 2, true);
+
+		for(int i = 0; i < ids.length; i++) {
+			Assert.assertEquals(users.get(i).getId(), ids[i]);
+			Assert.assertEquals("batch" + i, sequencedUserDAO.<User> selectById(ids[i]).get().getName());
+			if(i > 0) {
+				Assert.assertTrue(ids[i] > ids[i - 1]);
+			}
+		}
+	}
+
+	@Test
+	public void testKnownIdIsKept() {
+		User user = genUser("known");
+		user.setId(1000);
+		Assert.assertEquals(1000, sequencedUserDAO.add(user));
+		Assert.assertEquals("known", sequencedUserDAO.<User> selectById(1000).get().getName());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNextIdRequiresAnnotation() {
+		userDAO.nextId();
+	}
+
+	private User genUser(String name) {
+		User user = new User();
+		user.setName(name);
+		user.setAge(1);
+		return user;
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.jtool.db.dao;
+
+import org.springframework.stereotype.Repository;
+
+import com.jtool.db.annotation.EntityClass;
+import com.jtool.db.annotation.Sharding;
+import com.jtool.db.annotation.TableName;
+
+@Repository
+@TableName("user")
+@Sharding(dataSources = { "shard0DataSource", "shard1DataSource" })
+@EntityClass(User.class)
+public class ShardedUserDAO extends AbstractShardedDAO {
+}
@@ -0,0 +1,94 @@
+package com.jtool.db.dao;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+
+import com.jtool.db.shard.OrderByComparator;
+import com.jtool.db.shard.Shard;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class ShardedUserDAOTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private ShardedUserDAO shardedUserDAO;
+
+	@Before
+	public void setUp() {
+		String[] names = { "a", "b", "c", "d", "e", "f" };
+		int[] ages = { 30, 25, 40, 10, 35, 20 };
+		for (int i = 0; i < names.length; i++) {
+			User user = new User();
+			user.setId(i + 1);
+			user.setName(names[i]);
+			user.setAge(ages[i]);
+			Assert.assertEquals(i + 1, shardedUserDAO.add(user));
+		}
+	}
+
+	@After
+	public void tearDown() {
+		for (Shard shard : shardedUserDAO.getShards()) {
+			shard.getJdbcTemplate().update("delete from " + shard.getTableName());
+		}
+	}
+
+	@Test
+	public void testSingleKeyOperationsGoToOneShard() {
+		Shard odd = shardedUserDAO.getShards().get(1);
+		Assert.assertEquals(3, odd.getJdbcTemplate().queryForObject("select count(1) from user", Integer.class).intValue());
+		Assert.assertEquals(Integer.valueOf(3), odd.getJdbcTemplate().queryForObject("select id from user where name = 'c'", Integer.class));
+
+		Assert.assertEquals("d", shardedUserDAO.<User>selectById(4).get().getName());
+		Assert.assertEquals(1, shardedUserDAO.deleteById(4));
+		Assert.assertFalse(shardedUserDAO.selectById(4).isPresent());
+	}
+
+	@Test
+	public void testScatterGather() {
+		Assert.assertEquals(6, shardedUserDAO.countTotal());
+		Assert.assertEquals(3, shardedUserDAO.countTotalFilterBy("where age >= ?", 30));
+		Assert.assertEquals(6, shardedUserDAO.selectAll().size());
+
+		List<User> users = shardedUserDAO.selectFilterByAsList("where age < ?", 30);
+		Assert.assertEquals("[b, d, f]", users.stream().map(User::getName).sorted().collect(Collectors.toList()).toString());
+	}
+
+	@Test
+	public void testOrderedMergePaging() {
+		List<User> page = shardedUserDAO.selectFilterByStartAndLimitOrderByAsList("", 1, 3, "order by age desc");
+		Assert.assertEquals("[e, a, b]", page.stream().map(User::getName).collect(Collectors.toList()).toString());
+
+		List<Map<String, Object>> rows = shardedUserDAO.selectFilterByStartAndLimitOrderBy("where age > ?", 0, 4, "order by age", 10);
+		Assert.assertEquals("[f, b, a, e]", rows.stream().map(row -> row.get("name")).collect(Collectors.toList()).toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddWithoutShardKey() {
+		User user = new User();
+		user.setName("noId");
+		user.setAge(1);
+		shardedUserDAO.add(user);
+	}
+
+	@Test
+	public void testMergeComparatorPerKey() {
+		Object[] upper = { "B", 1 };
+		Object[] lower = { "a", 2 };
+		Assert.assertTrue(OrderByComparator.parse("order by name, id").compare(upper, lower) < 0);
+
+		OrderByComparator caseInsensitive = OrderByComparator.parse("order by name, id desc", label -> label.equals("name") ? String.CASE_INSENSITIVE_ORDER : null);
+		Assert.assertTrue(caseInsensitive.compare(upper, lower) > 0);
+		Assert.assertTrue(caseInsensitive.compare(new Object[] { "a", 1 }, new Object[] { "A", 2 }) > 0);
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.jtool.db.dao;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.jtool.db.keyset.Keyset;
+
+public class SqlTemplatesTest {
+
+	private final SqlTemplates sqlTemplates = new SqlTemplates("user");
+
+	@Test
+	public void testTemplates() {
+		Assert.assertEquals("select * from user", sqlTemplates.selectAll);
+		Assert.assertEquals("select * from user where id = ?", sqlTemplates.selectById);
+		Assert.assertEquals("delete from user where id = ?", sqlTemplates.deleteById);
+		Assert.assertEquals("select * from user where age < ?", sqlTemplates.select("where age < ?"));
+		Assert.assertEquals("select count(1) from user ", sqlTemplates.count(""));
+		Assert.assertEquals("delete from user where age > ?", sqlTemplates.delete("where age > ?"));
+		Assert.assertEquals("select id from user where age > ? order by id limit ?, 1", sqlTemplates.chunkBoundary("where age > ?"));
+		Assert.assertEquals("select 1 from user where name = ? limit 0, 1", sqlTemplates.exists("where name = ?"));
+		Assert.assertEquals("select 1 from user where name = ? limit 0, 2", sqlTemplates.firstTwo("where name = ?"));
+		Assert.assertEquals("select * from user where age < ? order by id desc limit ?, ?", sqlTemplates.paged("where age < ?", "order by id desc"));
+		Assert.assertEquals("select * from user where id in (?,?,?)", sqlTemplates.selectByIds(3));
+		Assert.assertEquals("select id, name from user where age < ?", sqlTemplates.project(sqlTemplates.select("where age < ?"), "id, name"));
+		Assert.assertEquals("select min(id) as min_id, max(id) as max_id from user", sqlTemplates.idBounds);
+	}
+
+	@Test
+	public void testKeysetPage() {
+		Keyset keyset = Keyset.asc("age").withTieBreaker("id");
+		Assert.assertEquals("select * from user where age < ? order by age asc, id asc limit ?", sqlTemplates.keysetPage("where age < ?", keyset, false, false));
+		Assert.assertEquals("select * from user where (age < ?) and age >= ? and ((age > ?) or (age = ? and id > ?)) order by age asc, id asc limit ?",
+				sqlTemplates.keysetPage("where age < ?", keyset, true, false));
+		Assert.assertEquals("select * from user where age <= ? and ((age < ?) or (age = ? and id < ?)) order by age desc, id desc limit ?",
+				sqlTemplates.keysetPage(null, Keyset.asc("age").withTieBreaker("id"), true, true));
+		Assert.assertSame(sqlTemplates.keysetPage("where age < ?", keyset, true, false),
+				sqlTemplates.keysetPage("where age < ?", Keyset.asc("age").withTieBreaker("id"), true, false));
+	}
+
+}
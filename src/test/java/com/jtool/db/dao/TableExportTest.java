@@ -0,0 +1,60 @@
+package com.jtool.db.dao;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.annotation.Resource;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+
+import com.jtool.db.export.ExportFormat;
+import com.jtool.db.export.ExportOptions;
+import com.jtool.db.export.ExportResult;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class TableExportTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private UserDAO userDAO;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testExportCsvMerged() throws Exception {
+		Path target = folder.getRoot().toPath().resolve("user.csv");
+		ExportResult result = userDAO.exportTable(target, ExportOptions.of(ExportFormat.CSV).withRanges(2).withParallelism(2));
+
+		List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+		Assert.assertEquals(3, result.getRowCount());
+		Assert.assertEquals(Files.size(target), result.getByteCount());
+		Assert.assertEquals(4, lines.size());
+		Assert.assertEquals("ID,NAME,AGE", lines.get(0).toUpperCase());
+		Assert.assertEquals("1,jialechan,8", lines.get(1));
+		Assert.assertEquals("3,Ken,28", lines.get(3));
+		Assert.assertEquals(1, folder.getRoot().list().length);
+	}
+
+	@Test
+	public void testExportJsonLinesPerRange() throws Exception {
+		Path target = folder.getRoot().toPath().resolve("user");
+		ExportResult result = userDAO.exportTable(target, ExportOptions.of(ExportFormat.JSON_LINES).withRanges(3).withMerge(false));
+
+		Assert.assertEquals(3, result.getRowCount());
+		Assert.assertEquals(3, result.getFiles().size());
+		File[] files = target.toFile().listFiles();
+		Assert.assertEquals(3, files.length);
+		String second = new String(Files.readAllBytes(target.resolve("user-00001.jsonl")), StandardCharsets.UTF_8);
+		Assert.assertTrue(second.contains("\"KKL\""));
+		Assert.assertTrue(second.contains("18"));
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.jtool.db.dao;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Resource;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
+
+import com.jtool.db.scan.ScanOptions;
+import com.jtool.db.scan.ScanResult;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class TableScanTest extends AbstractJUnit4SpringContextTests {
+
+	@Resource
+	private UserDAO userDAO;
+
+	@Test
+	public void testScanAllSplits() {
+		Set<Integer> ids = ConcurrentHashMap.newKeySet();
+		AtomicInteger completedSplits = new AtomicInteger();
+		ScanOptions options = ScanOptions.defaults().withSplits(2).withParallelism(2).withBatchSize(1)
+				.withProgressListener(progress -> completedSplits.accumulateAndGet(progress.getCompletedSplits(), Math::max));
+
+		ScanResult result = userDAO.<User> scanInParallel(options, batch -> {
+			Assert.assertEquals(1, batch.size());
+			ids.add(batch.get(0).getId());
+		});
+
+		Assert.assertEquals(2, result.getSplits());
+		Assert.assertEquals(3, result.getRowCount());
+		Assert.assertEquals(0, result.getRetries());
+		Assert.assertEquals(3, ids.size());
+		Assert.assertEquals(2, completedSplits.get());
+	}
+
+	@Test
+	public void testRetryResumesFromLastBatch() {
+		AtomicBoolean failed = new AtomicBoolean();
+		AtomicInteger handled = new AtomicInteger();
+		ScanOptions options = ScanOptions.defaults().withSplits(1).withBatchSize(1).withRetries(1, 0);
+
+		ScanResult result = userDAO.<User> scanInParallel(options, batch -> {
+			if(batch.get(0).getId() == 2 && failed.compareAndSet(false, true)) {
+				throw new IllegalStateException("boom");
+			}
+			handled.incrementAndGet();
+		});
+
+		Assert.assertEquals(3, result.getRowCount());
+		Assert.assertEquals(1, result.getRetries());
+		Assert.assertEquals(3, handled.get());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRetriesExhausted() {
+		userDAO.<User> scanInParallel(ScanOptions.defaults().withRetries(2, 0), batch -> {
+			throw new IllegalStateException("boom");
+		});
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.jtool.db.dao;
+
+import javax.annotation.Resource;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.AbstractTransactionalJUnit4SpringContextTests;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@ContextConfiguration(locations = "/testDB-config.xml")
+public class UnitOfWorkTest extends AbstractTransactionalJUnit4SpringContextTests {
+
+	@Resource
+	private UserDAO userDAO;
+
+	@Test
+	public void testWritesFlushedAtCommit() {
+		try(UnitOfWork unitOfWork = UnitOfWork.begin()) {
+			for(int i = 0; i < 3; i++) {
+				userDAO.addDeferred(genUser("uow" + i, 40 + i));
+			}
+			userDAO.execUpdateDeferred("update user set age = ? where id = ?", 9, 2);
+			userDAO.execUpdateDeferred("update user set age = ? where id = ?", 29, 3);
+			userDAO.deleteByIdDeferred(1);
+
+			Assert.assertEquals(6, unitOfWork.getPendingCount());
+			Assert.assertEquals(3, userDAO.countTotal());
+
+			unitOfWork.commit();
+			Assert.assertEquals(0, unitOfWork.getPendingCount());
+		}
+		Assert.assertEquals(5, userDAO.countTotal());
+		Assert.assertFalse(userDAO.selectById(1).isPresent());
+		Assert.assertEquals(9, userDAO.<User> selectById(2).get().getAge());
+		Assert.assertEquals(29, userDAO.<User> selectById(3).get().getAge());
+		Assert.assertEquals(3, userDAO.countTotalFilterBy("where name like ?", "uow%"));
+	}
+
+	@Test
+	public void testCloseWithoutCommitDiscardsWrites() {
+		try(UnitOfWork unitOfWork = UnitOfWork.begin()) {
+			userDAO.addDeferred(genUser("discarded", 1));
+			userDAO.deleteByIdDeferred(1);
+			Assert.assertEquals(2, unitOfWork.getPendingCount());
+		}
+		Assert.assertEquals(3, userDAO.countTotal());
+	}
+
+	@Test
+	public void testWritesOutsideUnitOfWorkRunImmediately() {
+		userDAO.addDeferred(genUser("immediate", 1));
+		userDAO.deleteByIdDeferred(1);
+		Assert.assertEquals(3, userDAO.countTotal());
+		Assert.assertFalse(userDAO.selectById(1).isPresent());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNestedUnitOfWorkRejected() {
+		try(UnitOfWork unitOfWork = UnitOfWork.begin()) {
+			Assert.assertSame(unitOfWork, UnitOfWork.current());
+			UnitOfWork.begin();
+		}
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void testFailedCommitRollsBack() {
+		try(UnitOfWork unitOfWork = UnitOfWork.begin()) {
+			userDAO.addDeferred(genUser("rolledBack", 1));
+			userDAO.execUpdateDeferred("update user set no_such_column = ? where id = ?", 1, 1);
+			unitOfWork.commit();
+			Assert.fail();
+		} catch (DataAccessException e) {
+			Assert.assertEquals(0, userDAO.countTotalFilterBy("where name = ?", "rolledBack"));
+		}
+		Assert.assertEquals(3, userDAO.countTotal());
+	}
+
+	private User genUser(String name, int age) {
+		User user = new User();
+		user.setName(name);
+		user.setAge(age);
+		return user;
+	}
+
+}
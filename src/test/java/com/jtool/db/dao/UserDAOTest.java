@@ -1,10 +1,15 @@
 package com.jtool.db.dao;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.annotation.Resource;
 
@@ -14,6 +19,13 @@ import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.AbstractTransactionalJUnit4SpringContextTests;
 
+import com.jtool.db.exception.InvalidContinuationTokenException;
+import com.jtool.db.keyset.Keyset;
+import com.jtool.db.keyset.KeysetPage;
+import com.jtool.db.mapping.Projection;
+import com.jtool.db.metrics.OperationStatsSnapshot;
+import com.jtool.db.row.CompactRows;
+
 @ContextConfiguration(locations = "/testDB-config.xml")
 public class UserDAOTest extends AbstractTransactionalJUnit4SpringContextTests {
 	
@@ -52,6 +64,19 @@ public class UserDAOTest extends AbstractTransactionalJUnit4SpringContextTests {
 		Assert.assertEquals(user, userFromDB.get());
 	}
 	
+	@Test
+	public void testSelectByIds() {
+		List<Object> missing = new ArrayList<>();
+		Map<Object, User> users = userDAO.selectByIds(Arrays.asList(3, 99, 1, 3L), true, missing);
+
+		Assert.assertEquals(Arrays.asList(3, 1), new ArrayList<>(users.keySet()));
+		Assert.assertEquals(genUserPojo(3, "Ken", 28), users.get(3));
+		Assert.assertEquals(genUserPojo(1, "jialechan", 8), users.get(1));
+		Assert.assertEquals(Arrays.asList(99), missing);
+
+		Assert.assertTrue(userDAO.selectByIds(Collections.emptyList()).isEmpty());
+	}
+
 	@Test
 	public void testCountTotal() {
 		Assert.assertEquals(3, userDAO.countTotal());
@@ -266,10 +291,47 @@ public class UserDAOTest extends AbstractTransactionalJUnit4SpringContextTests {
 		Assert.assertEquals(0, users.size());
 	}
 	
+	@Test
+	public void testSelectFilterByAsCompactRows() {
+		List<Map<String, Object>> rows = userDAO.selectFilterByAsRows("where age > ? order by id", 1);
+		CompactRows compact = userDAO.selectFilterByAsCompactRows("where age > ? order by id", 1);
+
+		Assert.assertEquals(rows, compact);
+		Assert.assertEquals(compact, rows);
+		Assert.assertEquals(Arrays.asList("ID", "NAME", "AGE"), compact.getColumnLabels());
+		Assert.assertEquals("KKL", compact.get(1).get("name"));
+		Assert.assertEquals(Integer.valueOf(18), compact.get(1).get("Age"));
+		Assert.assertEquals(28, compact.getInt(2, compact.findColumn("age")));
+		Assert.assertEquals("Ken", compact.getObject(2, "NAME"));
+
+		try {
+			compact.get(0).put("name", "changed");
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+			// 只读视图
+		}
+	}
+
+	@Test
+	public void testCompactRowsNullsAndPaging() {
+		CompactRows compact = userDAO.execSelectSqlAsCompactRows("select id, cast(null as integer) as n, cast(age as bigint) as big from user order by id");
+		Assert.assertEquals(3, compact.size());
+		Assert.assertTrue(compact.isNull(0, 1));
+		Assert.assertNull(compact.get(0).get("n"));
+		Assert.assertTrue(compact.get(0).containsKey("N"));
+		Assert.assertEquals(Long.valueOf(8), compact.get(0).get("big"));
+		Assert.assertEquals(8L, compact.getLong(0, 2));
+
+		CompactRows page = userDAO.selectFilterByStartAndLimitOrderByAsCompactRows("", 1, 1, "order by id");
+		Assert.assertEquals(1, page.size());
+		Assert.assertEquals("KKL", page.get(0).get("name"));
+	}
+
 	@Test
 	public void testHasOnlyOneRecord() {
 		Assert.assertTrue(userDAO.hasOnlyOneRecord("where name = ?", "Ken"));
 		Assert.assertFalse(userDAO.hasOnlyOneRecord("where name != ?", "Ken"));
+		Assert.assertFalse(userDAO.hasOnlyOneRecord("where name = ?", "nobody"));
 	}
 	
 	@Test
@@ -278,6 +340,158 @@ public class UserDAOTest extends AbstractTransactionalJUnit4SpringContextTests {
 		Assert.assertFalse(userDAO.hasRecord("where name = ?", "nobody"));
 	}
 	
+	@Test
+	public void testSelectAllAsStream() {
+		List<User> users = new ArrayList<>();
+		users.add(genUserPojo(1, "jialechan", 8));
+		users.add(genUserPojo(2, "KKL", 18));
+		users.add(genUserPojo(3, "Ken", 28));
+
+		try (Stream<User> stream = userDAO.selectAllAsStream()) {
+			Assert.assertEquals(users, stream.collect(Collectors.toList()));
+		}
+	}
+
+	@Test
+	public void testSelectFilterByAsStreamEarlyClose() {
+		try (Stream<User> stream = userDAO.selectFilterByAsStream("where age > ? order by id", 1)) {
+			Assert.assertEquals(genUserPojo(1, "jialechan", 8), stream.findFirst().get());
+		}
+		Assert.assertEquals(3, userDAO.countTotal());
+	}
+
+	@Test
+	public void testSelectFilterByAsRowStream() {
+		try (Stream<Map<String, Object>> stream = userDAO.selectFilterByAsRowStream("where age < ?", 20)) {
+			List<Map<String, Object>> rows = stream.collect(Collectors.toList());
+			Assert.assertEquals(2, rows.size());
+			Assert.assertTrue(rows.contains(genUserMap(2, "KKL", 18)));
+		}
+	}
+
+	@Test
+	public void testSelectFilterByForEach() {
+		List<User> users = new ArrayList<>();
+		int count = userDAO.selectFilterByForEach("where age < ?", (User user) -> users.add(user), 20);
+
+		Assert.assertEquals(2, count);
+		Assert.assertEquals(genUserPojo(1, "jialechan", 8), users.get(0));
+	}
+
+	@Test
+	public void testExecSqlForEachWithFetchSize() {
+		List<User> users = new ArrayList<>();
+		String sql = "select * from " + userDAO.getTableName() + " where age > ?";
+		int count = userDAO.queryForEach(sql, new UserDAO.ObjectRowMapper(), 1, users::add, 10);
+
+		Assert.assertEquals(2, count);
+		Assert.assertEquals(2, users.size());
+	}
+
+	@Test
+	public void testSelectFilterByKeysetAsList() {
+		KeysetPage<User> first = userDAO.selectFilterByKeysetAsList("", Keyset.desc("age"), null, 2);
+		Assert.assertEquals(2, first.getItems().size());
+		Assert.assertEquals(genUserPojo(3, "Ken", 28), first.getItems().get(0));
+		Assert.assertTrue(first.hasNext());
+		Assert.assertFalse(first.hasPrevious());
+
+		KeysetPage<User> second = userDAO.selectFilterByKeysetAsList("", Keyset.desc("age"), first.getNextToken(), 2);
+		Assert.assertEquals(1, second.getItems().size());
+		Assert.assertEquals(genUserPojo(1, "jialechan", 8), second.getItems().get(0));
+		Assert.assertFalse(second.hasNext());
+
+		KeysetPage<User> back = userDAO.selectFilterByKeysetAsList("", Keyset.desc("age"), second.getPreviousToken(), 2);
+		Assert.assertEquals(first.getItems(), back.getItems());
+		Assert.assertFalse(back.hasPrevious());
+	}
+
+	@Test
+	public void testSelectFilterByKeysetWithCompositeKey() {
+		userDAO.execUpdate("update " + userDAO.getTableName() + " set age = ?", 10);
+
+		KeysetPage<Map<String, Object>> first = userDAO.selectFilterByKeyset("where age > ?", Keyset.asc("age").thenDesc("name"), null, 1, 1);
+		Assert.assertEquals(genUserMap(1, "jialechan", 10), first.getItems().get(0));
+
+		KeysetPage<Map<String, Object>> second = userDAO.selectFilterByKeyset("where age > ?", Keyset.asc("age").thenDesc("name"), first.getNextToken(), 1, 1);
+		Assert.assertEquals(genUserMap(3, "Ken", 10), second.getItems().get(0));
+		Assert.assertTrue(second.hasNext());
+	}
+
+	@Test(expected = InvalidContinuationTokenException.class)
+	public void testSelectFilterByKeysetWithInvalidToken() {
+		userDAO.selectFilterByKeyset("", Keyset.asc("age"), "F.x", 2);
+	}
+
+	@Test
+	public void testQueryMetrics() {
+		userDAO.selectById(1);
+		userDAO.execUpdate("update " + userDAO.getTableName() + " set name = 'x' where id = 2");
+
+		OperationStatsSnapshot selectById = userDAO.getQueryMetrics().getOperation("selectById", "select * from user where id = ?");
+		Assert.assertTrue(selectById.getCount() >= 1);
+		OperationStatsSnapshot execUpdate = userDAO.getQueryMetrics().getOperation("execUpdate", "update user set name = ? where id = ?");
+		Assert.assertTrue(execUpdate.getRows() >= 1);
+		Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(userDAO.getQueryMetrics().getObjectName()));
+	}
+
+	@Test
+	public void testProjectionOfEntityColumns() {
+		Projection<User> idAndName = Projection.of(User.class, "id", "name");
+
+		List<User> users = userDAO.selectFilterByAsList(idAndName, "where age > ?", 10);
+		Assert.assertEquals(2, users.size());
+		Assert.assertEquals("KKL", users.get(0).getName());
+		Assert.assertEquals(0, users.get(0).getAge());
+
+		List<User> page = userDAO.selectFilterByStartAndLimitOrderByAsList(idAndName, "", 0, 2, "order by id desc");
+		Assert.assertEquals(Arrays.asList(3, 2), page.stream().map(User::getId).collect(Collectors.toList()));
+
+		Assert.assertEquals("Ken", userDAO.selectFilterByAsSingle(idAndName, "where id = ?", 3).get().getName());
+		Assert.assertFalse(userDAO.selectFilterByAsSingle(idAndName, "where id = ?", 4).isPresent());
+	}
+
+	@Test
+	public void testProjectionDerivedFromClass() {
+		List<UserName> names = userDAO.selectAll(Projection.of(UserName.class));
+		Assert.assertEquals(3, names.size());
+		Assert.assertEquals("jialechan", names.get(0).getName());
+		Assert.assertEquals(1, names.get(0).getId());
+
+		try(Stream<UserName> stream = userDAO.selectFilterByAsStream(Projection.of(UserName.class), "where age < ?", 20)) {
+			Assert.assertEquals(2, stream.count());
+		}
+	}
+
+	@Test
+	public void testProjectionAsMap() {
+		List<Map<String, Object>> rows = userDAO.selectFilterByAsList(Projection.columns("name"), "where id = ?", 2);
+		Assert.assertEquals(1, rows.size());
+		Assert.assertEquals(1, rows.get(0).size());
+		Assert.assertEquals("KKL", rows.get(0).get("name"));
+	}
+
+	public static class UserName {
+		private int id;
+		private String name;
+
+		public int getId() {
+			return id;
+		}
+
+		public void setId(int id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
 	private User genUserPojo(int id, String name, int age) {
 		User user = new User();
 		user.setAge(age);
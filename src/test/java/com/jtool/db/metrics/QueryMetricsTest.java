@@ -0,0 +1,68 @@
+package com.jtool.db.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryMetricsTest {
+
+	@Test
+	public void testNormalize() {
+		Assert.assertEquals("update user set name = ? where id = ?", QueryMetrics.normalize("update user  set name = 'a''b' where id = -1"));
+		Assert.assertEquals("select * from user2 where age < ? limit ?, ?", QueryMetrics.normalize("select * from user2 where age < ? limit 0, 10"));
+	}
+
+	@Test
+	public void testRecordGroupsByNormalizedSql() {
+		QueryMetrics metrics = new QueryMetrics("UserDAO", "user", 0);
+		metrics.record("execUpdate", "delete from user where id = 1", System.nanoTime(), 1, false);
+		metrics.record("execUpdate", "delete from user where id = 2", System.nanoTime(), 0, false);
+		metrics.record("execUpdate", "delete from user where id = 3", System.nanoTime(), 0, true);
+
+		OperationStatsSnapshot snapshot = metrics.getOperation("execUpdate", "delete from user where id = ?");
+		Assert.assertEquals(3, snapshot.getCount());
+		Assert.assertEquals(1, snapshot.getRows());
+		Assert.assertEquals(1, snapshot.getErrorCount());
+		Assert.assertEquals(1, metrics.getOperations().size());
+	}
+
+	@Test
+	public void testStatementLimitCountsNormalizedShapes() {
+		QueryMetrics metrics = new QueryMetrics("UserDAO", "user", 0);
+		for (int i = 0; i < QueryMetrics.MAX_RAW_STATEMENTS_PER_METHOD + QueryMetrics.MAX_STATEMENTS_PER_METHOD; i++) {
+			metrics.record("execUpdate", "delete from user where id = " + i, System.nanoTime(), 0, false);
+		}
+		metrics.record("execUpdate", "delete from user where name = 'x'", System.nanoTime(), 0, false);
+
+		Assert.assertEquals(QueryMetrics.MAX_RAW_STATEMENTS_PER_METHOD + QueryMetrics.MAX_STATEMENTS_PER_METHOD,
+				metrics.getOperation("execUpdate", "delete from user where id = ?").getCount());
+		Assert.assertEquals(QueryMetrics.MAX_RAW_STATEMENTS_PER_METHOD + QueryMetrics.MAX_STATEMENTS_PER_METHOD,
+				metrics.getOperation("execUpdate", "delete from user where id = 1").getCount());
+		Assert.assertNull(metrics.getOperation("execUpdate", QueryMetrics.OTHER_SQL));
+		Assert.assertEquals(2, metrics.getOperations().size());
+	}
+
+	@Test
+	public void testSlowQuery() {
+		QueryMetrics metrics = new QueryMetrics("UserDAO", "user", 10);
+		metrics.record("selectAll", "select * from user", System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(20), 3, false);
+
+		Assert.assertEquals(1, metrics.getOperation("selectAll", "select * from user").getSlowCount());
+	}
+
+	@Test
+	public void testHistogramPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+		}
+
+		long p50 = histogram.getPercentileMicros(50);
+		long p99 = histogram.getPercentileMicros(99);
+		Assert.assertTrue(p50 >= 50000 && p50 <= 50000 * 1.25);
+		Assert.assertTrue(p99 >= 99000 && p99 <= 100000);
+		Assert.assertEquals(100000, histogram.getMaxMicros());
+	}
+
+}
@@ -4,4 +4,8 @@ CREATE TABLE user (
   age INTEGER NOT NULL
 ) ;
 
-     
\ No newline at end of file
+     
+CREATE TABLE id_sequence (
+  name VARCHAR(64) PRIMARY KEY,
+  next_id BIGINT NOT NULL
+) ;